@@ -2,12 +2,12 @@ package net.wbz.selectrix4java.block;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import net.wbz.selectrix4java.Module;
+import net.wbz.selectrix4java.bus.BitDiff;
 import net.wbz.selectrix4java.bus.BusAddress;
 import net.wbz.selectrix4java.bus.consumption.AbstractBusDataConsumer;
 import net.wbz.selectrix4java.bus.consumption.BusAddressDataConsumer;
@@ -26,10 +26,14 @@ public class BlockModule implements Module {
     private final BusAddress busAddress;
     private final List<AbstractBusDataConsumer> consumers = new ArrayList<>();
     /**
-     * Storage of the actual occupied states of this block. Will be initial filled by the consumer after established
-     * connection.
+     * Actual occupied states of this block with one bit for each block or {@code -1} until the first value is received
+     * by the consumer after established connection.
      */
-    private final Map<Integer, Boolean> blockStates = new ConcurrentHashMap<>();
+    private volatile int blockStates = -1;
+    /**
+     * Handler of the changed blocks, created once to avoid the allocation for each change.
+     */
+    private final BitDiff.BitChangeHandler blockStateHandler = dispatcher::fireBlockState;
 
     /**
      * Create a new module with the main address and additional function addresses.
@@ -37,24 +41,30 @@ public class BlockModule implements Module {
      * @param busAddress {@link net.wbz.selectrix4java.bus.BusAddress}
      */
     public BlockModule(BusAddress busAddress) {
+        this(busAddress, null);
+    }
+
+    /**
+     * Create a new module which registers the address in the given map of the device. The map is updated by the
+     * dispatcher of the device for each read of the bus before the consumers are called.
+     *
+     * @param busAddress {@link net.wbz.selectrix4java.bus.BusAddress}
+     * @param occupancyMap {@link OccupancyMap} of the device or {@code null}
+     */
+    public BlockModule(BusAddress busAddress, OccupancyMap occupancyMap) {
         this.busAddress = busAddress;
+        if (occupancyMap != null) {
+            occupancyMap.register(busAddress.getBus(), busAddress.getAddress());
+        }
 
         consumers.add(new BusAddressDataConsumer(busAddress.getBus(), busAddress.getAddress()) {
             @Override
             public synchronized void valueChanged(int oldValue, int newValue) {
-                for (int i = 1; i < 9; i++) {
-                    boolean state = BigInteger.valueOf(newValue).testBit(i - 1);
-                    if (blockStates.containsKey(i)) {
-                        if (blockStates.get(i) != state) {
-                            // state change
-                            dispatcher.fireBlockState(i, state);
-                        }
-                    } else {
-                        // first state received
-                        dispatcher.fireBlockState(i, state);
-                    }
-                    blockStates.put(i, state);
-                }
+                int states = newValue & 0xff;
+                // all blocks are fired for the first received state
+                int changed = blockStates < 0 ? BitDiff.ALL_BITS : BitDiff.changed(blockStates, states);
+                blockStates = states;
+                BitDiff.forEach(changed, states, blockStateHandler);
             }
         });
     }
@@ -84,6 +94,22 @@ public class BlockModule implements Module {
         dispatcher.removeListener(listener);
     }
 
+    /**
+     * Wait for the given occupied state of the block. The state is evaluated for the received data of the bus without
+     * polling.
+     *
+     * @param blockNr number of the block (1-8)
+     * @param occupied {@code true} to wait for an occupied block, {@code false} for a freed block
+     * @param timeout timeout to wait or {@code 0} to wait without timeout
+     * @param unit unit of the timeout
+     * @return future which is completed by the block state or completed exceptionally by an {@link
+     *         java.util.concurrent.TimeoutException}
+     */
+    public CompletableFuture<Void> waitForBlockState(int blockNr, boolean occupied, long timeout, TimeUnit unit) {
+        assert blockNr >= 1 && blockNr <= 8;
+        return busAddress.waitForBit(blockNr, occupied, timeout, unit).thenApply(data -> null);
+    }
+
     @Override
     public int getBus() {
         return busAddress.getBus();
@@ -109,10 +135,15 @@ public class BlockModule implements Module {
      *
      * @param blockNr number of the block (1-8)
      * @return {@code true} if the block is occupied otherwise it's free
+     * @throws IllegalStateException no state received
      */
     public boolean getLastReceivedBlockState(int blockNr) {
         assert blockNr >= 1 && blockNr <= 8;
-        return blockStates.get(blockNr);
+        int states = blockStates;
+        if (states < 0) {
+            throw new IllegalStateException("no state received for " + busAddress);
+        }
+        return BitDiff.isSet(states, blockNr);
     }
 
     @Override
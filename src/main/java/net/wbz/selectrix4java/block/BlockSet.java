@@ -0,0 +1,204 @@
+package net.wbz.selectrix4java.block;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable set of blocks of the {@link BlockModule}s, e.g. the blocks of a route. Each block is a bit of the layout
+ * wide {@link OccupancyMap}, so the set is checked against an {@link OccupancySnapshot} by a few word operations.
+ *
+ * @author Daniel Tuerk
+ */
+public final class BlockSet {
+
+    static final int ADDRESSES_PER_BUS = 113;
+    static final int BUS_COUNT = 2;
+    static final int BLOCKS_PER_MODULE = 8;
+    /**
+     * Number of words for the blocks of all modules; each word holds the 8 blocks of 8 consecutive addresses.
+     */
+    static final int WORDS = (BUS_COUNT * ADDRESSES_PER_BUS * BLOCKS_PER_MODULE + 63) / 64;
+
+    private static final BlockSet EMPTY = new BlockSet(new long[WORDS]);
+
+    private final long[] bits;
+
+    /**
+     * Create set of the given words, which are taken over without copy and must not be changed afterwards.
+     *
+     * @param bits words by {@link #index(int, int, int)}
+     */
+    BlockSet(long[] bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Set without blocks.
+     *
+     * @return empty {@link BlockSet}
+     */
+    public static BlockSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Set of the given blocks of the module.
+     *
+     * @param bus number of bus
+     * @param address address of the {@link BlockModule}
+     * @param blockNrs numbers of the blocks (1-8)
+     * @return new {@link BlockSet}
+     */
+    public static BlockSet of(int bus, int address, int... blockNrs) {
+        long[] bits = new long[WORDS];
+        for (int blockNr : blockNrs) {
+            int index = index(bus, address, blockNr);
+            bits[index >>> 6] |= 1L << index;
+        }
+        return new BlockSet(bits);
+    }
+
+    /**
+     * Set of all blocks of the module.
+     *
+     * @param bus number of bus
+     * @param address address of the {@link BlockModule}
+     * @return new {@link BlockSet}
+     */
+    public static BlockSet ofModule(int bus, int address) {
+        return of(bus, address, 1, 2, 3, 4, 5, 6, 7, 8);
+    }
+
+    /**
+     * Copy of this set with the given block.
+     *
+     * @param bus number of bus
+     * @param address address of the {@link BlockModule}
+     * @param blockNr number of the block (1-8)
+     * @return new {@link BlockSet}
+     */
+    public BlockSet with(int bus, int address, int blockNr) {
+        int index = index(bus, address, blockNr);
+        long[] copy = bits.clone();
+        copy[index >>> 6] |= 1L << index;
+        return new BlockSet(copy);
+    }
+
+    /**
+     * Union of this and the given set.
+     *
+     * @param other {@link BlockSet}
+     * @return new {@link BlockSet}
+     */
+    public BlockSet union(BlockSet other) {
+        long[] copy = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            copy[i] = bits[i] | other.bits[i];
+        }
+        return new BlockSet(copy);
+    }
+
+    /**
+     * Intersection of this and the given set.
+     *
+     * @param other {@link BlockSet}
+     * @return new {@link BlockSet}
+     */
+    public BlockSet intersection(BlockSet other) {
+        long[] copy = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            copy[i] = bits[i] & other.bits[i];
+        }
+        return new BlockSet(copy);
+    }
+
+    public boolean contains(int bus, int address, int blockNr) {
+        int index = index(bus, address, blockNr);
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public boolean isEmpty() {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : bits) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * Copy of the words of the blocks, e.g. to combine the set with further bits like the turnouts of a route.
+     *
+     * @return words with one bit for each block
+     */
+    public long[] toLongArray() {
+        return bits.clone();
+    }
+
+    /**
+     * Words of the blocks, not copied for the checks of the snapshot.
+     *
+     * @return bits by {@link #index(int, int, int)}
+     */
+    long[] bits() {
+        return bits;
+    }
+
+    /**
+     * Index of the bit for the given block in all sets and snapshots.
+     *
+     * @param bus number of bus
+     * @param address address of the {@link BlockModule}
+     * @param blockNr number of the block (1-8)
+     * @return index of the bit
+     */
+    static int index(int bus, int address, int blockNr) {
+        Preconditions.checkArgument(bus >= 0 && bus < BUS_COUNT, "invalid bus: %s", bus);
+        Preconditions.checkArgument(address >= 0 && address < ADDRESSES_PER_BUS, "invalid address: %s", address);
+        Preconditions.checkArgument(blockNr >= 1 && blockNr <= BLOCKS_PER_MODULE, "invalid block: %s", blockNr);
+        return (bus * ADDRESSES_PER_BUS + address) * BLOCKS_PER_MODULE + blockNr - 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(bits, ((BlockSet) o).bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bits);
+    }
+
+    @Override
+    public String toString() {
+        List<String> blocks = new ArrayList<>();
+        for (int i = 0; i < WORDS; i++) {
+            long word = bits[i];
+            while (word != 0) {
+                int index = i * 64 + Long.numberOfTrailingZeros(word);
+                int module = index / BLOCKS_PER_MODULE;
+                blocks.add(module / ADDRESSES_PER_BUS + ":" + module % ADDRESSES_PER_BUS + "." + (index
+                        % BLOCKS_PER_MODULE + 1));
+                word &= word - 1;
+            }
+        }
+        return MoreObjects.toStringHelper(this).add("blocks", blocks).toString();
+    }
+}
@@ -3,9 +3,9 @@ package net.wbz.selectrix4java.block;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.google.common.collect.Maps;
-import java.math.BigInteger;
 import java.util.Collection;
 import java.util.Map;
+import net.wbz.selectrix4java.bus.BitDiff;
 import net.wbz.selectrix4java.bus.BusAddress;
 import net.wbz.selectrix4java.bus.consumption.BusAddressData;
 import net.wbz.selectrix4java.bus.consumption.BusMultiAddressDataConsumer;
@@ -38,11 +38,43 @@ public class FeedbackBlockModule extends BlockModule {
     private final Map<Integer, FeedbackTrainData> trainAddressLastSend = Maps.newConcurrentMap();
     private final BusAddress feedbackAddress;
     private final BusAddress additionalAddress;
+    /**
+     * Index of the train locations of the device or {@code null} to use the module without index.
+     */
+    private final TrainLocationIndex trainLocationIndex;
 
     public FeedbackBlockModule(BusAddress busAddress, final BusAddress feedbackAddress, BusAddress additionalAddress) {
-        super(busAddress);
+        this(busAddress, feedbackAddress, additionalAddress, null);
+    }
+
+    /**
+     * Create module which updates the given index by the entering and leaving trains.
+     *
+     * @param busAddress address of the module
+     * @param feedbackAddress address of the train
+     * @param additionalAddress address of the block state
+     * @param trainLocationIndex {@link TrainLocationIndex} of the device or {@code null}
+     */
+    public FeedbackBlockModule(BusAddress busAddress, final BusAddress feedbackAddress, BusAddress additionalAddress,
+            TrainLocationIndex trainLocationIndex) {
+        this(busAddress, feedbackAddress, additionalAddress, trainLocationIndex, null);
+    }
+
+    /**
+     * Create module which updates the given index and occupancy map of the device.
+     *
+     * @param busAddress address of the module
+     * @param feedbackAddress address of the train
+     * @param additionalAddress address of the block state
+     * @param trainLocationIndex {@link TrainLocationIndex} of the device or {@code null}
+     * @param occupancyMap {@link OccupancyMap} of the device or {@code null}
+     */
+    public FeedbackBlockModule(BusAddress busAddress, final BusAddress feedbackAddress, BusAddress additionalAddress,
+            TrainLocationIndex trainLocationIndex, OccupancyMap occupancyMap) {
+        super(busAddress, occupancyMap);
         this.feedbackAddress = feedbackAddress;
         this.additionalAddress = additionalAddress;
+        this.trainLocationIndex = trainLocationIndex;
 
         getConsumers().add(new BusMultiAddressDataConsumer(busAddress.getBus(), additionalAddress.getAddress(),
                 feedbackAddress.getAddress()) {
@@ -84,11 +116,9 @@ public class FeedbackBlockModule extends BlockModule {
 
             FeedbackTrainData feedbackTrainData = new FeedbackTrainData();
 
-            BigInteger wrappedNewDataValue = BigInteger.valueOf(stateAddressNewDataValue);
-
             feedbackTrainData.setBlockNr((stateAddressNewDataValue & 0x7) + 1);
-            feedbackTrainData.setEnteringBlock(wrappedNewDataValue.testBit(3));
-            feedbackTrainData.setTrainDirectionForward(wrappedNewDataValue.testBit(4));
+            feedbackTrainData.setEnteringBlock(BitDiff.isSet(stateAddressNewDataValue, 4));
+            feedbackTrainData.setTrainDirectionForward(BitDiff.isSet(stateAddressNewDataValue, 5));
             feedbackTrainData.setTrainAddress(feedbackAddressNewDataValue);
 
             boolean isDuplicate = false;
@@ -100,6 +130,7 @@ public class FeedbackBlockModule extends BlockModule {
                     log.trace("{}: value: {}",getBusAddress(), feedbackTrainData);
                 }
                 trainAddressLastSend.put(feedbackTrainData.getTrainAddress(), feedbackTrainData);
+                updateTrainLocationIndex(feedbackTrainData);
                 if (feedbackTrainData.isEnteringBlock()) {
                     dispatcher.fireTrainEnterBlock(feedbackTrainData.getBlockNr(), feedbackTrainData.getTrainAddress(),
                             feedbackTrainData.isTrainDirectionForward());
@@ -116,6 +147,25 @@ public class FeedbackBlockModule extends BlockModule {
         }
     }
 
+    /**
+     * Update the index before the listeners are called, so the listeners see the new location.
+     *
+     * @param feedbackTrainData received train data
+     */
+    private void updateTrainLocationIndex(FeedbackTrainData feedbackTrainData) {
+        if (trainLocationIndex == null) {
+            return;
+        }
+        if (feedbackTrainData.isEnteringBlock()) {
+            trainLocationIndex.trainEntered(getBusAddress().getBus(), getBusAddress().getAddress(),
+                    feedbackTrainData.getBlockNr(), feedbackTrainData.getTrainAddress(),
+                    feedbackTrainData.isTrainDirectionForward());
+        } else {
+            trainLocationIndex.trainLeft(getBusAddress().getBus(), getBusAddress().getAddress(),
+                    feedbackTrainData.getBlockNr(), feedbackTrainData.getTrainAddress());
+        }
+    }
+
     /**
      * Rest states and request new states from module. Sends the request command. New states are received by the
      * consumer and delegated to listeners.
@@ -136,6 +186,9 @@ public class FeedbackBlockModule extends BlockModule {
     public void reset() {
         super.reset();
         trainAddressLastSend.clear();
+        if (trainLocationIndex != null) {
+            trainLocationIndex.resetModule(getBusAddress().getBus(), getBusAddress().getAddress());
+        }
     }
 
     /**
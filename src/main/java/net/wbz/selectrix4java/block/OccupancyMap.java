@@ -0,0 +1,124 @@
+package net.wbz.selectrix4java.block;
+
+import java.util.Arrays;
+import net.wbz.selectrix4java.bus.BusDataReceiver;
+
+/**
+ * Occupied states of the blocks of all {@link BlockModule}s of the device as one bit per block.
+ * <p>
+ * The map receives the data of each read of the bus from the dispatcher of the device before the consumers are called.
+ * The values of the registered block modules are stored as received from the bus, one byte of the words for each
+ * address, so the update doesn't decode the single blocks. The words are replaced once per read, so a {@link
+ * OccupancySnapshot} is a single volatile read and the states of all blocks of the snapshot are from the same read of
+ * the bus. The modules change only a few times per poll of the bus, which keeps the copy of the words cheap.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public class OccupancyMap implements BusDataReceiver {
+
+    private volatile OccupancySnapshot snapshot = new OccupancySnapshot(new long[BlockSet.WORDS], 0L);
+
+    /**
+     * Addresses of the registered block modules by {@code bus * 113 + address}. Guarded by this.
+     */
+    private int[] modules = new int[0];
+
+    /**
+     * Store the values of the given block module by the following reads of the bus.
+     *
+     * @param bus number of bus
+     * @param address address of the {@link BlockModule}
+     */
+    synchronized void register(int bus, int address) {
+        // checks the address
+        BlockSet.index(bus, address, 1);
+        int module = bus * BlockSet.ADDRESSES_PER_BUS + address;
+        if (Arrays.binarySearch(modules, module) < 0) {
+            int[] copy = Arrays.copyOf(modules, modules.length + 1);
+            copy[modules.length] = module;
+            Arrays.sort(copy);
+            modules = copy;
+        }
+    }
+
+    @Override
+    public void received(int busNr, byte[] data) {
+        byte[][] busData = new byte[busNr + 1][];
+        busData[busNr] = data;
+        receivedAll(busData);
+    }
+
+    /**
+     * Store the values of the registered block modules from one read of the bus. A new snapshot is published only if
+     * a block is changed.
+     *
+     * @param busData data for each bus, {@code null} for a bus which isn't read
+     */
+    @Override
+    public synchronized void receivedAll(byte[][] busData) {
+        OccupancySnapshot current = snapshot;
+        long[] bits = current.bitsForUpdate();
+        long[] updated = null;
+        for (int module : modules) {
+            int bus = module / BlockSet.ADDRESSES_PER_BUS;
+            int address = module % BlockSet.ADDRESSES_PER_BUS;
+            if (bus >= busData.length || busData[bus] == null || address >= busData[bus].length) {
+                continue;
+            }
+            int shift = module * BlockSet.BLOCKS_PER_MODULE;
+            int word = shift >>> 6;
+            long mask = 0xffL << shift;
+            long value = (long) (busData[bus][address] & 0xff) << shift;
+            if ((bits[word] & mask) != value) {
+                if (updated == null) {
+                    updated = bits.clone();
+                }
+                updated[word] = (updated[word] & ~mask) | value;
+            }
+        }
+        if (updated != null) {
+            snapshot = new OccupancySnapshot(updated, current.getVersion() + 1);
+        }
+    }
+
+    /**
+     * Consistent states of all blocks.
+     *
+     * @return {@link OccupancySnapshot}
+     */
+    public OccupancySnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Last received state of the given block.
+     *
+     * @param bus number of bus
+     * @param address address of the {@link BlockModule}
+     * @param blockNr number of the block (1-8)
+     * @return {@code true} if the block is occupied
+     */
+    public boolean isOccupied(int bus, int address, int blockNr) {
+        return snapshot.isOccupied(bus, address, blockNr);
+    }
+
+    /**
+     * Check if all blocks of the set are free, e.g. the blocks of a route.
+     *
+     * @param blocks {@link BlockSet}
+     * @return {@code true} if no block of the set is occupied
+     */
+    public boolean isAllFree(BlockSet blocks) {
+        return snapshot.isAllFree(blocks);
+    }
+
+    /**
+     * Set all blocks free and forget the registered block modules, e.g. by the disconnect of the device, which removes
+     * the modules.
+     */
+    public synchronized void clear() {
+        modules = new int[0];
+        snapshot = new OccupancySnapshot(new long[BlockSet.WORDS], snapshot.getVersion() + 1);
+    }
+}
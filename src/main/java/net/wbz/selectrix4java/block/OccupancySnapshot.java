@@ -0,0 +1,112 @@
+package net.wbz.selectrix4java.block;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Immutable occupied states of all blocks of the {@link OccupancyMap} at one point in time.
+ *
+ * @author Daniel Tuerk
+ */
+public final class OccupancySnapshot {
+
+    private final long[] bits;
+    private final long version;
+
+    OccupancySnapshot(long[] bits, long version) {
+        this.bits = bits;
+        this.version = version;
+    }
+
+    /**
+     * Number of the changes of the map until this snapshot. Two snapshots with the same version have the same states.
+     *
+     * @return version of the map
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Words of the snapshot to copy for the next update.
+     *
+     * @return words by {@link BlockSet#index(int, int, int)}
+     */
+    long[] bitsForUpdate() {
+        return bits;
+    }
+
+    /**
+     * State of the given block.
+     *
+     * @param bus number of bus
+     * @param address address of the {@link BlockModule}
+     * @param blockNr number of the block (1-8)
+     * @return {@code true} if the block is occupied
+     */
+    public boolean isOccupied(int bus, int address, int blockNr) {
+        int index = BlockSet.index(bus, address, blockNr);
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Check if all blocks of the set are free.
+     *
+     * @param blocks {@link BlockSet}
+     * @return {@code true} if no block of the set is occupied
+     */
+    public boolean isAllFree(BlockSet blocks) {
+        long[] other = blocks.bits();
+        for (int i = 0; i < BlockSet.WORDS; i++) {
+            if ((bits[i] & other[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if all blocks of the set are occupied.
+     *
+     * @param blocks {@link BlockSet}
+     * @return {@code true} if each block of the set is occupied
+     */
+    public boolean isAllOccupied(BlockSet blocks) {
+        long[] other = blocks.bits();
+        for (int i = 0; i < BlockSet.WORDS; i++) {
+            if ((bits[i] & other[i]) != other[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Occupied blocks of the given set.
+     *
+     * @param blocks {@link BlockSet}
+     * @return {@link BlockSet} of the occupied blocks
+     */
+    public BlockSet getOccupied(BlockSet blocks) {
+        long[] other = blocks.bits();
+        long[] occupied = new long[BlockSet.WORDS];
+        for (int i = 0; i < BlockSet.WORDS; i++) {
+            occupied[i] = bits[i] & other[i];
+        }
+        return new BlockSet(occupied);
+    }
+
+    /**
+     * All occupied blocks.
+     *
+     * @return {@link BlockSet} of the occupied blocks
+     */
+    public BlockSet asBlockSet() {
+        // one copy of all words instead of a set for each occupied block
+        return new BlockSet(bits.clone());
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("version", version).add("occupied", asBlockSet()).toString();
+    }
+}
@@ -0,0 +1,106 @@
+package net.wbz.selectrix4java.block;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+/**
+ * Block of a {@link FeedbackBlockModule} which a train has entered last.
+ *
+ * @author Daniel Tuerk
+ */
+public final class TrainLocation {
+
+    private final int bus;
+    private final int moduleAddress;
+    private final int blockNumber;
+    private final boolean forward;
+    private final long timestamp;
+
+    TrainLocation(int bus, int moduleAddress, int blockNumber, boolean forward, long timestamp) {
+        this.bus = bus;
+        this.moduleAddress = moduleAddress;
+        this.blockNumber = blockNumber;
+        this.forward = forward;
+        this.timestamp = timestamp;
+    }
+
+    public int getBus() {
+        return bus;
+    }
+
+    /**
+     * Address of the {@link FeedbackBlockModule}.
+     *
+     * @return address of the module
+     */
+    public int getModuleAddress() {
+        return moduleAddress;
+    }
+
+    /**
+     * Number of the block in the module.
+     *
+     * @return number from 1 to 8
+     */
+    public int getBlockNumber() {
+        return blockNumber;
+    }
+
+    /**
+     * Direction of the train by entering the block.
+     *
+     * @return {@code true} for forward
+     */
+    public boolean isForward() {
+        return forward;
+    }
+
+    /**
+     * Time of entering the block.
+     *
+     * @return milliseconds by {@link System#currentTimeMillis()}
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Check for the given block.
+     *
+     * @param bus number of bus
+     * @param moduleAddress address of the module
+     * @param blockNumber number of the block in the module
+     * @return {@code true} if the location is the given block
+     */
+    public boolean isBlock(int bus, int moduleAddress, int blockNumber) {
+        return this.bus == bus && this.moduleAddress == moduleAddress && this.blockNumber == blockNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TrainLocation that = (TrainLocation) o;
+        return bus == that.bus && moduleAddress == that.moduleAddress && blockNumber == that.blockNumber
+                && forward == that.forward && timestamp == that.timestamp;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(bus, moduleAddress, blockNumber, forward, timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("bus", bus)
+                .add("moduleAddress", moduleAddress)
+                .add("blockNumber", blockNumber)
+                .add("forward", forward)
+                .toString();
+    }
+}
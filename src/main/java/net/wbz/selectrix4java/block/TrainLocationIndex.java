@@ -0,0 +1,262 @@
+package net.wbz.selectrix4java.block;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Locations of the trains which are detected by all {@link FeedbackBlockModule}s of the device.
+ * <p>
+ * The index is updated by the modules for each entering and leaving train, before the listeners of the module are
+ * called. The lookups by the train address and by the block are lock-free and don't allocate: the last entered block of
+ * each train is stored by the train address and the trains of each block are stored as bits of the train addresses.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public class TrainLocationIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TrainLocationIndex.class);
+
+    /**
+     * Number of train addresses; the feedback modules report the addresses 1 to 126.
+     */
+    private static final int TRAIN_ADDRESSES = 128;
+    private static final int ADDRESSES_PER_BUS = 113;
+    private static final int BUS_COUNT = 2;
+    private static final int BLOCKS_PER_MODULE = 8;
+    /**
+     * Words of the train bits for each block.
+     */
+    private static final int WORDS_PER_BLOCK = TRAIN_ADDRESSES / 64;
+
+    private final AtomicReferenceArray<TrainLocation> locations = new AtomicReferenceArray<>(TRAIN_ADDRESSES);
+    private final AtomicLongArray blockTrains = new AtomicLongArray(
+            BUS_COUNT * ADDRESSES_PER_BUS * BLOCKS_PER_MODULE * WORDS_PER_BLOCK);
+    private final List<TrainLocationListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Last entered block of the given train.
+     *
+     * @param trainAddress address of the train
+     * @return {@link TrainLocation} or {@code null} if unknown
+     */
+    public TrainLocation getLocation(int trainAddress) {
+        return isTrainAddress(trainAddress) ? locations.get(trainAddress) : null;
+    }
+
+    /**
+     * Check if the given train is detected in the given block.
+     *
+     * @param trainAddress address of the train
+     * @param bus number of bus
+     * @param moduleAddress address of the module
+     * @param blockNumber number of the block in the module (1-8)
+     * @return {@code true} if the train is in the block
+     */
+    public boolean isInBlock(int trainAddress, int bus, int moduleAddress, int blockNumber) {
+        int word = word(bus, moduleAddress, blockNumber);
+        if (word < 0 || !isTrainAddress(trainAddress)) {
+            return false;
+        }
+        return (blockTrains.get(word + trainAddress / 64) & (1L << (trainAddress % 64))) != 0;
+    }
+
+    /**
+     * Check if any train is detected in the given block.
+     *
+     * @param bus number of bus
+     * @param moduleAddress address of the module
+     * @param blockNumber number of the block in the module (1-8)
+     * @return {@code true} if at least one train is in the block
+     */
+    public boolean hasTrain(int bus, int moduleAddress, int blockNumber) {
+        int word = word(bus, moduleAddress, blockNumber);
+        if (word < 0) {
+            return false;
+        }
+        for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+            if (blockTrains.get(word + i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Trains which are detected in the given block.
+     *
+     * @param bus number of bus
+     * @param moduleAddress address of the module
+     * @param blockNumber number of the block in the module (1-8)
+     * @return addresses of the trains in ascending order
+     */
+    public List<Integer> getTrains(int bus, int moduleAddress, int blockNumber) {
+        int word = word(bus, moduleAddress, blockNumber);
+        if (word < 0) {
+            return Collections.emptyList();
+        }
+        List<Integer> trains = new ArrayList<>(2);
+        for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+            long bits = blockTrains.get(word + i);
+            while (bits != 0) {
+                trains.add(i * 64 + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return trains;
+    }
+
+    public void addListener(TrainLocationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TrainLocationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Train entered the block of the module.
+     *
+     * @param bus number of bus
+     * @param moduleAddress address of the module
+     * @param blockNumber number of the block in the module (1-8)
+     * @param trainAddress address of the train
+     * @param forward direction of the train
+     */
+    void trainEntered(int bus, int moduleAddress, int blockNumber, int trainAddress, boolean forward) {
+        int word = word(bus, moduleAddress, blockNumber);
+        if (word < 0 || !isTrainAddress(trainAddress)) {
+            log.warn("can't index train {} in block {} of module {}/{}", trainAddress, blockNumber, bus,
+                    moduleAddress);
+            return;
+        }
+        TrainLocation newLocation = new TrainLocation(bus, moduleAddress, blockNumber, forward,
+                System.currentTimeMillis());
+        TrainLocation oldLocation;
+        synchronized (this) {
+            setBit(word, trainAddress, true);
+            oldLocation = locations.getAndSet(trainAddress, newLocation);
+        }
+        fireLocationChanged(trainAddress, oldLocation, newLocation);
+    }
+
+    /**
+     * Train left the block of the module. The location of the train is removed if it's the left block.
+     *
+     * @param bus number of bus
+     * @param moduleAddress address of the module
+     * @param blockNumber number of the block in the module (1-8)
+     * @param trainAddress address of the train
+     */
+    void trainLeft(int bus, int moduleAddress, int blockNumber, int trainAddress) {
+        int word = word(bus, moduleAddress, blockNumber);
+        if (word < 0 || !isTrainAddress(trainAddress)) {
+            return;
+        }
+        TrainLocation oldLocation;
+        synchronized (this) {
+            setBit(word, trainAddress, false);
+            oldLocation = locations.get(trainAddress);
+            if (oldLocation == null || !oldLocation.isBlock(bus, moduleAddress, blockNumber)) {
+                // train has already entered the next block
+                return;
+            }
+            locations.set(trainAddress, null);
+        }
+        fireLocationChanged(trainAddress, oldLocation, null);
+    }
+
+    /**
+     * Remove the trains of all blocks of the module, e.g. because the states of the module are requested again.
+     *
+     * @param bus number of bus
+     * @param moduleAddress address of the module
+     */
+    void resetModule(int bus, int moduleAddress) {
+        int firstWord = word(bus, moduleAddress, 1);
+        if (firstWord < 0) {
+            return;
+        }
+        List<Integer> removedTrains = new ArrayList<>();
+        List<TrainLocation> removedLocations = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < BLOCKS_PER_MODULE * WORDS_PER_BLOCK; i++) {
+                blockTrains.set(firstWord + i, 0L);
+            }
+            for (int trainAddress = 0; trainAddress < TRAIN_ADDRESSES; trainAddress++) {
+                TrainLocation location = locations.get(trainAddress);
+                if (location != null && location.getBus() == bus && location.getModuleAddress() == moduleAddress) {
+                    locations.set(trainAddress, null);
+                    removedTrains.add(trainAddress);
+                    removedLocations.add(location);
+                }
+            }
+        }
+        for (int i = 0; i < removedTrains.size(); i++) {
+            fireLocationChanged(removedTrains.get(i), removedLocations.get(i), null);
+        }
+    }
+
+    /**
+     * Remove all locations, e.g. by the disconnect of the device. The listeners are called for each removed location.
+     */
+    public void clear() {
+        List<Integer> removedTrains = new ArrayList<>();
+        List<TrainLocation> removedLocations = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < blockTrains.length(); i++) {
+                blockTrains.set(i, 0L);
+            }
+            for (int trainAddress = 0; trainAddress < TRAIN_ADDRESSES; trainAddress++) {
+                TrainLocation location = locations.getAndSet(trainAddress, null);
+                if (location != null) {
+                    removedTrains.add(trainAddress);
+                    removedLocations.add(location);
+                }
+            }
+        }
+        for (int i = 0; i < removedTrains.size(); i++) {
+            fireLocationChanged(removedTrains.get(i), removedLocations.get(i), null);
+        }
+    }
+
+    private void setBit(int word, int trainAddress, boolean state) {
+        int index = word + trainAddress / 64;
+        long mask = 1L << (trainAddress % 64);
+        long bits = blockTrains.get(index);
+        blockTrains.set(index, state ? bits | mask : bits & ~mask);
+    }
+
+    private void fireLocationChanged(int trainAddress, TrainLocation oldLocation, TrainLocation newLocation) {
+        for (TrainLocationListener listener : listeners) {
+            try {
+                listener.locationChanged(trainAddress, oldLocation, newLocation);
+            } catch (RuntimeException e) {
+                log.error("error in train location listener", e);
+            }
+        }
+    }
+
+    private static boolean isTrainAddress(int trainAddress) {
+        return trainAddress > 0 && trainAddress < TRAIN_ADDRESSES;
+    }
+
+    /**
+     * Index of the first word of the train bits for the given block.
+     *
+     * @return index or {@code -1} if the block is outside of the index
+     */
+    private static int word(int bus, int moduleAddress, int blockNumber) {
+        if (bus < 0 || bus >= BUS_COUNT || moduleAddress < 0 || moduleAddress >= ADDRESSES_PER_BUS
+                || blockNumber < 1 || blockNumber > BLOCKS_PER_MODULE) {
+            return -1;
+        }
+        return ((bus * ADDRESSES_PER_BUS + moduleAddress) * BLOCKS_PER_MODULE + blockNumber - 1) * WORDS_PER_BLOCK;
+    }
+}
@@ -0,0 +1,18 @@
+package net.wbz.selectrix4java.block;
+
+/**
+ * Listener for the changed locations of the {@link TrainLocationIndex}.
+ *
+ * @author Daniel Tuerk
+ */
+public interface TrainLocationListener {
+
+    /**
+     * Location of the train changed.
+     *
+     * @param trainAddress address of the train
+     * @param oldLocation previous location or {@code null} if the location was unknown
+     * @param newLocation new location or {@code null} if the train has left the last known block
+     */
+    void locationChanged(int trainAddress, TrainLocation oldLocation, TrainLocation newLocation);
+}
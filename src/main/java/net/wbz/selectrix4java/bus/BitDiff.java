@@ -0,0 +1,108 @@
+package net.wbz.selectrix4java.bus;
+
+/**
+ * Bit operations on the value of an address. The bits are numbered 1-8 like the bits of the
+ * {@link BusAddress}. The values are used as unsigned byte, so signed bytes of the bus can be passed without masking.
+ * <p>
+ * The changed bits of two values are computed once by {@code oldValue ^ newValue} and only the set bits of the
+ * difference are walked, so a change of a single bit calls the handler once and nothing is allocated.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public final class BitDiff {
+
+    /**
+     * Mask of all 8 bits of an address, e.g. to handle each bit for the initial call of a consumer.
+     */
+    public static final int ALL_BITS = 0xff;
+
+    private BitDiff() {
+    }
+
+    /**
+     * Handler for a changed bit.
+     */
+    @FunctionalInterface
+    public interface BitChangeHandler {
+
+        /**
+         * Bit has changed.
+         *
+         * @param bit number of bit (1-8)
+         * @param state new state of the bit
+         */
+        void bitChanged(int bit, boolean state);
+    }
+
+    /**
+     * State of the given bit.
+     *
+     * @param value value of the address
+     * @param bit number of bit (1-8)
+     * @return {@code true} if the bit is set
+     */
+    public static boolean isSet(int value, int bit) {
+        return (value & mask(bit)) != 0;
+    }
+
+    /**
+     * Mask of the given bit.
+     *
+     * @param bit number of bit (1-8)
+     * @return mask with the single bit set
+     */
+    public static int mask(int bit) {
+        return 1 << (bit - 1);
+    }
+
+    /**
+     * Changed bits of the values.
+     *
+     * @param oldValue old value of the address
+     * @param newValue new value of the address
+     * @return mask of the changed bits
+     */
+    public static int changed(int oldValue, int newValue) {
+        return (oldValue ^ newValue) & ALL_BITS;
+    }
+
+    /**
+     * Check if the given bit differs in the values.
+     *
+     * @param oldValue old value of the address
+     * @param newValue new value of the address
+     * @param bit number of bit (1-8)
+     * @return {@code true} if the bit has changed
+     */
+    public static boolean isChanged(int oldValue, int newValue, int bit) {
+        return (changed(oldValue, newValue) & mask(bit)) != 0;
+    }
+
+    /**
+     * Call the handler for each changed bit in ascending order.
+     *
+     * @param oldValue old value of the address
+     * @param newValue new value of the address
+     * @param handler {@link BitChangeHandler}
+     */
+    public static void forEachChanged(int oldValue, int newValue, BitChangeHandler handler) {
+        forEach(changed(oldValue, newValue), newValue, handler);
+    }
+
+    /**
+     * Call the handler for each bit of the mask in ascending order with the state of the bit in the given value.
+     *
+     * @param bits mask of the bits to call, e.g. {@link #changed(int, int)} or {@link #ALL_BITS}
+     * @param value value of the address
+     * @param handler {@link BitChangeHandler}
+     */
+    public static void forEach(int bits, int value, BitChangeHandler handler) {
+        int remaining = bits & ALL_BITS;
+        while (remaining != 0) {
+            int lowest = remaining & -remaining;
+            handler.bitChanged(Integer.numberOfTrailingZeros(lowest) + 1, (value & lowest) != 0);
+            remaining ^= lowest;
+        }
+    }
+}
@@ -2,14 +2,22 @@ package net.wbz.selectrix4java.bus;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
-import java.math.BigInteger;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import net.wbz.selectrix4java.bus.consumption.AbstractBusDataConsumer;
 import net.wbz.selectrix4java.bus.consumption.BusAddressDataConsumer;
 import net.wbz.selectrix4java.data.BusData;
 import net.wbz.selectrix4java.data.BusDataChannel;
+import net.wbz.selectrix4java.data.WriteResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,7 +39,10 @@ public class BusAddress {
      * Number of the address in the bus.
      */
     private final int address;
-    private final BusDataChannel busDataChannel;
+    /**
+     * Actual channel of the device; changed by a reconnect of the device.
+     */
+    private final Supplier<BusDataChannel> busDataChannel;
     private final AbstractBusDataConsumer busDataConsumer;
     private final BusAddressDataDispatcher dispatcher = new BusAddressDataDispatcher();
     /**
@@ -46,8 +57,28 @@ public class BusAddress {
      * Last received data. Is only updated by received changed data.
      */
     private volatile byte lastReceivedData = -1;
+    /**
+     * Flag for at least one received data value.
+     */
+    private volatile boolean dataReceived = false;
+    /**
+     * Conditions to wait for. Evaluated for each received data value.
+     */
+    private final List<BusAddressCondition> conditions = new ArrayList<>();
+
+    public BusAddress(final int bus, final int address, final BusDataChannel busDataChannel) {
+        this(bus, address, () -> busDataChannel);
+    }
 
-    public BusAddress(final int bus, final int address, BusDataChannel busDataChannel) {
+    /**
+     * Create address which sends the data to the actual channel of the device. The address is kept by a reconnect of
+     * the device and uses the new channel.
+     *
+     * @param bus number of bus
+     * @param address number of the address in the bus
+     * @param busDataChannel supplier of the actual channel or {@code null} if the device isn't connected
+     */
+    public BusAddress(final int bus, final int address, Supplier<BusDataChannel> busDataChannel) {
         this.bus = bus;
         this.address = address;
         this.busDataChannel = busDataChannel;
@@ -56,18 +87,27 @@ public class BusAddress {
         busDataConsumer = new BusAddressDataConsumer(bus, address) {
             @Override
             public void valueChanged(int oldValue, int newValue) {
+                List<BusAddressCondition> matched;
                 synchronized (BusAddress.this) {
-                    if ((byte) newValue != lastReceivedData) {
-                        lastReceivedData = (byte) newValue;
-                        if (bitsToUpdate.isEmpty()) {
-                            data = lastReceivedData;
-                        }
-                        /*
-                         * Only fire changes, initial data changed call for the current value is done by initial call in
-                         * the consumer
-                         */
-                        dispatcher.fireValueChanged(oldValue, newValue);
+                    // the first value must be taken also if it's equal to the initial value (0xff)
+                    if (dataReceived && (byte) newValue == lastReceivedData) {
+                        return;
+                    }
+                    lastReceivedData = (byte) newValue;
+                    dataReceived = true;
+                    if (bitsToUpdate.isEmpty()) {
+                        data = lastReceivedData;
                     }
+                    matched = evaluateConditions();
+                    /*
+                     * Only fire changes, initial data changed call for the current value is done by initial call in
+                     * the consumer
+                     */
+                    dispatcher.fireValueChanged(oldValue, newValue);
+                }
+                // the waiting callers continue without the lock of the address
+                for (BusAddressCondition condition : matched) {
+                    condition.complete();
                 }
             }
         };
@@ -86,32 +126,183 @@ public class BusAddress {
      * Update data of the address and send to bus.
      *
      * @param data new data
+     * @return future completed with the {@link WriteResult} after the first read of the bus following the write
      */
-    public synchronized void sendData(byte data) {
+    public synchronized CompletableFuture<WriteResult> sendData(byte data) {
         // send new data value to channel; actual data value is updated async by consumer
-        busDataChannel.send(new BusData(bus, address, data));
+        BusDataChannel channel = busDataChannel.get();
+        if (channel == null) {
+            return notConnected();
+        }
+        CompletableFuture<WriteResult> result = channel.send(new BusData(bus, address, data));
         this.data = data;
+        return result;
     }
 
     /**
-     * Send the actual data of this address to the bus.
+     * Send the actual data of this address to the bus. Bits changed by {@link #setBit(int)} and {@link #clearBit(int)}
+     * are applied in the queue of the channel to the latest known data value of the address, so changes of other bits
+     * by concurrent senders are kept.
+     *
+     * @return future completed with the {@link WriteResult} after the first read of the bus following the write
      */
-    public synchronized void send() {
+    public synchronized CompletableFuture<WriteResult> send() {
         LOG.trace("{} -> send - data {}", this.toString(), data);
-        BigInteger dataToSend = BigInteger.valueOf(data);
+        BusDataChannel channel = busDataChannel.get();
+        if (channel == null) {
+            return notConnected();
+        }
         // check for bit manipulation to send for current data value
         if (!bitsToUpdate.isEmpty()) {
+            int bitsToSet = 0;
+            int bitsToClear = 0;
             for (Map.Entry<Integer, Boolean> entry : bitsToUpdate.entrySet()) {
                 if (entry.getValue()) {
-                    dataToSend = dataToSend.setBit(entry.getKey() - 1);
+                    bitsToSet |= 1 << (entry.getKey() - 1);
                 } else {
-                    dataToSend = dataToSend.clearBit(entry.getKey() - 1);
+                    bitsToClear |= 1 << (entry.getKey() - 1);
                 }
             }
-            data = dataToSend.byteValue();
             bitsToUpdate.clear();
+            data = (byte) ((data | bitsToSet) & ~bitsToClear);
+            final int setMask = bitsToSet;
+            final int clearMask = bitsToClear;
+            return channel.update(bus, address, value -> (value | setMask) & ~clearMask & 0xff);
+        } else {
+            return channel.send(new BusData(bus, address, data));
+        }
+    }
+
+    /**
+     * Atomic read-modify-write of the data value. The given function is called in the queue of the channel with the
+     * latest known data value of the address (last read or last written value) and the result is send to the bus.
+     * Concurrent updates of the address are serialized and can't overwrite each other.
+     *
+     * @param update function to calculate the new data value from the actual one
+     * @return future completed with the {@link WriteResult} of the written data value
+     */
+    public CompletableFuture<WriteResult> update(final UnaryOperator<Byte> update) {
+        BusDataChannel channel = busDataChannel.get();
+        if (channel == null) {
+            return notConnected();
+        }
+        return channel.update(bus, address, value -> update.apply((byte) value) & 0xff)
+                .thenApply(result -> {
+                    data = (byte) result.getBusData().getData();
+                    return result;
+                });
+    }
+
+    /**
+     * Send the new data value only if the latest known data value of the address in the queue of the channel is the
+     * expected value.
+     *
+     * @param expectedValue expected data value
+     * @param newValue new data value to send
+     * @return future completed with {@code true} if the new value is send, otherwise {@code false}
+     * @see #update(UnaryOperator)
+     */
+    public CompletableFuture<Boolean> compareAndSend(byte expectedValue, final byte newValue) {
+        BusDataChannel channel = busDataChannel.get();
+        if (channel == null) {
+            return notConnected();
         }
-        busDataChannel.send(new BusData(bus, address, dataToSend.byteValue()));
+        return channel.compareAndSend(bus, address, expectedValue, newValue).thenApply(written -> {
+            if (written) {
+                data = newValue;
+            }
+            return written;
+        });
+    }
+
+    /**
+     * Wait for a received data value which matches the given condition. The condition is evaluated for the last
+     * received data value and afterwards for each received data value of the bus, without polling.
+     *
+     * @param condition condition for the data value
+     * @param timeout timeout to wait or {@code 0} to wait without timeout
+     * @param unit unit of the timeout
+     * @return future which is completed by the first matching data value or completed exceptionally by an {@link
+     *         java.util.concurrent.TimeoutException}
+     */
+    public CompletableFuture<Byte> waitFor(Predicate<Byte> condition, long timeout, TimeUnit unit) {
+        BusAddressCondition busAddressCondition = new BusAddressCondition(condition, timeout, unit);
+        boolean matched;
+        synchronized (this) {
+            matched = dataReceived && busAddressCondition.evaluate(lastReceivedData);
+            if (!matched) {
+                conditions.add(busAddressCondition);
+            }
+        }
+        if (matched) {
+            busAddressCondition.complete();
+        } else {
+            // remove also for timeout or cancel
+            busAddressCondition.getFuture().whenComplete((value, throwable) -> removeCondition(busAddressCondition));
+        }
+        return busAddressCondition.getFuture();
+    }
+
+    /**
+     * Wait for the given data value.
+     *
+     * @param value data value to wait for
+     * @param timeout timeout to wait or {@code 0} to wait without timeout
+     * @param unit unit of the timeout
+     * @return future which is completed by the received data value
+     * @see #waitFor(Predicate, long, TimeUnit)
+     */
+    public CompletableFuture<Byte> waitForData(byte value, long timeout, TimeUnit unit) {
+        return waitFor(data -> data == value, timeout, unit);
+    }
+
+    /**
+     * Wait for the given state of the bit.
+     *
+     * @param bit number of bit (1-8)
+     * @param state state of the bit to wait for
+     * @param timeout timeout to wait or {@code 0} to wait without timeout
+     * @param unit unit of the timeout
+     * @return future which is completed by the received data value
+     * @see #waitFor(Predicate, long, TimeUnit)
+     */
+    public CompletableFuture<Byte> waitForBit(int bit, boolean state, long timeout, TimeUnit unit) {
+        final int mask = 1 << (bit - 1);
+        return waitFor(data -> ((data & mask) != 0) == state, timeout, unit);
+    }
+
+    /**
+     * Failed future for a write without connected channel, e.g. during the reconnect of the device.
+     *
+     * @param <T> type of result
+     * @return future completed exceptionally by an {@link IOException}
+     */
+    private <T> CompletableFuture<T> notConnected() {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new IOException(String.format("no channel connected to send %s", this)));
+        return future;
+    }
+
+    /**
+     * Evaluate the conditions for the last received data value and remove the matching conditions.
+     *
+     * @return matching conditions to complete after the lock of the address is released
+     */
+    private synchronized List<BusAddressCondition> evaluateConditions() {
+        List<BusAddressCondition> matched = new ArrayList<>();
+        Iterator<BusAddressCondition> iterator = conditions.iterator();
+        while (iterator.hasNext()) {
+            BusAddressCondition condition = iterator.next();
+            if (condition.evaluate(lastReceivedData)) {
+                iterator.remove();
+                matched.add(condition);
+            }
+        }
+        return matched;
+    }
+
+    private synchronized void removeCondition(BusAddressCondition condition) {
+        conditions.remove(condition);
     }
 
     /**
@@ -148,7 +339,7 @@ public class BusAddress {
             return bitsToUpdate.get(bit);
         }
         // check bit state of actual data value
-        return BigInteger.valueOf(data).testBit(bit - 1);
+        return BitDiff.isSet(data, bit);
     }
 
     /**
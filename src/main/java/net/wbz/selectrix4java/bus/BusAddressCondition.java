@@ -0,0 +1,100 @@
+package net.wbz.selectrix4java.bus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
+
+/**
+ * Condition for the data value of an {@link BusAddress} to wait for. The condition is evaluated by the consumer of the
+ * {@link BusAddress} for each received data value and completes the future with the first matching value.
+ *
+ * @author Daniel Tuerk
+ */
+class BusAddressCondition {
+
+    /**
+     * Timer to complete the waiting futures after the timeout. Timer tasks are removed by the completion of the
+     * condition. The thread of the default {@link net.wbz.selectrix4java.executor.ExecutorProvider} is a daemon,
+     * because the timer is shared by all devices and never shut down.
+     */
+    private static final ScheduledThreadPoolExecutor TIMEOUT_EXECUTOR;
+
+    static {
+        final ThreadFactory threadFactory = ExecutorProviders.getDefault().newThreadFactory("bus-condition-timeout");
+        TIMEOUT_EXECUTOR = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = threadFactory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        TIMEOUT_EXECUTOR.setRemoveOnCancelPolicy(true);
+    }
+
+    private final Predicate<Byte> condition;
+    private final CompletableFuture<Byte> future = new CompletableFuture<>();
+    /**
+     * Matching data value or the error of the condition, set by {@link #evaluate(byte)}.
+     */
+    private byte matchedData;
+    private RuntimeException error;
+
+    /**
+     * Create condition with the given timeout.
+     *
+     * @param condition condition for the data value
+     * @param timeout timeout to wait for the condition or {@code 0} to wait without timeout
+     * @param unit unit of the timeout
+     */
+    BusAddressCondition(Predicate<Byte> condition, long timeout, TimeUnit unit) {
+        this.condition = condition;
+        if (timeout > 0) {
+            final ScheduledFuture<?> timeoutTask = TIMEOUT_EXECUTOR.schedule(() -> future.completeExceptionally(
+                    new TimeoutException(String.format("condition not matched in %d %s", timeout, unit))), timeout,
+                    unit);
+            future.whenComplete((data, throwable) -> timeoutTask.cancel(false));
+        }
+    }
+
+    /**
+     * Evaluate the condition for the given data value. The future isn't completed by the evaluation, see {@link
+     * #complete()}.
+     *
+     * @param data data value of the address
+     * @return {@code true} if the condition matches or fails and must be completed, or the future is already done
+     */
+    boolean evaluate(byte data) {
+        if (future.isDone()) {
+            return true;
+        }
+        try {
+            if (condition.test(data)) {
+                matchedData = data;
+                return true;
+            }
+        } catch (RuntimeException e) {
+            error = e;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Complete the future with the result of the evaluation. Called without the lock of the {@link BusAddress}, because
+     * the dependent actions of the future are executed by the completing thread.
+     */
+    void complete() {
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(matchedData);
+        }
+    }
+
+    CompletableFuture<Byte> getFuture() {
+        return future;
+    }
+}
@@ -1,6 +1,5 @@
 package net.wbz.selectrix4java.bus;
 
-import java.math.BigInteger;
 import net.wbz.selectrix4java.AbstractModuleDataDispatcher;
 
 /**
@@ -11,16 +10,15 @@ import net.wbz.selectrix4java.AbstractModuleDataDispatcher;
 public class BusAddressDataDispatcher extends AbstractModuleDataDispatcher<BusListener> {
 
     public void fireValueChanged(final int oldValue, final int newValue) {
+        int changedBits = BitDiff.changed(oldValue, newValue);
         for (BusListener listener : getListeners()) {
             if (listener instanceof BusAddressListener) {
                 ((BusAddressListener) listener).dataChanged((byte) oldValue, (byte) newValue);
             } else if (listener instanceof BusAddressBitListener) {
                 BusAddressBitListener busAddressBitListener = (BusAddressBitListener) listener;
-                boolean oldBitValue = BigInteger.valueOf(oldValue).testBit(busAddressBitListener.getBitNr() - 1);
-                boolean newBitValue = BigInteger.valueOf(newValue).testBit(busAddressBitListener.getBitNr() - 1);
-
-                if (!busAddressBitListener.isCalled() || oldBitValue != newBitValue) {
-                    busAddressBitListener.bitChanged(oldBitValue, newBitValue);
+                int mask = BitDiff.mask(busAddressBitListener.getBitNr());
+                if (!busAddressBitListener.isCalled() || (changedBits & mask) != 0) {
+                    busAddressBitListener.bitChanged((oldValue & mask) != 0, (newValue & mask) != 0);
                     busAddressBitListener.setCalled(true);
                 }
             } else {
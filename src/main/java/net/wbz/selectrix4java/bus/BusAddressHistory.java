@@ -0,0 +1,206 @@
+package net.wbz.selectrix4java.bus;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History of the last changes of each address. Set by {@link BusDataDispatcher#setHistory(BusAddressHistory)} to record
+ * the received changes.
+ * <p>
+ * The changes are stored in ring buffers of primitives which are allocated by the creation of the history for the SX
+ * bus 0 and 1, so the memory is fixed and recording a change doesn't allocate. If the buffer of an address is full, the
+ * oldest change is overwritten.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public class BusAddressHistory {
+
+    /**
+     * Number of addresses for each SX bus.
+     */
+    private static final int ADDRESSES_PER_BUS = 113;
+    /**
+     * Number of SX buses which are recorded.
+     */
+    private static final int BUS_COUNT = 2;
+
+    private final int capacity;
+
+    /**
+     * Changes of each address in the slots {@code index * capacity} to {@code (index + 1) * capacity - 1}.
+     */
+    private final long[] timestamps;
+    private final byte[] oldValues;
+    private final byte[] newValues;
+    private final byte[] sources;
+    /**
+     * Number of all recorded changes of each address; the next slot is the count modulo the capacity.
+     */
+    private final long[] counts = new long[BUS_COUNT * ADDRESSES_PER_BUS];
+
+    /**
+     * Create history with the given number of changes for each address.
+     *
+     * @param capacity number of the last changes to keep for each address
+     */
+    public BusAddressHistory(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive: %s", capacity);
+        this.capacity = capacity;
+        int size = BUS_COUNT * ADDRESSES_PER_BUS * capacity;
+        timestamps = new long[size];
+        oldValues = new byte[size];
+        newValues = new byte[size];
+        sources = new byte[size];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Record the change of the address. Ignored for addresses outside of the SX bus 0 and 1.
+     *
+     * @param bus number of bus
+     * @param address address
+     * @param oldValue old value
+     * @param newValue new value
+     * @param timestamp time of the change in milliseconds
+     * @param source {@link BusChangeSource} of the change
+     */
+    synchronized void record(int bus, int address, int oldValue, int newValue, long timestamp,
+            BusChangeSource source) {
+        int index = index(bus, address);
+        if (index < 0) {
+            return;
+        }
+        int slot = index * capacity + (int) (counts[index] % capacity);
+        timestamps[slot] = timestamp;
+        oldValues[slot] = (byte) oldValue;
+        newValues[slot] = (byte) newValue;
+        sources[slot] = (byte) source.ordinal();
+        counts[index]++;
+    }
+
+    /**
+     * All kept changes of the address.
+     *
+     * @param bus number of bus
+     * @param address address
+     * @return changes ordered from the oldest to the latest
+     */
+    public List<BusChangeEvent> getChanges(int bus, int address) {
+        return getChangesSince(bus, address, Long.MIN_VALUE);
+    }
+
+    /**
+     * Changes of the address in the given last period, e.g. the changes of the last 30 seconds.
+     *
+     * @param bus number of bus
+     * @param address address
+     * @param period length of the period until now
+     * @param unit {@link TimeUnit} of the period
+     * @return changes ordered from the oldest to the latest
+     */
+    public List<BusChangeEvent> getChanges(int bus, int address, long period, TimeUnit unit) {
+        return getChangesSince(bus, address, System.currentTimeMillis() - unit.toMillis(period));
+    }
+
+    /**
+     * Changes of the address since the given time.
+     *
+     * @param bus number of bus
+     * @param address address
+     * @param timestamp time in milliseconds of the oldest change to return
+     * @return changes ordered from the oldest to the latest
+     */
+    public synchronized List<BusChangeEvent> getChangesSince(int bus, int address, long timestamp) {
+        int index = index(bus, address);
+        if (index < 0) {
+            return Collections.emptyList();
+        }
+        List<BusChangeEvent> changes = new ArrayList<>();
+        long count = counts[index];
+        for (long i = Math.max(0, count - capacity); i < count; i++) {
+            int slot = index * capacity + (int) (i % capacity);
+            if (timestamps[slot] >= timestamp) {
+                changes.add(new BusChangeEvent(bus, address, oldValues[slot] & 0xff, newValues[slot] & 0xff,
+                        timestamps[slot], BusChangeSource.values()[sources[slot]]));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Time of the latest kept change which turned the given bit on.
+     *
+     * @param bus number of bus
+     * @param address address
+     * @param bit number of bit (1-8)
+     * @return time in milliseconds or {@code -1} if the history doesn't contain such a change
+     */
+    public long getLastBitSet(int bus, int address, int bit) {
+        return getLastBitChange(bus, address, bit, true);
+    }
+
+    /**
+     * Time of the latest kept change which turned the given bit off.
+     *
+     * @param bus number of bus
+     * @param address address
+     * @param bit number of bit (1-8)
+     * @return time in milliseconds or {@code -1} if the history doesn't contain such a change
+     */
+    public long getLastBitCleared(int bus, int address, int bit) {
+        return getLastBitChange(bus, address, bit, false);
+    }
+
+    private synchronized long getLastBitChange(int bus, int address, int bit, boolean state) {
+        Preconditions.checkArgument(bit >= 1 && bit <= 8, "bit must be 1-8: %s", bit);
+        int index = index(bus, address);
+        if (index < 0) {
+            return -1L;
+        }
+        int mask = 1 << (bit - 1);
+        long count = counts[index];
+        for (long i = count - 1; i >= Math.max(0, count - capacity); i--) {
+            int slot = index * capacity + (int) (i % capacity);
+            boolean oldState = (oldValues[slot] & mask) != 0;
+            boolean newState = (newValues[slot] & mask) != 0;
+            if (oldState != state && newState == state) {
+                return timestamps[slot];
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Number of all recorded changes of the address, also of the overwritten ones.
+     *
+     * @param bus number of bus
+     * @param address address
+     * @return number of changes
+     */
+    public synchronized long getChangeCount(int bus, int address) {
+        int index = index(bus, address);
+        return index < 0 ? 0L : counts[index];
+    }
+
+    /**
+     * Remove all changes.
+     */
+    public synchronized void clear() {
+        Arrays.fill(counts, 0L);
+    }
+
+    private static int index(int bus, int address) {
+        if (bus >= 0 && bus < BUS_COUNT && address >= 0 && address < ADDRESSES_PER_BUS) {
+            return bus * ADDRESSES_PER_BUS + address;
+        }
+        return -1;
+    }
+}
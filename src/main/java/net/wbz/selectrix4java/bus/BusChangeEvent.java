@@ -0,0 +1,102 @@
+package net.wbz.selectrix4java.bus;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Change of the value of an address which is published by the {@link BusChangePublisher}.
+ *
+ * @author Daniel Tuerk
+ */
+public final class BusChangeEvent {
+
+    private final int bus;
+    private final int address;
+    private final int oldValue;
+    private final int newValue;
+    private final long timestamp;
+    private final BusChangeSource source;
+
+    /**
+     * Create change of the address.
+     *
+     * @param bus number of bus
+     * @param address address
+     * @param oldValue value before the change (0-255)
+     * @param newValue value after the change (0-255)
+     * @param timestamp time of the change in milliseconds
+     * @param source {@link BusChangeSource} of the change
+     */
+    public BusChangeEvent(int bus, int address, int oldValue, int newValue, long timestamp, BusChangeSource source) {
+        this.bus = bus;
+        this.address = address;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.timestamp = timestamp;
+        this.source = source;
+    }
+
+    /**
+     * Merge the given newer change of the same address into one change.
+     *
+     * @param newer newer change of the address
+     * @return change from the old value of this change to the new value of the given one
+     */
+    BusChangeEvent merge(BusChangeEvent newer) {
+        return new BusChangeEvent(bus, address, oldValue, newer.newValue, newer.timestamp, newer.source);
+    }
+
+    public int getBus() {
+        return bus;
+    }
+
+    public int getAddress() {
+        return address;
+    }
+
+    /**
+     * Value of the address before the change.
+     *
+     * @return value from 0 to 255
+     */
+    public int getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * Value of the address after the change.
+     *
+     * @return value from 0 to 255
+     */
+    public int getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * Time of the received change.
+     *
+     * @return milliseconds by {@link System#currentTimeMillis()}
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Origin of the change. The merged change of a subscriber which is behind has the origin of the latest change.
+     *
+     * @return {@link BusChangeSource}
+     */
+    public BusChangeSource getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("bus", bus)
+                .add("address", address)
+                .add("oldValue", oldValue)
+                .add("newValue", newValue)
+                .add("source", source)
+                .toString();
+    }
+}
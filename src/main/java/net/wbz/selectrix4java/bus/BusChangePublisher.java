@@ -0,0 +1,53 @@
+package net.wbz.selectrix4java.bus;
+
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import net.wbz.selectrix4java.flow.Flow;
+
+/**
+ * Publisher of the changes of the addresses received by the {@link BusDataDispatcher}, e.g. of all addresses of the
+ * device, of one bus, of one address or of the addresses of a module.
+ * <p>
+ * Each subscriber receives only the requested number of changes. The bus can't be slowed down, so the changes which
+ * aren't requested yet are merged by the address: a subscriber which is behind receives one change for each address
+ * from the oldest missed value to the latest value. The buffer of a subscription is bounded by the number of addresses.
+ * </p>
+ * <p>
+ * The subscriber is called by the executor of the publisher, see {@link #executeOn(Executor)}. The subscriptions are
+ * kept by a reconnect of the device.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public class BusChangePublisher implements Flow.Publisher<BusChangeEvent> {
+
+    private final BusDataDispatcher dispatcher;
+    private final Predicate<BusChangeEvent> filter;
+    private final Executor executor;
+
+    BusChangePublisher(BusDataDispatcher dispatcher, Predicate<BusChangeEvent> filter, Executor executor) {
+        this.dispatcher = dispatcher;
+        this.filter = filter;
+        this.executor = executor;
+    }
+
+    /**
+     * Publisher of the same changes which calls the subscribers by the given executor.
+     *
+     * @param executor {@link Executor} to call the subscribers, e.g. the executor of a reactive pipeline
+     * @return new {@link BusChangePublisher}
+     */
+    public BusChangePublisher executeOn(Executor executor) {
+        return new BusChangePublisher(dispatcher, filter, executor);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super BusChangeEvent> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber must not be null");
+        }
+        BusChangeSubscription subscription = new BusChangeSubscription(dispatcher, subscriber, filter, executor);
+        dispatcher.addSubscription(subscription);
+        subscription.start();
+    }
+}
@@ -0,0 +1,21 @@
+package net.wbz.selectrix4java.bus;
+
+/**
+ * Origin of a {@link BusChangeEvent}.
+ *
+ * @author Daniel Tuerk
+ */
+public enum BusChangeSource {
+    /**
+     * Change of the bus, e.g. by an occupied block or another controller.
+     */
+    READ,
+    /**
+     * Change by an acknowledged write of the channel which is read back.
+     */
+    WRITE,
+    /**
+     * Change by the playback of a record.
+     */
+    REPLAY
+}
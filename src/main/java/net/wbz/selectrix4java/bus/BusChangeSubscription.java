@@ -0,0 +1,197 @@
+package net.wbz.selectrix4java.bus;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import net.wbz.selectrix4java.flow.Flow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Subscription of a {@link BusChangePublisher}. The changes are offered by the thread of the dispatcher and delivered
+ * by the executor of the subscriber for the requested demand. All signals of the subscriber are sent by one drain task
+ * at a time, so the subscriber is never called concurrently.
+ *
+ * @author Daniel Tuerk
+ */
+class BusChangeSubscription implements Flow.Subscription, Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(BusChangeSubscription.class);
+
+    private final BusDataDispatcher dispatcher;
+    private final Flow.Subscriber<? super BusChangeEvent> subscriber;
+    private final Predicate<BusChangeEvent> filter;
+    private final Executor executor;
+
+    /**
+     * Number of the scheduled drains; the drain task runs while the number isn't consumed.
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+
+    /**
+     * Changes which aren't delivered, by the key of the address in the order of the first change. Guarded by this.
+     */
+    private final Map<Integer, BusChangeEvent> pending = new LinkedHashMap<>();
+    private long demand = 0;
+    private boolean cancelled = false;
+    private Throwable error;
+
+    /**
+     * Only accessed by the drain task.
+     */
+    private boolean subscribed = false;
+
+    BusChangeSubscription(BusDataDispatcher dispatcher, Flow.Subscriber<? super BusChangeEvent> subscriber,
+            Predicate<BusChangeEvent> filter, Executor executor) {
+        this.dispatcher = dispatcher;
+        this.subscriber = subscriber;
+        this.filter = filter;
+        this.executor = executor;
+    }
+
+    /**
+     * Send the subscription to the subscriber.
+     */
+    void start() {
+        schedule();
+    }
+
+    /**
+     * Offer the change of an address. Ignored if the change doesn't match the filter of the publisher.
+     *
+     * @param event {@link BusChangeEvent}
+     */
+    void offer(BusChangeEvent event) {
+        if (!filter.test(event)) {
+            return;
+        }
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            int key = event.getBus() << 8 | event.getAddress();
+            BusChangeEvent missed = pending.get(key);
+            if (missed == null) {
+                pending.put(key, event);
+            } else {
+                BusChangeEvent merged = missed.merge(event);
+                if (merged.getOldValue() == merged.getNewValue()) {
+                    // changed back to the value which the subscriber received last
+                    pending.remove(key);
+                } else {
+                    pending.put(key, merged);
+                }
+            }
+            if (demand == 0) {
+                return;
+            }
+        }
+        schedule();
+    }
+
+    @Override
+    public void request(long n) {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            if (n <= 0) {
+                error = new IllegalArgumentException("number of requested changes must be positive: " + n);
+                cancelled = true;
+                pending.clear();
+            } else {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+        }
+        if (n <= 0) {
+            dispatcher.removeSubscription(this);
+        }
+        schedule();
+    }
+
+    @Override
+    public void cancel() {
+        synchronized (this) {
+            cancelled = true;
+            pending.clear();
+        }
+        dispatcher.removeSubscription(this);
+    }
+
+    private void schedule() {
+        if (wip.getAndIncrement() == 0) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                log.error("executor of subscriber rejected the delivery, cancel subscription", e);
+                cancel();
+            }
+        }
+    }
+
+    /**
+     * Drain the pending changes to the subscriber for the demand.
+     */
+    @Override
+    public void run() {
+        int missed = 1;
+        do {
+            if (!subscribed) {
+                subscribed = true;
+                if (!signal(() -> subscriber.onSubscribe(this))) {
+                    return;
+                }
+            }
+            while (true) {
+                BusChangeEvent event;
+                Throwable failure;
+                synchronized (this) {
+                    failure = error;
+                    error = null;
+                    if (failure == null) {
+                        if (cancelled || demand == 0 || pending.isEmpty()) {
+                            break;
+                        }
+                        Iterator<BusChangeEvent> iterator = pending.values().iterator();
+                        event = iterator.next();
+                        iterator.remove();
+                        if (demand != Long.MAX_VALUE) {
+                            demand--;
+                        }
+                    } else {
+                        event = null;
+                    }
+                }
+                if (failure != null) {
+                    signal(() -> subscriber.onError(failure));
+                    return;
+                }
+                if (!signal(() -> subscriber.onNext(event))) {
+                    return;
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Call the subscriber and cancel the subscription if the subscriber throws an exception.
+     *
+     * @param signal call of the subscriber
+     * @return {@code true} if the subscriber returned normally
+     */
+    private boolean signal(Runnable signal) {
+        try {
+            signal.run();
+            return true;
+        } catch (RuntimeException e) {
+            log.error("subscriber failed, cancel subscription", e);
+            cancel();
+            return false;
+        }
+    }
+}
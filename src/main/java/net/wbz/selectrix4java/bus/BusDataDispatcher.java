@@ -1,10 +1,10 @@
 package net.wbz.selectrix4java.bus;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import java.math.BigInteger;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -13,15 +13,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 import net.wbz.selectrix4java.bus.consumption.AbstractBusDataConsumer;
 import net.wbz.selectrix4java.bus.consumption.AllBusDataConsumer;
 import net.wbz.selectrix4java.bus.consumption.BusAddressData;
 import net.wbz.selectrix4java.bus.consumption.BusAddressDataConsumer;
 import net.wbz.selectrix4java.bus.consumption.BusBitConsumer;
 import net.wbz.selectrix4java.bus.consumption.BusMultiAddressDataConsumer;
+import net.wbz.selectrix4java.data.FccProtocol;
+import net.wbz.selectrix4java.data.InterfaceProtocol;
+import net.wbz.selectrix4java.data.recording.BusChangeJournal;
+import net.wbz.selectrix4java.executor.ExecutorProvider;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,17 +47,163 @@ public class BusDataDispatcher implements BusDataReceiver {
      */
     private final Map<Integer, byte[]> busData = Maps.newConcurrentMap();
 
+    /**
+     * Sequential executor of each consumer to call the consumer with the changes in the received order. Different
+     * consumers are called in parallel by the {@link #executorService}.
+     */
+    private final Map<AbstractBusDataConsumer, Executor> consumerExecutors = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * Last published snapshot of all buses.
+     */
+    private volatile BusSnapshot snapshot = BusSnapshot.empty(0);
+
+    /**
+     * Protocol of the connected interface to skip the addresses which are used by the interface itself.
+     */
+    private volatile InterfaceProtocol protocol = FccProtocol.INSTANCE;
+
     /**
      * Consumers to call for bus data changes.
      */
     private final List<AbstractBusDataConsumer> consumers = new CopyOnWriteArrayList<>();
 
     /**
-     * Create dispatcher with executor service for cached thread pool.
+     * Receivers of the data of each read, called before the consumers. Kept by the {@link #reset()}.
+     */
+    private final List<BusDataReceiver> readReceivers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Subscriptions of the {@link BusChangePublisher}s. Kept by the {@link #reset()}.
+     */
+    private final List<BusChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Optional history to record the changes; {@code null} to record nothing.
+     */
+    private volatile BusAddressHistory history;
+
+    /**
+     * Optional journal to append the changes; {@code null} to append nothing.
+     */
+    private volatile BusChangeJournal journal;
+
+    /**
+     * Values of the acknowledged writes which are read back by the next received data, by the key of the address.
+     * Guarded by this.
+     */
+    private final Map<Integer, Integer> writtenValues = Maps.newHashMap();
+
+    /**
+     * {@link ReflexRule}s by the key of the trigger address. The arrays are replaced by each change of the rules, which
+     * is guarded by this. Kept by the {@link #reset()}.
+     */
+    private final Map<Integer, ReflexRule[]> reflexRules = Maps.newConcurrentMap();
+
+    /**
+     * Writer of the triggered reflex rules or {@code null} without connected channel.
+     */
+    private volatile ReflexWriter reflexWriter;
+
+    /**
+     * Triggered rules of the actual received data, ordered by ascending priority. Guarded by this.
+     */
+    private final List<ReflexRule> triggeredRules = new ArrayList<>();
+
+    /**
+     * Create dispatcher with the executor of the default {@link ExecutorProvider}.
      */
     public BusDataDispatcher() {
-        ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("bus-data-dispatcher-%d").build();
-        executorService = Executors.newCachedThreadPool(namedThreadFactory);
+        this(ExecutorProviders.getDefault());
+    }
+
+    /**
+     * Create dispatcher which calls the consumers by the executor of the given provider.
+     *
+     * @param executorProvider {@link ExecutorProvider}
+     */
+    public BusDataDispatcher(ExecutorProvider executorProvider) {
+        executorService = executorProvider.newExecutor("bus-data-dispatcher");
+    }
+
+    /**
+     * Publisher of the changes of all addresses.
+     *
+     * @return {@link BusChangePublisher}
+     */
+    public BusChangePublisher publisher() {
+        return new BusChangePublisher(this, event -> true, executorService);
+    }
+
+    /**
+     * Publisher of the changes of all addresses of the given bus.
+     *
+     * @param busNr number of bus
+     * @return {@link BusChangePublisher}
+     */
+    public BusChangePublisher publisher(final int busNr) {
+        return new BusChangePublisher(this, event -> event.getBus() == busNr, executorService);
+    }
+
+    /**
+     * Publisher of the changes of the given address.
+     *
+     * @param busNr number of bus
+     * @param address address
+     * @return {@link BusChangePublisher}
+     */
+    public BusChangePublisher publisher(final int busNr, final int address) {
+        return new BusChangePublisher(this, event -> event.getBus() == busNr && event.getAddress() == address,
+                executorService);
+    }
+
+    /**
+     * Publisher of the changes of the given addresses, e.g. the addresses of a module.
+     *
+     * @param addresses addresses to publish
+     * @return {@link BusChangePublisher}
+     */
+    public BusChangePublisher publisher(Collection<BusAddress> addresses) {
+        final Set<Integer> keys = Sets.newHashSet();
+        for (BusAddress address : addresses) {
+            keys.add(address.getBus() << 8 | address.getAddress());
+        }
+        return new BusChangePublisher(this, event -> keys.contains(event.getBus() << 8 | event.getAddress()),
+                executorService);
+    }
+
+    /**
+     * Set the history to record all received changes. Kept by the {@link #reset()}.
+     *
+     * @param history {@link BusAddressHistory} or {@code null} to stop recording
+     */
+    public void setHistory(BusAddressHistory history) {
+        this.history = history;
+    }
+
+    public BusAddressHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Set the journal to append all received changes. Kept by the {@link #reset()}.
+     *
+     * @param journal {@link BusChangeJournal} or {@code null} to stop appending
+     */
+    public void setJournal(BusChangeJournal journal) {
+        this.journal = journal;
+    }
+
+    public BusChangeJournal getJournal() {
+        return journal;
+    }
+
+    void addSubscription(BusChangeSubscription subscription) {
+        subscriptions.add(subscription);
+    }
+
+    void removeSubscription(BusChangeSubscription subscription) {
+        subscriptions.remove(subscription);
     }
 
     /**
@@ -74,6 +224,87 @@ public class BusDataDispatcher implements BusDataReceiver {
         return Collections.unmodifiableList(filtered);
     }
 
+    /**
+     * Add the rule to evaluate inline for each received change of the trigger address.
+     *
+     * @param rule {@link ReflexRule}
+     */
+    public synchronized void addReflexRule(ReflexRule rule) {
+        int key = rule.getBus() << 8 | rule.getAddress();
+        ReflexRule[] rules = reflexRules.get(key);
+        if (rules == null) {
+            reflexRules.put(key, new ReflexRule[]{rule});
+        } else {
+            ReflexRule[] extended = Arrays.copyOf(rules, rules.length + 1);
+            extended[rules.length] = rule;
+            reflexRules.put(key, extended);
+        }
+    }
+
+    /**
+     * Remove the given rule.
+     *
+     * @param rule {@link ReflexRule}
+     * @return {@code true} if no rule is left for the trigger address of the given rule
+     */
+    public synchronized boolean removeReflexRule(ReflexRule rule) {
+        int key = rule.getBus() << 8 | rule.getAddress();
+        ReflexRule[] rules = reflexRules.get(key);
+        if (rules == null) {
+            return true;
+        }
+        List<ReflexRule> remaining = Lists.newArrayList(rules);
+        remaining.remove(rule);
+        if (remaining.isEmpty()) {
+            reflexRules.remove(key);
+            return true;
+        }
+        reflexRules.put(key, remaining.toArray(new ReflexRule[0]));
+        return false;
+    }
+
+    /**
+     * All registered rules.
+     *
+     * @return {@link ReflexRule}s
+     */
+    public List<ReflexRule> getReflexRules() {
+        List<ReflexRule> rules = new ArrayList<>();
+        for (ReflexRule[] addressRules : reflexRules.values()) {
+            rules.addAll(Arrays.asList(addressRules));
+        }
+        return rules;
+    }
+
+    /**
+     * Set the writer for the actions of the triggered rules, e.g. the channel of the connected device. Removed by the
+     * {@link #reset()}.
+     *
+     * @param reflexWriter {@link ReflexWriter} or {@code null} to write nothing
+     */
+    public void setReflexWriter(ReflexWriter reflexWriter) {
+        this.reflexWriter = reflexWriter;
+    }
+
+    /**
+     * Set the protocol of the connected interface.
+     *
+     * @param protocol {@link InterfaceProtocol}
+     */
+    public void setProtocol(InterfaceProtocol protocol) {
+        this.protocol = protocol;
+    }
+
+    /**
+     * Return the last published snapshot of all buses. The snapshot is immutable and replaced after each read cycle, so
+     * it can be used to check several addresses against a consistent state without locking.
+     *
+     * @return {@link BusSnapshot}
+     */
+    public BusSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     /**
      * Return the current values of all addresses for the given SX bus.
      *
@@ -104,7 +335,8 @@ public class BusDataDispatcher implements BusDataReceiver {
      * @param consumers list of {@link AbstractBusDataConsumer} to register
      * @see #registerConsumer(AbstractBusDataConsumer)
      */
-    public void registerConsumers(List<AbstractBusDataConsumer> consumers) {
+    public synchronized void registerConsumers(List<AbstractBusDataConsumer> consumers) {
+        // synchronized with the received data, otherwise the initial call could follow a newer change
         this.consumers.addAll(consumers);
 
         for (Integer busNr : busData.keySet()) {
@@ -112,6 +344,21 @@ public class BusDataDispatcher implements BusDataReceiver {
         }
     }
 
+    /**
+     * Register the given consumer if it isn't already registered, e.g. by a previous connect of the device.
+     *
+     * @param consumer {@link AbstractBusDataConsumer}
+     * @return {@code true} if the consumer is registered, {@code false} if it was already registered
+     * @see #registerConsumer(AbstractBusDataConsumer)
+     */
+    public synchronized boolean registerConsumerIfAbsent(AbstractBusDataConsumer consumer) {
+        if (consumers.contains(consumer)) {
+            return false;
+        }
+        registerConsumer(consumer);
+        return true;
+    }
+
     /**
      * Unregister the given consumer.
      *
@@ -119,6 +366,7 @@ public class BusDataDispatcher implements BusDataReceiver {
      */
     public void unregisterConsumer(AbstractBusDataConsumer consumer) {
         consumers.remove(consumer);
+        consumerExecutors.remove(consumer);
     }
 
     /**
@@ -128,18 +376,150 @@ public class BusDataDispatcher implements BusDataReceiver {
      */
     public void unregisterConsumers(List<AbstractBusDataConsumer> consumers) {
         this.consumers.removeAll(consumers);
+        for (AbstractBusDataConsumer consumer : consumers) {
+            consumerExecutors.remove(consumer);
+        }
     }
 
     /**
      * Reset to initial state by unregister all consumers and clear the data cache.
      */
-    public void reset() {
+    public synchronized void reset() {
         consumers.clear();
+        consumerExecutors.clear();
         busData.clear();
+        reflexWriter = null;
+        snapshot = BusSnapshot.empty(snapshot.getSequence() + 1);
+    }
+
+    /**
+     * Add receiver of the data of each read, e.g. the {@link net.wbz.selectrix4java.block.OccupancyMap} of the device.
+     * The receiver is called by the thread of the read with the data of all buses of the read before the consumers are
+     * called, so the consumers see the state of their change.
+     *
+     * @param receiver {@link BusDataReceiver}
+     */
+    public void addReadReceiver(BusDataReceiver receiver) {
+        readReceivers.add(receiver);
+    }
+
+    public void removeReadReceiver(BusDataReceiver receiver) {
+        readReceivers.remove(receiver);
+    }
+
+    @Override
+    public synchronized void written(int busNr, int address, int value) {
+        writtenValues.put(busNr << 8 | address, value);
+    }
+
+    @Override
+    public synchronized void replayed(int busNr, byte[] data) {
+        byte[][] changedBusData = new byte[busNr + 1][];
+        changedBusData[busNr] = data;
+        snapshot = snapshot.next(changedBusData);
+        for (BusDataReceiver receiver : readReceivers) {
+            receiver.replayed(busNr, data);
+        }
+        dispatch(busNr, data, BusChangeSource.REPLAY);
     }
 
     @Override
     public synchronized void received(final int busNr, byte[] data) {
+        byte[][] changedBusData = new byte[busNr + 1][];
+        changedBusData[busNr] = data;
+        snapshot = snapshot.next(changedBusData);
+        for (BusDataReceiver receiver : readReceivers) {
+            receiver.received(busNr, data);
+        }
+        evaluateReflexRules(busNr, data);
+        writeTriggeredRules();
+        dispatch(busNr, data, BusChangeSource.READ);
+    }
+
+    /**
+     * Dispatch the data of all buses from one read cycle and publish a single snapshot for the cycle.
+     *
+     * @param busData data for each bus
+     */
+    @Override
+    public synchronized void receivedAll(byte[][] busData) {
+        // published before the consumers are called, so the consumers see the snapshot of their change
+        snapshot = snapshot.next(busData);
+        for (BusDataReceiver receiver : readReceivers) {
+            receiver.receivedAll(busData);
+        }
+        // reactions of all buses are queued before the consumers are called
+        for (int busNr = 0; busNr < busData.length; busNr++) {
+            evaluateReflexRules(busNr, busData[busNr]);
+        }
+        writeTriggeredRules();
+        for (int busNr = 0; busNr < busData.length; busNr++) {
+            dispatch(busNr, busData[busNr], BusChangeSource.READ);
+        }
+        writtenValues.clear();
+    }
+
+    /**
+     * Collect the rules which are triggered by the changes of the given bus data. The first received data of the bus
+     * triggers nothing, because the previous values are unknown.
+     *
+     * @param busNr number of bus
+     * @param data new data of the bus
+     */
+    private void evaluateReflexRules(int busNr, byte[] data) {
+        if (reflexRules.isEmpty() || reflexWriter == null) {
+            return;
+        }
+        byte[] oldData = busData.get(busNr);
+        if (oldData == null) {
+            return;
+        }
+        for (int address = 0; address < data.length; address++) {
+            if (data[address] != oldData[address]) {
+                ReflexRule[] rules = reflexRules.get(busNr << 8 | address);
+                if (rules != null) {
+                    for (ReflexRule rule : rules) {
+                        if (rule.isTriggered(oldData[address] & 0xff, data[address] & 0xff)) {
+                            int index = triggeredRules.size();
+                            while (index > 0 && triggeredRules.get(index - 1).getPriority() > rule.getPriority()) {
+                                index--;
+                            }
+                            triggeredRules.add(index, rule);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue the actions of the triggered rules before all other tasks. The highest priority is queued last, so it's
+     * executed first.
+     */
+    private void writeTriggeredRules() {
+        if (triggeredRules.isEmpty()) {
+            return;
+        }
+        ReflexWriter writer = reflexWriter;
+        for (ReflexRule rule : triggeredRules) {
+            log.debug("reflex rule triggered: {}", rule);
+            try {
+                writer.writeFirst(rule.getTargetBus(), rule.getTargetAddress(), rule.getAction());
+            } catch (RuntimeException e) {
+                log.error("can't write action of reflex rule " + rule.getName(), e);
+            }
+        }
+        triggeredRules.clear();
+    }
+
+    /**
+     * Call the consumers for the changes of the given bus data and store the data.
+     *
+     * @param busNr number of bus
+     * @param data new data of the bus
+     * @param source {@link BusChangeSource} of the data
+     */
+    private void dispatch(final int busNr, byte[] data, BusChangeSource source) {
         final boolean initialCall;
         final byte[] oldData;
 
@@ -156,11 +536,56 @@ public class BusDataDispatcher implements BusDataReceiver {
 
         // call registered consumer
         callConsumers(consumers, busNr, data, oldData, initialCall);
+        if (history != null || journal != null || !subscriptions.isEmpty()) {
+            publishChanges(busNr, data, oldData, source);
+        }
 
         // store actual data to compare as old data by next call
         busData.put(busNr, data);
     }
 
+    /**
+     * Record the changes of the given bus data in the history and the journal and offer them to the subscriptions of
+     * the publishers. A read change of an address is a {@link BusChangeSource#WRITE} if it's the value of the
+     * acknowledged write which is read back.
+     *
+     * @param busNr number of bus
+     * @param data new data of the bus
+     * @param oldData old data of the bus
+     * @param source {@link BusChangeSource} of the data
+     */
+    private void publishChanges(int busNr, byte[] data, byte[] oldData, BusChangeSource source) {
+        long timestamp = System.currentTimeMillis();
+        BusAddressHistory actualHistory = history;
+        BusChangeJournal actualJournal = journal;
+        for (int address = 0; address < data.length; address++) {
+            if (data[address] != oldData[address] && !protocol.isIgnoredAddress(busNr, address)) {
+                BusChangeSource changeSource = source;
+                if (source == BusChangeSource.READ && !writtenValues.isEmpty()) {
+                    Integer writtenValue = writtenValues.get(busNr << 8 | address);
+                    if (writtenValue != null && writtenValue == (data[address] & 0xff)) {
+                        changeSource = BusChangeSource.WRITE;
+                    }
+                }
+                if (actualHistory != null) {
+                    actualHistory.record(busNr, address, oldData[address] & 0xff, data[address] & 0xff, timestamp,
+                            changeSource);
+                }
+                if (actualJournal == null && subscriptions.isEmpty()) {
+                    continue;
+                }
+                BusChangeEvent event = new BusChangeEvent(busNr, address, oldData[address] & 0xff,
+                        data[address] & 0xff, timestamp, changeSource);
+                if (actualJournal != null) {
+                    actualJournal.append(event);
+                }
+                for (BusChangeSubscription subscription : subscriptions) {
+                    subscription.offer(event);
+                }
+            }
+        }
+    }
+
     /**
      * Call the registered consumers for the given bus data. Changes of bus data can be checked from the new and old
      * data to call consumers.
@@ -185,8 +610,8 @@ public class BusDataDispatcher implements BusDataReceiver {
 
         // fire changes one after another for each address
         for (int address = 0; address < data.length; address++) {
-            // skip the multiplex counter of FCC TODO refactor to FCCImpl
-            if (address != 111) {
+            // skip the addresses used by the interface itself, e.g. the multiplex counter of the FCC
+            if (!protocol.isIgnoredAddress(busNr, address)) {
                 if (initialCall || data[address] != oldData[address]) {
                     if (log.isDebugEnabled() && (address > 0 && address != 112)) {
                         log.debug(String.format("data changed (initial: %s) - bus: %d, address: %d, old: %d, new: %d",
@@ -213,6 +638,18 @@ public class BusDataDispatcher implements BusDataReceiver {
         }
     }
 
+    /**
+     * Executor to call the given consumer. Calls of the same consumer are executed one after another in the order of
+     * the received changes.
+     *
+     * @param consumer consumer to call
+     * @return {@link Executor} of the consumer
+     */
+    private Executor getExecutor(AbstractBusDataConsumer consumer) {
+        return consumerExecutors.computeIfAbsent(consumer,
+                key -> MoreExecutors.newSequentialExecutor(executorService));
+    }
+
     /**
      * Call the {@link AllBusDataConsumer}.
      *
@@ -224,7 +661,7 @@ public class BusDataDispatcher implements BusDataReceiver {
      */
     private void callAllBusDataConsumers(final int busNr, final int address, final int oldData, final int newData,
         final AllBusDataConsumer consumer) {
-        executorService.submit(() -> consumer.valueChanged(busNr, address, oldData, newData));
+        getExecutor(consumer).execute(() -> consumer.valueChanged(busNr, address, oldData, newData));
     }
 
     /**
@@ -241,10 +678,10 @@ public class BusDataDispatcher implements BusDataReceiver {
         final int oldData, final int newData, boolean initialCall) {
         // bit change
         if (consumer.getAddress() == address && consumer.getBus() == busNr) {
-            final boolean oldBitState = BigInteger.valueOf(oldData).testBit(consumer.getBit() - 1);
-            final boolean newBitState = BigInteger.valueOf(newData).testBit(consumer.getBit() - 1);
-            if (initialCall || oldBitState != newBitState) {
-                executorService.submit(() -> consumer.valueChanged(oldBitState ? 1 : 0, newBitState ? 1 : 0));
+            if (initialCall || BitDiff.isChanged(oldData, newData, consumer.getBit())) {
+                final boolean oldBitState = BitDiff.isSet(oldData, consumer.getBit());
+                final boolean newBitState = BitDiff.isSet(newData, consumer.getBit());
+                getExecutor(consumer).execute(() -> consumer.valueChanged(oldBitState ? 1 : 0, newBitState ? 1 : 0));
             }
         }
     }
@@ -261,7 +698,7 @@ public class BusDataDispatcher implements BusDataReceiver {
     private void callBusAddressDataConsumer(final BusAddressDataConsumer consumer, final int busNr, final int address,
         final int oldData, final int newData) {
         if (consumer.getAddress() == address && consumer.getBus() == busNr) {
-            executorService.submit(() -> consumer.valueChanged(oldData, newData));
+            getExecutor(consumer).execute(() -> consumer.valueChanged(oldData, newData));
         }
     }
 
@@ -295,7 +732,8 @@ public class BusDataDispatcher implements BusDataReceiver {
                     int busAddress = multiAddressDataConsumer.getAddresses()[addressIndex];
                     busAddressData.add(new BusAddressData(busNr, busAddress, oldData[busAddress], data[busAddress]));
                 }
-                executorService.submit(() -> multiAddressDataConsumer.valueChanged(busAddressData));
+                getExecutor(multiAddressDataConsumer).execute(
+                        () -> multiAddressDataConsumer.valueChanged(busAddressData));
             }
         }
     }
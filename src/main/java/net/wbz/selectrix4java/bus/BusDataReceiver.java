@@ -8,4 +8,39 @@ package net.wbz.selectrix4java.bus;
 public interface BusDataReceiver {
 
     void received(int busNr, byte[] data);
+
+    /**
+     * Received data of all buses from one read cycle. The bus number is the index of the given array. Default
+     * implementation delegates the data of each bus to {@link #received(int, byte[])}.
+     *
+     * @param busData data for each bus
+     */
+    default void receivedAll(byte[][] busData) {
+        for (int busNr = 0; busNr < busData.length; busNr++) {
+            received(busNr, busData[busNr]);
+        }
+    }
+
+    /**
+     * Acknowledged write of the channel which is read back by the following read. Called before the read data is
+     * received, so the changes of the written addresses can be told apart from the changes of the bus. Default
+     * implementation ignores the write.
+     *
+     * @param busNr number of bus
+     * @param address address
+     * @param value written value (0-255)
+     */
+    default void written(int busNr, int address, int value) {
+    }
+
+    /**
+     * Received data of the bus by the playback of a record. Default implementation handles the data as received from
+     * the bus, see {@link #received(int, byte[])}.
+     *
+     * @param busNr number of bus
+     * @param data data of the bus
+     */
+    default void replayed(int busNr, byte[] data) {
+        received(busNr, data);
+    }
 }
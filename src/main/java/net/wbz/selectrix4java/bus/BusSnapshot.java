@@ -0,0 +1,131 @@
+package net.wbz.selectrix4java.bus;
+
+import com.google.common.base.MoreObjects;
+import java.util.Arrays;
+
+/**
+ * Immutable image of the data of all SX buses at one point in time. Published by the {@link BusDataDispatcher} for
+ * each read cycle of the device, so values of several addresses can be checked against a consistent state of the bus.
+ * <p>
+ * Each snapshot has an monotonically increasing sequence number. A newer snapshot has always a higher sequence number
+ * than the older ones of the same dispatcher.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public final class BusSnapshot {
+
+    /**
+     * Data of each bus by the bus number as index. The arrays are never modified after the creation.
+     */
+    private final byte[][] busData;
+    private final long sequence;
+    private final long timestamp;
+
+    BusSnapshot(long sequence, long timestamp, byte[][] busData) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.busData = busData;
+    }
+
+    /**
+     * Create snapshot without any bus data.
+     *
+     * @param sequence sequence number of the snapshot
+     * @return {@link BusSnapshot}
+     */
+    static BusSnapshot empty(long sequence) {
+        return new BusSnapshot(sequence, System.currentTimeMillis(), new byte[0][]);
+    }
+
+    /**
+     * Create the next snapshot which contains the data of this snapshot updated by the given data of the buses.
+     *
+     * @param changedBusData data for each bus by the bus number as index or {@code null} to keep the data of the bus;
+     *         must not be modified afterwards
+     * @return new {@link BusSnapshot} with the next sequence number
+     */
+    BusSnapshot next(byte[][] changedBusData) {
+        byte[][] newBusData = Arrays.copyOf(busData, Math.max(busData.length, changedBusData.length));
+        for (int busNr = 0; busNr < changedBusData.length; busNr++) {
+            if (changedBusData[busNr] != null) {
+                newBusData[busNr] = changedBusData[busNr];
+            }
+        }
+        return new BusSnapshot(sequence + 1, System.currentTimeMillis(), newBusData);
+    }
+
+    /**
+     * Sequence number of the snapshot.
+     *
+     * @return sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Time of the creation in milliseconds.
+     *
+     * @return timestamp in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Check for received data of the given bus.
+     *
+     * @param busNr number of the bus
+     * @return {@code true} if the snapshot contains data of the bus
+     */
+    public boolean hasBus(int busNr) {
+        return busNr >= 0 && busNr < busData.length && busData[busNr] != null;
+    }
+
+    /**
+     * Data value of the address.
+     *
+     * @param busNr number of the bus
+     * @param address address of the bus
+     * @return data value
+     */
+    public byte getData(int busNr, int address) {
+        return getBus(busNr)[address];
+    }
+
+    /**
+     * State of the given bit in the data value of the address.
+     *
+     * @param busNr number of the bus
+     * @param address address of the bus
+     * @param bit 1-8
+     * @return state
+     */
+    public boolean getBitState(int busNr, int address, int bit) {
+        return (getData(busNr, address) & (1 << (bit - 1))) != 0;
+    }
+
+    /**
+     * Copy of the data of all addresses for the given bus.
+     *
+     * @param busNr number of the bus
+     * @return byte array which represents the address as index with the byte value of the address
+     */
+    public byte[] getBusData(int busNr) {
+        return getBus(busNr).clone();
+    }
+
+    private byte[] getBus(int busNr) {
+        if (hasBus(busNr)) {
+            return busData[busNr];
+        }
+        throw new RuntimeException(String.format("no bus found for number '%d'", busNr));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("sequence", sequence).add("timestamp", timestamp)
+                .add("buses", busData.length).toString();
+    }
+}
@@ -0,0 +1,135 @@
+package net.wbz.selectrix4java.bus;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Small rule which is evaluated by the {@link BusDataDispatcher} inline for each received change, before the
+ * consumers are called asynchronously. If the received value of the trigger address starts to match the condition, the
+ * action is queued before all other tasks of the channel. So the reaction is written by the next access of the bus,
+ * e.g. to stop a train the moment its next block is occupied.
+ * <p>
+ * The condition and the action are precompiled as masks: the trigger matches if {@code (value & triggerMask) ==
+ * triggerValue} and the action sets the bits of the {@code actionMask} of the target address to the {@code
+ * actionValue}, the other bits of the target keep the actual value.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public final class ReflexRule {
+
+    private final String name;
+    private final int priority;
+    private final int bus;
+    private final int address;
+    private final int triggerMask;
+    private final int triggerValue;
+    private final int targetBus;
+    private final int targetAddress;
+    private final int actionMask;
+    private final int actionValue;
+    private final IntUnaryOperator action;
+
+    /**
+     * Create rule.
+     *
+     * @param name name of the rule
+     * @param priority priority of the action; actions of the same received data are written by descending priority
+     * @param bus number of bus of the trigger address
+     * @param address trigger address
+     * @param triggerMask bits of the trigger address to check
+     * @param triggerValue value of the checked bits to trigger the action
+     * @param targetBus number of bus of the target address
+     * @param targetAddress target address of the action
+     * @param actionMask bits of the target address to write
+     * @param actionValue value of the written bits
+     */
+    public ReflexRule(String name, int priority, int bus, int address, int triggerMask, int triggerValue,
+            int targetBus, int targetAddress, int actionMask, int actionValue) {
+        this.triggerMask = triggerMask & BitDiff.ALL_BITS;
+        this.actionMask = actionMask & BitDiff.ALL_BITS;
+        Preconditions.checkArgument((triggerValue & ~this.triggerMask) == 0, "trigger value outside of mask: %s",
+                triggerValue);
+        Preconditions.checkArgument((actionValue & ~this.actionMask) == 0, "action value outside of mask: %s",
+                actionValue);
+        this.name = name;
+        this.priority = priority;
+        this.bus = bus;
+        this.address = address;
+        this.triggerValue = triggerValue;
+        this.targetBus = targetBus;
+        this.targetAddress = targetAddress;
+        this.actionValue = actionValue;
+        final int keep = ~this.actionMask & BitDiff.ALL_BITS;
+        this.action = value -> (value & keep) | actionValue;
+    }
+
+    /**
+     * Rule to stop the train as soon as the block is occupied. The direction, light and horn of the train are kept.
+     *
+     * @param name name of the rule
+     * @param blockBus number of bus of the {@link net.wbz.selectrix4java.block.BlockModule}
+     * @param blockAddress address of the {@link net.wbz.selectrix4java.block.BlockModule}
+     * @param blockNr number of the block (1-8)
+     * @param trainBus number of bus of the train
+     * @param trainAddress address of the train
+     * @return {@link ReflexRule} with the highest priority
+     */
+    public static ReflexRule stopTrainOnOccupiedBlock(String name, int blockBus, int blockAddress, int blockNr,
+            int trainBus, int trainAddress) {
+        int blockMask = BitDiff.mask(blockNr);
+        // driving level: bit 1-5
+        return new ReflexRule(name, Integer.MAX_VALUE, blockBus, blockAddress, blockMask, blockMask, trainBus,
+                trainAddress, 0x1f, 0);
+    }
+
+    /**
+     * Check if the trigger starts to match by the given change.
+     *
+     * @param oldValue old value of the trigger address
+     * @param newValue new value of the trigger address
+     * @return {@code true} if the new value matches and the old value didn't match
+     */
+    boolean isTriggered(int oldValue, int newValue) {
+        return (newValue & triggerMask) == triggerValue && (oldValue & triggerMask) != triggerValue;
+    }
+
+    IntUnaryOperator getAction() {
+        return action;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public int getBus() {
+        return bus;
+    }
+
+    public int getAddress() {
+        return address;
+    }
+
+    public int getTargetBus() {
+        return targetBus;
+    }
+
+    public int getTargetAddress() {
+        return targetAddress;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("priority", priority)
+                .add("trigger", bus + ":" + address + " & " + triggerMask + " == " + triggerValue)
+                .add("action", targetBus + ":" + targetAddress + " & " + actionMask + " = " + actionValue)
+                .toString();
+    }
+}
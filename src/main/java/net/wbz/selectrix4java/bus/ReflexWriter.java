@@ -0,0 +1,21 @@
+package net.wbz.selectrix4java.bus;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Writer of the actions of the {@link ReflexRule}s, e.g. the channel of the connected device.
+ *
+ * @author Daniel Tuerk
+ */
+@FunctionalInterface
+public interface ReflexWriter {
+
+    /**
+     * Queue the update of the address before all other queued tasks.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param update function to calculate the new value from the actual value of the address
+     */
+    void writeFirst(int bus, int address, IntUnaryOperator update);
+}
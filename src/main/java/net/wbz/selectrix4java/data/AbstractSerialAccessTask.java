@@ -2,6 +2,9 @@ package net.wbz.selectrix4java.data;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 import net.wbz.selectrix4java.bus.BusDataReceiver;
@@ -17,6 +20,9 @@ abstract class AbstractSerialAccessTask implements Callable<Boolean> {
     private final InputStream inputStream;
     private final OutputStream outputStream;
     private List<BusDataReceiver> receivers;
+    private BusImage busImage;
+    private ReadBackTracker readBackTracker;
+    private InterfaceProtocol protocol = FccProtocol.INSTANCE;
 
     /**
      * Create task for given streams.
@@ -44,4 +50,111 @@ abstract class AbstractSerialAccessTask implements Callable<Boolean> {
     public void setReceivers(List<BusDataReceiver> receivers) {
         this.receivers = receivers;
     }
+
+    /**
+     * Latest known data of the bus, updated by the tasks.
+     *
+     * @return {@link BusImage}
+     */
+    BusImage getBusImage() {
+        return busImage;
+    }
+
+    void setBusImage(BusImage busImage) {
+        this.busImage = busImage;
+    }
+
+    /**
+     * Writes which are waiting for the next read of the bus.
+     *
+     * @return {@link ReadBackTracker}
+     */
+    ReadBackTracker getReadBackTracker() {
+        return readBackTracker;
+    }
+
+    void setReadBackTracker(ReadBackTracker readBackTracker) {
+        this.readBackTracker = readBackTracker;
+    }
+
+    /**
+     * Protocol of the interface to encode the requests.
+     *
+     * @return {@link InterfaceProtocol}, FCC by default
+     */
+    InterfaceProtocol getProtocol() {
+        return protocol;
+    }
+
+    void setProtocol(InterfaceProtocol protocol) {
+        this.protocol = protocol;
+    }
+
+    /**
+     * Create task to write the given data with the same streams and state of the channel as this task.
+     *
+     * @param busData {@link BusData} to write
+     * @return {@link WriteTask}
+     */
+    WriteTask createWriteTask(BusData busData) {
+        WriteTask writeTask = new WriteTask(inputStream, outputStream, busData);
+        writeTask.setBusImage(busImage);
+        writeTask.setReadBackTracker(readBackTracker);
+        writeTask.setProtocol(protocol);
+        return writeTask;
+    }
+
+    /**
+     * Create task to update the address with the same streams and state of the channel as this task.
+     *
+     * @param busUpdate {@link BusUpdate} to write
+     * @return {@link UpdateTask}
+     */
+    UpdateTask createUpdateTask(BusUpdate busUpdate) {
+        UpdateTask updateTask = new UpdateTask(inputStream, outputStream, busUpdate.getBus(), busUpdate.getAddress(),
+                busUpdate.getUpdate());
+        updateTask.setBusImage(busImage);
+        updateTask.setReadBackTracker(readBackTracker);
+        updateTask.setProtocol(protocol);
+        return updateTask;
+    }
+
+    /**
+     * Complete the writes which are read back by the given read block and send the data of the buses to the
+     * receivers.
+     *
+     * @param reply read block of all buses
+     */
+    void dispatch(byte[] reply) {
+        dispatch(reply, null);
+    }
+
+    /**
+     * Complete the writes of the addresses which are read and send the data of the buses to the receivers.
+     *
+     * @param reply latest known data of all buses
+     * @param read indexes of the addresses which are read from the bus or {@code null} if all addresses are read
+     */
+    void dispatch(byte[] reply, BitSet read) {
+        List<BusData> written = readBackTracker != null ? readBackTracker.readBack(reply, read)
+                : Collections.<BusData>emptyList();
+        // the copies are shared by the receivers and must not be modified
+        byte[][] busData = new byte[protocol.getBusCount()][];
+        for (int bus = 0; bus < busData.length; bus++) {
+            busData[bus] = Arrays.copyOfRange(reply, bus * BusImage.ADDRESSES_PER_BUS,
+                    (bus + 1) * BusImage.ADDRESSES_PER_BUS);
+        }
+        for (final BusDataReceiver receiver : receivers) {
+            for (BusData data : written) {
+                receiver.written(data.getBus(), data.getAddress(), data.getData() & 0xff);
+            }
+            receiver.receivedAll(busData);
+        }
+    }
+
+    /**
+     * Task is removed from the queue without execution, because the channel is closed.
+     */
+    void abort() {
+    }
 }
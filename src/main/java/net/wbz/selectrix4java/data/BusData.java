@@ -1,5 +1,7 @@
 package net.wbz.selectrix4java.data;
 
+import com.google.common.base.MoreObjects;
+
 /**
  * @author Daniel Tuerk
  */
@@ -27,4 +29,9 @@ public class BusData {
         return data;
     }
 
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("bus", bus).add("address", address).add("data", data)
+                .toString();
+    }
 }
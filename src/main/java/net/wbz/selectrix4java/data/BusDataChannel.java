@@ -1,21 +1,23 @@
 package net.wbz.selectrix4java.data;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
 import net.wbz.selectrix4java.bus.BusDataReceiver;
 import net.wbz.selectrix4java.data.recording.BusDataRecorder;
+import net.wbz.selectrix4java.executor.ExecutorProvider;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,7 +63,23 @@ public class BusDataChannel {
      * Receivers which are called by reading the input stream of the device by the {@link
      * net.wbz.selectrix4java.data.ReadBlockTask}.
      */
-    private final List<BusDataReceiver> receivers = Collections.synchronizedList(new LinkedList<>());
+    private final List<BusDataReceiver> receivers = new CopyOnWriteArrayList<>();
+    /**
+     * Latest known data of the bus. Only accessed by the tasks.
+     */
+    private final BusImage busImage = new BusImage();
+    /**
+     * Acknowledged writes which are waiting for the next read of the bus.
+     */
+    private final ReadBackTracker readBackTracker;
+    /**
+     * Protocol of the connected interface.
+     */
+    private final InterfaceProtocol protocol;
+    /**
+     * Addresses to read by interfaces which can read single addresses.
+     */
+    private final PollingSchedule pollingSchedule = new PollingSchedule();
     /**
      * Callback for the state of the channel to open and close the channel.
      */
@@ -86,13 +104,42 @@ public class BusDataChannel {
      * @param receiver {@link net.wbz.selectrix4java.bus.BusDataReceiver} to receive the values of the read operations
      */
     public BusDataChannel(InputStream inputStream, OutputStream outputStream, BusDataReceiver receiver) {
+        this(inputStream, outputStream, receiver, FccProtocol.INSTANCE);
+    }
+
+    /**
+     * Create an new channel for the given IO streams of the connected device, which uses the given protocol.
+     *
+     * @param inputStream opened {@link java.io.InputStream}
+     * @param outputStream opened {@link java.io.OutputStream}
+     * @param receiver {@link net.wbz.selectrix4java.bus.BusDataReceiver} to receive the values of the read operations
+     * @param protocol {@link InterfaceProtocol} of the connected interface
+     */
+    public BusDataChannel(InputStream inputStream, OutputStream outputStream, BusDataReceiver receiver,
+            InterfaceProtocol protocol) {
+        this(inputStream, outputStream, receiver, protocol, ExecutorProviders.getDefault());
+    }
+
+    /**
+     * Create an new channel for the given IO streams of the connected device, which uses the given protocol and the
+     * threads of the given provider.
+     *
+     * @param inputStream opened {@link java.io.InputStream}
+     * @param outputStream opened {@link java.io.OutputStream}
+     * @param receiver {@link net.wbz.selectrix4java.bus.BusDataReceiver} to receive the values of the read operations
+     * @param protocol {@link InterfaceProtocol} of the connected interface
+     * @param executorProvider {@link ExecutorProvider} of the threads to access the device
+     */
+    public BusDataChannel(InputStream inputStream, OutputStream outputStream, BusDataReceiver receiver,
+            InterfaceProtocol protocol, ExecutorProvider executorProvider) {
         this.outputStream = outputStream;
         this.inputStream = inputStream;
         this.receivers.add(receiver);
+        this.protocol = protocol;
 
-        ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("serial-io-executor-%d").build();
-        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(namedThreadFactory);
-        serialTaskExecutor = Executors.newSingleThreadExecutor(namedThreadFactory);
+        scheduledExecutorService = executorProvider.newSingleThreadScheduledExecutor("serial-io-executor");
+        serialTaskExecutor = executorProvider.newSingleThreadExecutor("serial-io-executor");
+        readBackTracker = new ReadBackTracker(scheduledExecutorService, queue);
     }
 
     /**
@@ -101,7 +148,20 @@ public class BusDataChannel {
      */
     public void start() {
         errorCount = 0;
-        final ReadBlockTask readBlockTask = new ReadBlockTask(inputStream, outputStream);
+        final AbstractSerialAccessTask readBlockTask;
+        if (protocol.isDataPushed()) {
+            // the data is pushed by the interface
+            readBlockTask = null;
+        } else if (!protocol.isReadAddressSupported()) {
+            readBlockTask = new ReadBlockTask(inputStream, outputStream);
+        } else if (protocol.isReadBlockSupported()) {
+            readBlockTask = new TieredReadTask(inputStream, outputStream, pollingSchedule);
+        } else {
+            readBlockTask = new ReadAddressesTask(inputStream, outputStream, pollingSchedule);
+        }
+        if (readBlockTask != null) {
+            initTask(readBlockTask);
+        }
         // poll the queue
         scheduledExecutorService.scheduleWithFixedDelay(() -> {
             if (!paused) {
@@ -109,6 +169,8 @@ public class BusDataChannel {
                 // check for the next task to execute
                 if (!queue.isEmpty()) {
                     task = queue.poll();
+                } else if (readBlockTask == null) {
+                    return;
                 } else {
                     // as default: execute the read task
                     task = readBlockTask;
@@ -121,15 +183,15 @@ public class BusDataChannel {
                         errorCount++;
                         if (errorCount >= MAX_ERROR_COUNT) {
                             log.warn("close channel by reaching error count: " + errorCount);
-                            shutdownNow();
+                            shutdown(true);
                         }
                     }
                 } catch (InterruptedException e) {
                     log.error("serial access interrupted", e);
-                    shutdownNow();
+                    shutdown(true);
                 } catch (ExecutionException e) {
                     log.error("execution error of serial access", e);
-                    shutdownNow();
+                    shutdown(true);
                 }
             }
         }, 200, DELAY_IN_MS, TimeUnit.MILLISECONDS);
@@ -160,9 +222,263 @@ public class BusDataChannel {
      * asynchronously executed from the queue.
      *
      * @param busData {@link net.wbz.selectrix4java.data.BusData} to send
+     * @return future completed with the {@link WriteResult} after the first read of the bus following the write
+     */
+    public CompletableFuture<WriteResult> send(BusData busData) {
+        watchAddress(busData.getBus(), busData.getAddress());
+        WriteTask task = createWriteTask(busData);
+        queue.offer(task);
+        return task.getFuture();
+    }
+
+    /**
+     * Send the given {@link net.wbz.selectrix4java.data.BusData} as one group. The group is queued as a single task and
+     * all data is written back-to-back in the given order, without other queued tasks or reads of the bus in between.
+     *
+     * @param group {@link net.wbz.selectrix4java.data.BusData} to send
+     * @return future completed with the {@link WriteResult} of each write after all writes are acknowledged by the
+     *         device and read back or completed exceptionally by an {@link java.io.IOException} for failed writes
+     */
+    public CompletableFuture<List<WriteResult>> sendGroup(List<BusData> group) {
+        List<BusUpdate> updates = new ArrayList<>(group.size());
+        for (BusData busData : group) {
+            final int value = busData.getData();
+            updates.add(new BusUpdate(busData.getBus(), busData.getAddress(), actualValue -> value));
+        }
+        return updateGroup(updates);
+    }
+
+    /**
+     * Update the data of the addresses as one group, see {@link #sendGroup(List)}. The new data values are calculated
+     * by the read-modify-write of {@link #update(int, int, IntUnaryOperator)} during the execution of the group, e.g.
+     * to set some bits of several addresses in one burst.
+     *
+     * @param group {@link BusUpdate}s to execute in the given order
+     * @return future completed with the {@link WriteResult} of each update after all writes are acknowledged by the
+     *         device and read back, {@code null} for an update which skips the write
+     */
+    public CompletableFuture<List<WriteResult>> updateGroup(List<BusUpdate> group) {
+        for (BusUpdate busUpdate : group) {
+            watchAddress(busUpdate.getBus(), busUpdate.getAddress());
+        }
+        WriteGroupTask task = new WriteGroupTask(inputStream, outputStream, group);
+        initTask(task);
+        queue.offer(task);
+        return task.getFuture();
+    }
+
+    /**
+     * Update the data of the address before all other queued tasks, e.g. for the reaction of a {@link
+     * net.wbz.selectrix4java.bus.ReflexRule}. The update is executed by the next access of the bus instead of the next
+     * read of the bus.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param update function to calculate the new unsigned data value (0-255) from the actual unsigned data value
+     * @return future completed with the {@link WriteResult}
+     * @see #update(int, int, IntUnaryOperator)
+     */
+    public CompletableFuture<WriteResult> updateFirst(int bus, int address, IntUnaryOperator update) {
+        watchAddress(bus, address);
+        UpdateTask task = new UpdateTask(inputStream, outputStream, bus, address, update);
+        initTask(task);
+        queue.offerFirst(task);
+        return task.getFuture();
+    }
+
+    /**
+     * Update the data of the address by the given function. The function is called during the execution in the queue
+     * with the latest known data value of the address, which is the last read value or the value of a previous write to
+     * the address. Updates of the same address can't overwrite each other.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param update function to calculate the new unsigned data value (0-255) from the actual unsigned data value
+     * @return future completed with the {@link WriteResult} or {@code null} if the function returns {@code -1} to skip
+     *         the write
+     */
+    public CompletableFuture<WriteResult> update(int bus, int address, IntUnaryOperator update) {
+        watchAddress(bus, address);
+        UpdateTask task = new UpdateTask(inputStream, outputStream, bus, address, update);
+        initTask(task);
+        queue.offer(task);
+        return task.getFuture();
+    }
+
+    /**
+     * Send the new data value only if the latest known data value of the address is the expected one. The compare is
+     * executed in the queue, see {@link #update(int, int, IntUnaryOperator)}.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param expectedValue expected unsigned data value (0-255)
+     * @param newValue new unsigned data value (0-255)
+     * @return future completed with {@code true} if the new value is written and acknowledged, otherwise {@code
+     *         false}
+     */
+    public CompletableFuture<Boolean> compareAndSend(int bus, int address, final int expectedValue,
+            final int newValue) {
+        return update(bus, address, value -> value == (expectedValue & 0xff) ? newValue & 0xff : UpdateTask.NO_WRITE)
+                .thenApply(result -> result != null && result.isAcknowledged());
+    }
+
+    private WriteTask createWriteTask(BusData busData) {
+        WriteTask task = new WriteTask(inputStream, outputStream, busData);
+        initTask(task);
+        return task;
+    }
+
+    private void initTask(AbstractSerialAccessTask task) {
+        task.setBusImage(busImage);
+        task.setReadBackTracker(readBackTracker);
+        task.setProtocol(protocol);
+    }
+
+    /**
+     * Protocol of the connected interface.
+     *
+     * @return {@link InterfaceProtocol}
+     */
+    public InterfaceProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Read the given address with the {@link PollingTier#NORMAL} tier, see {@link #watchAddress(int, int,
+     * PollingTier)}.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     */
+    public void watchAddress(int bus, int address) {
+        watchAddress(bus, address, PollingTier.NORMAL);
+    }
+
+    /**
+     * Read the given address with the given tier. Only used by interfaces which can read single addresses, see {@link
+     * InterfaceProtocol#isReadAddressSupported()}. An address which is watched several times is read with the most
+     * urgent tier. Written addresses are watched automatically to read back the written data.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param tier {@link PollingTier}
+     */
+    public void watchAddress(int bus, int address, PollingTier tier) {
+        int index = BusImage.index(bus, address);
+        if (index >= 0 && !protocol.isIgnoredAddress(bus, address)) {
+            pollingSchedule.watch(index, tier);
+        }
+    }
+
+    /**
+     * Set the tier of the given address, also to a less urgent tier than the actual one.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param tier {@link PollingTier}
+     * @see #watchAddress(int, int, PollingTier)
+     */
+    public void setPollingTier(int bus, int address, PollingTier tier) {
+        int index = BusImage.index(bus, address);
+        if (index >= 0 && !protocol.isIgnoredAddress(bus, address)) {
+            pollingSchedule.setTier(index, tier);
+        }
+    }
+
+    /**
+     * Tier of the given address.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @return {@link PollingTier} or {@code null} if the address isn't watched
+     */
+    public PollingTier getPollingTier(int bus, int address) {
+        int index = BusImage.index(bus, address);
+        return index >= 0 ? pollingSchedule.getTier(index) : null;
+    }
+
+    /**
+     * Stop to read the given address.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @see #watchAddress(int, int, PollingTier)
+     */
+    public void unwatchAddress(int bus, int address) {
+        int index = BusImage.index(bus, address);
+        if (index >= 0) {
+            pollingSchedule.unwatch(index);
+        }
+    }
+
+    /**
+     * Set the interval to refresh the addresses of the given tier. The interval of the {@link PollingTier#NORMAL} tier
+     * is also used to refresh all addresses by interfaces which read all addresses by one request.
+     *
+     * @param tier {@link PollingTier}
+     * @param interval interval to refresh
+     * @param unit unit of the interval
      */
-    public void send(BusData busData) {
-        queue.offer(new WriteTask(inputStream, outputStream, busData));
+    public void setRefreshInterval(PollingTier tier, long interval, TimeUnit unit) {
+        pollingSchedule.setRefreshInterval(tier, interval, unit);
+    }
+
+    /**
+     * Interval to refresh the addresses of the given tier.
+     *
+     * @param tier {@link PollingTier}
+     * @param unit unit of the interval
+     * @return interval in the given unit
+     */
+    public long getRefreshInterval(PollingTier tier, TimeUnit unit) {
+        return pollingSchedule.getRefreshInterval(tier, unit);
+    }
+
+    /**
+     * Enable the verification of each write by the read of the bus after the write. Writes which aren't acknowledged or
+     * confirmed by the read value are retried with the backoff of the given configuration. Writes which are still not
+     * confirmed after all retries are reported to the {@link WriteVerificationListener}s.
+     *
+     * @param verification {@link WriteVerification} or {@code null} to disable the verification
+     */
+    public void setWriteVerification(WriteVerification verification) {
+        readBackTracker.setVerification(verification);
+    }
+
+    /**
+     * Actual verification of the writes.
+     *
+     * @return {@link WriteVerification} or {@code null} if disabled
+     */
+    public WriteVerification getWriteVerification() {
+        return readBackTracker.getVerification();
+    }
+
+    /**
+     * Counters of the verified writes.
+     *
+     * @return {@link WriteVerificationMetrics}
+     */
+    public WriteVerificationMetrics getWriteVerificationMetrics() {
+        return readBackTracker.getMetrics();
+    }
+
+    public void addWriteVerificationListener(WriteVerificationListener listener) {
+        readBackTracker.addListener(listener);
+    }
+
+    public void removeWriteVerificationListener(WriteVerificationListener listener) {
+        readBackTracker.removeListener(listener);
+    }
+
+    /**
+     * Take over the {@link WriteVerification}, the {@link WriteVerificationListener}s and the
+     * {@link WriteVerificationMetrics} of the channel of a lost connection. The metrics continue to count.
+     *
+     * @param lostChannel channel of the lost connection
+     */
+    public void takeOverWriteVerification(BusDataChannel lostChannel) {
+        readBackTracker.takeOver(lostChannel.readBackTracker);
     }
 
     /**
@@ -174,14 +490,85 @@ public class BusDataChannel {
         queue.offer(new WriteTask(inputStream, outputStream, data));
     }
 
+    /**
+     * Receive the data of all buses which is pushed by the interface, see {@link InterfaceProtocol#isDataPushed()}.
+     * The data is delivered to the receivers by the calling thread.
+     *
+     * @param data data of the bus 0 and 1
+     */
+    public void pushed(byte[] data) {
+        busImage.update(data);
+        byte[][] busData = new byte[protocol.getBusCount()][];
+        for (int bus = 0; bus < busData.length; bus++) {
+            busData[bus] = Arrays.copyOfRange(data, bus * BusImage.ADDRESSES_PER_BUS,
+                    (bus + 1) * BusImage.ADDRESSES_PER_BUS);
+        }
+        for (BusDataReceiver receiver : receivers) {
+            receiver.receivedAll(busData);
+        }
+    }
+
+    /**
+     * Receive the changed data of an address which is pushed by the interface, see
+     * {@link InterfaceProtocol#isDataPushed()}. The data of the bus is delivered to the receivers by the calling
+     * thread.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param value unsigned data value (0-255)
+     * @param written {@code true} for the read back value of a write of this channel
+     */
+    public void pushed(int bus, int address, int value, boolean written) {
+        byte[] data;
+        synchronized (busImage) {
+            busImage.set(bus, address, value);
+            data = busImage.copy(bus);
+        }
+        if (data == null) {
+            return;
+        }
+        for (BusDataReceiver receiver : receivers) {
+            if (written) {
+                receiver.written(bus, address, value & 0xff);
+            }
+            receiver.received(bus, data);
+        }
+    }
+
+    /**
+     * Close the channel, because the connection is lost outside of the tasks, e.g. the connection of an interface which
+     * pushes the data. The callback is informed by {@link ChannelStateCallback#channelLost()}.
+     */
+    public void connectionLost() {
+        shutdown(true);
+    }
+
     /**
      * Stop the asnyc executions.
      */
     public void shutdownNow() {
+        shutdown(false);
+    }
+
+    /**
+     * Stop the async executions and inform the callback.
+     *
+     * @param lost {@code true} if the channel is closed by errors of the device access
+     */
+    private void shutdown(boolean lost) {
         serialTaskExecutor.shutdownNow();
         scheduledExecutorService.shutdownNow();
+        AbstractSerialAccessTask task;
+        while ((task = queue.poll()) != null) {
+            task.abort();
+        }
+        readBackTracker.abort();
         if (callback != null) {
-            callback.channelClosed();
+            if (lost) {
+                callback.channelLost();
+            } else {
+                callback.channelClosed();
+            }
         }
     }
 
@@ -207,6 +594,16 @@ public class BusDataChannel {
 
     public interface ChannelStateCallback {
 
+        /**
+         * Channel is closed.
+         */
         void channelClosed();
+
+        /**
+         * Channel is closed by errors of the device access, e.g. the device doesn't reply anymore.
+         */
+        default void channelLost() {
+            channelClosed();
+        }
     }
 }
@@ -0,0 +1,90 @@
+package net.wbz.selectrix4java.data;
+
+import java.util.Arrays;
+
+/**
+ * Latest known data of all addresses from the view of the {@link BusDataChannel}. Updated by each read of the bus and
+ * by each successful write. Accessed by the tasks of the channel, which are executed one after another, and by the
+ * thread which delivers the data pushed by the interface.
+ *
+ * @author Daniel Tuerk
+ */
+class BusImage {
+
+    /**
+     * Number of addresses for each SX bus.
+     */
+    static final int ADDRESSES_PER_BUS = 113;
+
+    private final byte[] data = new byte[ReadBlockTask.LENGTH_OF_DATA_REPLY];
+
+    /**
+     * Data of the address.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @return unsigned data value or {@code 0} for an address outside of the SX buses
+     */
+    synchronized int get(int bus, int address) {
+        int index = index(bus, address);
+        return index >= 0 ? data[index] & 0xff : 0;
+    }
+
+    /**
+     * Store the data of the address.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param value data value
+     */
+    synchronized void set(int bus, int address, int value) {
+        int index = index(bus, address);
+        if (index >= 0) {
+            data[index] = (byte) value;
+        }
+    }
+
+    /**
+     * Store the data of all addresses from the read block of the bus 0 and 1.
+     *
+     * @param reply read block
+     */
+    synchronized void update(byte[] reply) {
+        System.arraycopy(reply, 0, data, 0, Math.min(reply.length, data.length));
+    }
+
+    /**
+     * Copy of the data of all addresses.
+     *
+     * @return data of bus 0 and 1
+     */
+    synchronized byte[] copy() {
+        return data.clone();
+    }
+
+    /**
+     * Copy of the data of the given bus.
+     *
+     * @param bus number of bus
+     * @return data of the bus or {@code null} for a bus outside of the SX buses
+     */
+    synchronized byte[] copy(int bus) {
+        int index = index(bus, 0);
+        return index >= 0 ? Arrays.copyOfRange(data, index, index + ADDRESSES_PER_BUS) : null;
+    }
+
+    /**
+     * Index of the address in the read block.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @return index or {@code -1} for an address outside of the SX buses
+     */
+    static int index(int bus, int address) {
+        if (address >= 0 && address < ADDRESSES_PER_BUS && bus >= 0
+                && bus * ADDRESSES_PER_BUS < ReadBlockTask.LENGTH_OF_DATA_REPLY) {
+            return bus * ADDRESSES_PER_BUS + address;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,48 @@
+package net.wbz.selectrix4java.data;
+
+import com.google.common.base.MoreObjects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Read-modify-write of an address as part of a group, see {@link BusDataChannel#updateGroup(java.util.List)}. The new
+ * data value is calculated during the execution of the group from the latest known data value of the address.
+ *
+ * @author Daniel Tuerk
+ */
+public class BusUpdate {
+
+    private final int bus;
+    private final int address;
+    private final IntUnaryOperator update;
+
+    /**
+     * Create update of the address.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param update function to calculate the new unsigned data value (0-255) from the actual unsigned data value or
+     *         {@code -1} to skip the write
+     */
+    public BusUpdate(int bus, int address, IntUnaryOperator update) {
+        this.bus = bus;
+        this.address = address;
+        this.update = update;
+    }
+
+    public int getBus() {
+        return bus;
+    }
+
+    public int getAddress() {
+        return address;
+    }
+
+    public IntUnaryOperator getUpdate() {
+        return update;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("bus", bus).add("address", address).toString();
+    }
+}
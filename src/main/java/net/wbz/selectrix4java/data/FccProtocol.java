@@ -0,0 +1,76 @@
+package net.wbz.selectrix4java.data;
+
+/**
+ * Protocol of the FCC. The FCC reads the bus 0 and 1 by one request and replies each write.
+ *
+ * @author Daniel Tuerk
+ */
+public final class FccProtocol implements InterfaceProtocol {
+
+    public static final FccProtocol INSTANCE = new FccProtocol();
+
+    /**
+     * Address and data of the request to read the bus 0 and 1.
+     */
+    private static final byte[] READ_BLOCK = new byte[]{(byte) 120, (byte) 3};
+
+    /**
+     * Multiplex counter of the FCC.
+     */
+    private static final int MULTIPLEX_COUNTER_ADDRESS = 111;
+
+    private FccProtocol() {
+    }
+
+    @Override
+    public int getBusCount() {
+        return 2;
+    }
+
+    @Override
+    public boolean isReadBlockSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean isReadAddressSupported() {
+        return false;
+    }
+
+    @Override
+    public byte[] encodeReadBlock() {
+        return READ_BLOCK.clone();
+    }
+
+    @Override
+    public int getReadBlockLength() {
+        return ReadBlockTask.LENGTH_OF_DATA_REPLY;
+    }
+
+    @Override
+    public byte[] encodeReadAddress(int bus, int address) {
+        throw new UnsupportedOperationException("FCC reads only all addresses");
+    }
+
+    @Override
+    public byte[] encodeWrite(BusData busData) {
+        // bit 7 of the address marks the write
+        byte address = (byte) (busData.getAddress() | 0x80);
+        return new byte[]{(byte) busData.getBus(), address, (byte) busData.getData()};
+    }
+
+    @Override
+    public boolean isWriteAcknowledged() {
+        return true;
+    }
+
+    @Override
+    public boolean isIgnoredAddress(int bus, int address) {
+        return address == MULTIPLEX_COUNTER_ADDRESS;
+    }
+
+    @Override
+    public String toString() {
+        return "FCC";
+    }
+}
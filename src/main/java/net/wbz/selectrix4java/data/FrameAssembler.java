@@ -0,0 +1,152 @@
+package net.wbz.selectrix4java.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Assemble a reply of fixed length from the partial reads of an {@link InputStream}. Serial adapters and sockets often
+ * return a reply in several chunks, so the bytes of each read are collected until the reply is complete.
+ * <p>
+ * Bytes which are received before the request of the reply, e.g. the late reply of a write, are discarded by {@link
+ * #discardStale(InputStream)}. Bytes which follow a complete reply show that the reply isn't aligned to the request and
+ * the reply is discarded, so the next request starts in sync with the device again.
+ * </p>
+ * The assembler is stateful and used by the task thread of the channel only.
+ *
+ * @author Daniel Tuerk
+ */
+class FrameAssembler {
+
+    private static final Logger log = LoggerFactory.getLogger(FrameAssembler.class);
+
+    /**
+     * Delay to poll a stream which returns immediately without data.
+     */
+    private static final long POLL_DELAY_IN_MILLIS = 5L;
+
+    /**
+     * Result of the assembly.
+     */
+    enum Result {
+        /**
+         * Reply complete and aligned.
+         */
+        COMPLETE,
+        /**
+         * Reply not complete until the timeout.
+         */
+        INCOMPLETE,
+        /**
+         * Reply complete, but followed by further bytes; the reply is discarded.
+         */
+        MISALIGNED
+    }
+
+    private final byte[] frame;
+    private final byte[] discardBuffer = new byte[256];
+    private int position = 0;
+    private long discardedBytes = 0;
+
+    /**
+     * Create assembler.
+     *
+     * @param frameLength length of the reply
+     */
+    FrameAssembler(int frameLength) {
+        frame = new byte[frameLength];
+    }
+
+    /**
+     * Discard the bytes which are received before the request of the reply.
+     *
+     * @param inputStream stream of the device
+     * @return number of discarded bytes
+     * @throws IOException error to read the stream
+     */
+    int discardStale(InputStream inputStream) throws IOException {
+        position = 0;
+        int discarded = drain(inputStream);
+        if (discarded > 0) {
+            log.warn("discard {} stale bytes before the request", discarded);
+        }
+        return discarded;
+    }
+
+    /**
+     * Read the reply until it's complete or the timeout is reached.
+     *
+     * @param inputStream stream of the device
+     * @param timeoutMillis maximum time to wait for the complete reply
+     * @return {@link Result}
+     * @throws IOException error to read the stream
+     */
+    Result assemble(InputStream inputStream, long timeoutMillis) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        position = 0;
+        while (position < frame.length) {
+            int length = 0;
+            try {
+                length = inputStream.read(frame, position, frame.length - position);
+            } catch (InterruptedIOException e) {
+                // timeout of a blocking stream
+                log.trace("read timeout of the reply");
+            }
+            if (length > 0) {
+                position += length;
+                continue;
+            }
+            if (System.nanoTime() >= deadline) {
+                log.warn("reply incomplete ({} of {} bytes)", position, frame.length);
+                return Result.INCOMPLETE;
+            }
+            try {
+                Thread.sleep(POLL_DELAY_IN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted to wait for the reply");
+            }
+        }
+        int trailing = drain(inputStream);
+        if (trailing > 0) {
+            log.warn("discard reply followed by {} bytes", trailing);
+            return Result.MISALIGNED;
+        }
+        return Result.COMPLETE;
+    }
+
+    /**
+     * Last assembled reply. Valid only for the result {@link Result#COMPLETE}.
+     *
+     * @return bytes of the reply
+     */
+    byte[] getFrame() {
+        return frame;
+    }
+
+    /**
+     * Number of all discarded bytes to resynchronize with the device.
+     *
+     * @return count of bytes
+     */
+    long getDiscardedBytes() {
+        return discardedBytes;
+    }
+
+    private int drain(InputStream inputStream) throws IOException {
+        int discarded = 0;
+        int available;
+        while ((available = inputStream.available()) > 0) {
+            int length = inputStream.read(discardBuffer, 0, Math.min(available, discardBuffer.length));
+            if (length <= 0) {
+                break;
+            }
+            discarded += length;
+        }
+        discardedBytes += discarded;
+        return discarded;
+    }
+}
@@ -0,0 +1,95 @@
+package net.wbz.selectrix4java.data;
+
+/**
+ * Protocol of the interface which connects the SX bus, e.g. the FCC or the Stärz interface. The protocol encodes the
+ * requests of the {@link BusDataChannel} and describes the replies and the capabilities of the interface.
+ *
+ * @author Daniel Tuerk
+ */
+public interface InterfaceProtocol {
+
+    /**
+     * Number of the SX buses which are accessible by the interface.
+     *
+     * @return count of buses
+     */
+    int getBusCount();
+
+    /**
+     * Check for the read of all addresses by one request, see {@link #encodeReadBlock()}. Otherwise the addresses are
+     * read one by one, see {@link #encodeReadAddress(int, int)}.
+     *
+     * @return {@code true} if the interface supports the read of all addresses by one request
+     */
+    boolean isReadBlockSupported();
+
+    /**
+     * Check for the read of a single address, see {@link #encodeReadAddress(int, int)}.
+     *
+     * @return {@code true} if the interface supports the read of a single address
+     */
+    boolean isReadAddressSupported();
+
+    /**
+     * Check for an interface which pushes the data of the buses, e.g. the {@link
+     * net.wbz.selectrix4java.device.remote.BusServer}. The channel doesn't read the bus, the pushed data is delivered
+     * by {@link BusDataChannel#pushed(byte[])} and {@link BusDataChannel#pushed(int, int, int, boolean)}.
+     *
+     * @return {@code true} if the interface pushes the data, {@code false} by default
+     */
+    default boolean isDataPushed() {
+        return false;
+    }
+
+    /**
+     * Request to read all addresses of all buses.
+     *
+     * @return bytes to send
+     * @throws UnsupportedOperationException read of all addresses isn't supported
+     */
+    byte[] encodeReadBlock();
+
+    /**
+     * Length of the reply for {@link #encodeReadBlock()}. The reply contains the data of the addresses 0 to 112 of each
+     * bus one after another.
+     *
+     * @return number of bytes
+     */
+    int getReadBlockLength();
+
+    /**
+     * Request to read the given address. The reply is the data of the address as one byte.
+     *
+     * @param bus number of the bus
+     * @param address address of the bus
+     * @return bytes to send
+     * @throws UnsupportedOperationException read of a single address isn't supported
+     */
+    byte[] encodeReadAddress(int bus, int address);
+
+    /**
+     * Request to write the data of the address.
+     *
+     * @param busData {@link BusData} to write
+     * @return bytes to send
+     * @throws IllegalArgumentException address can't be written by the interface
+     */
+    byte[] encodeWrite(BusData busData);
+
+    /**
+     * Check for a reply of the interface for each write. The reply is one byte and {@code 0} for success.
+     *
+     * @return {@code true} if the interface replies each write
+     */
+    boolean isWriteAcknowledged();
+
+    /**
+     * Check for an address which is used by the interface itself and doesn't contain data of the bus, e.g. a counter
+     * of the interface. Changes of these addresses aren't dispatched.
+     *
+     * @param bus number of the bus
+     * @param address address of the bus
+     * @return {@code true} to ignore the address
+     */
+    boolean isIgnoredAddress(int bus, int address);
+}
@@ -0,0 +1,130 @@
+package net.wbz.selectrix4java.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedule of the reads of single addresses by their {@link PollingTier}. The tiers of the addresses are changed by the
+ * channel and the due addresses are read by the tasks of the channel.
+ *
+ * @author Daniel Tuerk
+ */
+class PollingSchedule {
+
+    /**
+     * Tier of each watched address by the index, see {@link BusImage#index(int, int)}. Sorted to read the addresses in
+     * the order of the bus.
+     */
+    private final Map<Integer, PollingTier> tiers = new ConcurrentSkipListMap<>();
+    private final Map<PollingTier, Long> refreshNanos = new ConcurrentHashMap<>();
+
+    /**
+     * Last read of each address by {@link System#nanoTime()}. Only accessed by the tasks.
+     */
+    private final long[] lastReadNanos = new long[ReadBlockTask.LENGTH_OF_DATA_REPLY];
+    private final boolean[] read = new boolean[ReadBlockTask.LENGTH_OF_DATA_REPLY];
+    private long lastBlockNanos = 0;
+    private boolean blockRead = false;
+
+    PollingSchedule() {
+        for (PollingTier tier : PollingTier.values()) {
+            refreshNanos.put(tier, TimeUnit.MILLISECONDS.toNanos(tier.getDefaultRefreshMillis()));
+        }
+    }
+
+    /**
+     * Watch the address with the given tier. The most urgent tier of all calls for the same address is used.
+     *
+     * @param index index of the address
+     * @param tier {@link PollingTier}
+     */
+    void watch(int index, PollingTier tier) {
+        tiers.merge(index, tier, (actual, requested) -> requested.isMoreUrgentThan(actual) ? requested : actual);
+    }
+
+    /**
+     * Set the tier of the address, also to a less urgent one.
+     *
+     * @param index index of the address
+     * @param tier {@link PollingTier}
+     */
+    void setTier(int index, PollingTier tier) {
+        tiers.put(index, tier);
+    }
+
+    void unwatch(int index) {
+        tiers.remove(index);
+    }
+
+    PollingTier getTier(int index) {
+        return tiers.get(index);
+    }
+
+    void setRefreshInterval(PollingTier tier, long interval, TimeUnit unit) {
+        refreshNanos.put(tier, unit.toNanos(interval));
+    }
+
+    long getRefreshInterval(PollingTier tier, TimeUnit unit) {
+        return unit.convert(refreshNanos.get(tier), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Addresses which are due to read.
+     *
+     * @param nowNanos actual time by {@link System#nanoTime()}
+     * @param leastUrgentTier least urgent tier to read, e.g. {@link PollingTier#HOT} to read only the hot addresses
+     * @return indexes of the addresses
+     */
+    List<Integer> getDueAddresses(long nowNanos, PollingTier leastUrgentTier) {
+        List<Integer> due = new ArrayList<>();
+        for (Map.Entry<Integer, PollingTier> entry : tiers.entrySet()) {
+            int index = entry.getKey();
+            if (leastUrgentTier.isMoreUrgentThan(entry.getValue())) {
+                continue;
+            }
+            if (!read[index] || nowNanos - lastReadNanos[index] >= refreshNanos.get(entry.getValue())) {
+                due.add(index);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Check for the refresh of all addresses by a block read, which is due by the interval of the {@link
+     * PollingTier#NORMAL} tier.
+     *
+     * @param nowNanos actual time by {@link System#nanoTime()}
+     * @return {@code true} if the block is due
+     */
+    boolean isBlockDue(long nowNanos) {
+        return !blockRead || nowNanos - lastBlockNanos >= refreshNanos.get(PollingTier.NORMAL);
+    }
+
+    /**
+     * Store the read of the address.
+     *
+     * @param index index of the address
+     * @param nowNanos time of the read
+     */
+    void addressRead(int index, long nowNanos) {
+        lastReadNanos[index] = nowNanos;
+        read[index] = true;
+    }
+
+    /**
+     * Store the read of all addresses.
+     *
+     * @param nowNanos time of the read
+     */
+    void blockRead(long nowNanos) {
+        lastBlockNanos = nowNanos;
+        blockRead = true;
+        for (int index = 0; index < lastReadNanos.length; index++) {
+            addressRead(index, nowNanos);
+        }
+    }
+}
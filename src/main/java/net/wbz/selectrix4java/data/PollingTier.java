@@ -0,0 +1,49 @@
+package net.wbz.selectrix4java.data;
+
+/**
+ * Urgency of the read of an address for interfaces which can read single addresses, see {@link
+ * InterfaceProtocol#isReadAddressSupported()}. Each tier has its own refresh interval, which can be changed by {@link
+ * BusDataChannel#setRefreshInterval(PollingTier, long, java.util.concurrent.TimeUnit)}.
+ *
+ * @author Daniel Tuerk
+ */
+public enum PollingTier {
+
+    /**
+     * Read by each cycle of the channel, e.g. occupancy detectors of the blocks.
+     */
+    HOT(BusDataChannel.DELAY_IN_MS),
+    /**
+     * Default for addresses in use, e.g. trains and accessories.
+     */
+    NORMAL(500L),
+    /**
+     * Rarely changing addresses.
+     */
+    SLOW(2000L);
+
+    private final long defaultRefreshMillis;
+
+    PollingTier(long defaultRefreshMillis) {
+        this.defaultRefreshMillis = defaultRefreshMillis;
+    }
+
+    /**
+     * Default interval to refresh the addresses of the tier.
+     *
+     * @return interval in milliseconds
+     */
+    public long getDefaultRefreshMillis() {
+        return defaultRefreshMillis;
+    }
+
+    /**
+     * Check for a more urgent tier.
+     *
+     * @param other tier to compare
+     * @return {@code true} if this tier is more urgent than the given one
+     */
+    public boolean isMoreUrgentThan(PollingTier other) {
+        return ordinal() < other.ordinal();
+    }
+}
@@ -0,0 +1,124 @@
+package net.wbz.selectrix4java.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import net.wbz.selectrix4java.bus.BusDataReceiver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This task reads the due addresses of the {@link PollingSchedule} one by one and delegates the result to the {@link
+ * BusDataReceiver}s like the {@link ReadBlockTask}. Used for interfaces which can read single addresses, see {@link
+ * InterfaceProtocol#isReadAddressSupported()}. Addresses which aren't read keep the last known value. Written
+ * addresses are read by the next execution to read back the writes.
+ *
+ * @author Daniel Tuerk
+ */
+class ReadAddressesTask extends AbstractSerialAccessTask {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadAddressesTask.class);
+
+    /**
+     * Timeout to read a single address.
+     */
+    private static final long READ_TIMEOUT_IN_MILLIS = 500L;
+
+    private final PollingSchedule schedule;
+    private final FrameAssembler frameAssembler = new FrameAssembler(1);
+    private PollingTier leastUrgentTier = PollingTier.SLOW;
+
+    /**
+     * Create new task.
+     *
+     * @param inputStream open {@link java.io.InputStream}
+     * @param outputStream open {@link java.io.OutputStream}
+     * @param schedule {@link PollingSchedule} of the addresses to read
+     */
+    ReadAddressesTask(InputStream inputStream, OutputStream outputStream, PollingSchedule schedule) {
+        super(inputStream, outputStream);
+        this.schedule = schedule;
+    }
+
+    /**
+     * Limit the read to the addresses of the given tier and the more urgent ones.
+     *
+     * @param leastUrgentTier least urgent {@link PollingTier} to read
+     */
+    void setLeastUrgentTier(PollingTier leastUrgentTier) {
+        this.leastUrgentTier = leastUrgentTier;
+    }
+
+    @Override
+    public Boolean call() {
+        long now = System.nanoTime();
+        BitSet read = new BitSet(ReadBlockTask.LENGTH_OF_DATA_REPLY);
+        for (int index : getAddressesToRead(now)) {
+            int bus = index / BusImage.ADDRESSES_PER_BUS;
+            int address = index % BusImage.ADDRESSES_PER_BUS;
+            if (getProtocol().isIgnoredAddress(bus, address)) {
+                continue;
+            }
+            FrameAssembler.Result result = readAddress(bus, address);
+            if (result == FrameAssembler.Result.INCOMPLETE) {
+                return false;
+            }
+            if (result == FrameAssembler.Result.COMPLETE) {
+                getBusImage().set(bus, address, frameAssembler.getFrame()[0]);
+                schedule.addressRead(index, now);
+                read.set(index);
+            }
+        }
+        if (read.isEmpty()) {
+            // nothing due
+            return true;
+        }
+        // only the writes of the read addresses are read back, the other values of the image aren't read
+        dispatch(getBusImage().copy(), read);
+        return true;
+    }
+
+    /**
+     * Addresses which are due by the schedule and the written addresses which are waiting for the read-back.
+     *
+     * @param now actual time by {@link System#nanoTime()}
+     * @return indexes of the addresses in the order of the bus
+     */
+    private Collection<Integer> getAddressesToRead(long now) {
+        List<Integer> due = schedule.getDueAddresses(now, leastUrgentTier);
+        if (getReadBackTracker() == null) {
+            return due;
+        }
+        BitSet pending = getReadBackTracker().getPendingAddresses();
+        if (pending.isEmpty()) {
+            return due;
+        }
+        Set<Integer> addresses = new TreeSet<>(due);
+        pending.stream().forEach(addresses::add);
+        return addresses;
+    }
+
+    /**
+     * Read the given address.
+     *
+     * @param bus number of the bus
+     * @param address address of the bus
+     * @return {@link FrameAssembler.Result}
+     */
+    private FrameAssembler.Result readAddress(int bus, int address) {
+        try {
+            frameAssembler.discardStale(getInputStream());
+            getOutputStream().write(getProtocol().encodeReadAddress(bus, address));
+            getOutputStream().flush();
+            return frameAssembler.assemble(getInputStream(), READ_TIMEOUT_IN_MILLIS);
+        } catch (IOException e) {
+            log.error("can't read address", e);
+            return FrameAssembler.Result.INCOMPLETE;
+        }
+    }
+}
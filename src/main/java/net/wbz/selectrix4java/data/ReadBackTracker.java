@@ -0,0 +1,288 @@
+package net.wbz.selectrix4java.data;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Acknowledged writes which are waiting for the next read of the bus. The {@link ReadBlockTask} completes the waiting
+ * writes with the read value of the written address, the {@link ReadAddressesTask} only the writes of the addresses
+ * which are read.
+ * <p>
+ * With an {@link WriteVerification} the read value is compared with the written value. Writes which aren't confirmed
+ * are put again at the head of the queue after the backoff of the verification. A write isn't retried if a newer write
+ * to the same address follows, so a retry never overwrites a newer value.
+ * </p>
+ * The tracker is called by the tasks of the channel, which are executed one after another.
+ *
+ * @author Daniel Tuerk
+ */
+class ReadBackTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadBackTracker.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final Deque<AbstractSerialAccessTask> queue;
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Set<WriteTask> scheduledRetries = ConcurrentHashMap.newKeySet();
+    private final List<WriteVerificationListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile WriteVerificationMetrics metrics = new WriteVerificationMetrics();
+
+    /**
+     * Sequence of the last write for each address of the read block.
+     */
+    private final long[] writeSequences = new long[ReadBlockTask.LENGTH_OF_DATA_REPLY];
+    private long sequence = 0;
+    private volatile WriteVerification verification;
+
+    /**
+     * Create tracker.
+     *
+     * @param scheduler executor to delay the retries
+     * @param queue queue of the channel to put the retries
+     */
+    ReadBackTracker(ScheduledExecutorService scheduler, Deque<AbstractSerialAccessTask> queue) {
+        this.scheduler = scheduler;
+        this.queue = queue;
+    }
+
+    void setVerification(WriteVerification verification) {
+        this.verification = verification;
+    }
+
+    WriteVerification getVerification() {
+        return verification;
+    }
+
+    WriteVerificationMetrics getMetrics() {
+        return metrics;
+    }
+
+    void addListener(WriteVerificationListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(WriteVerificationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Take over the verification, listeners and metrics of the tracker of a lost connection. Called before the first
+     * write of the new connection.
+     *
+     * @param lostTracker tracker of the lost connection
+     */
+    void takeOver(ReadBackTracker lostTracker) {
+        verification = lostTracker.verification;
+        listeners.addAll(lostTracker.listeners);
+        metrics = lostTracker.metrics;
+    }
+
+    /**
+     * Track the executed write. An acknowledged write waits for the next read of the bus.
+     *
+     * @param pendingWrite executed write
+     */
+    void written(PendingWrite pendingWrite) {
+        WriteTask task = pendingWrite.getTask();
+        if (task.getSequence() == 0) {
+            // first attempt of the write; retries keep the sequence of the first attempt
+            task.setSequence(++sequence);
+            int index = index(task.getBusData());
+            if (index >= 0) {
+                writeSequences[index] = task.getSequence();
+            }
+        }
+        if (pendingWrite.getReply() == 0) {
+            pendingWrites.add(pendingWrite);
+        } else {
+            verify(pendingWrite, WriteResult.NO_READ_BACK, System.nanoTime());
+        }
+    }
+
+    /**
+     * Complete the waiting writes by the values of the read block.
+     *
+     * @param reply read block of the bus 0 and 1
+     * @return data of the acknowledged writes which are read back, in the order of the writes
+     */
+    List<BusData> readBack(byte[] reply) {
+        return readBack(reply, null);
+    }
+
+    /**
+     * Complete the waiting writes of the read addresses. The writes of the other addresses keep waiting for the read
+     * of their address.
+     *
+     * @param reply latest known data of the bus 0 and 1
+     * @param read indexes of the addresses which are read from the bus or {@code null} if all addresses are read
+     * @return data of the acknowledged writes which are read back, in the order of the writes
+     */
+    List<BusData> readBack(byte[] reply, BitSet read) {
+        long now = System.nanoTime();
+        List<BusData> readBack = new ArrayList<>();
+        Iterator<PendingWrite> iterator = pendingWrites.iterator();
+        while (iterator.hasNext()) {
+            PendingWrite pendingWrite = iterator.next();
+            int index = index(pendingWrite.getTask().getBusData());
+            if (index >= 0 && read != null && !read.get(index)) {
+                continue;
+            }
+            iterator.remove();
+            readBack.add(pendingWrite.getTask().getBusData());
+            verify(pendingWrite, index >= 0 ? reply[index] & 0xff : WriteResult.NO_READ_BACK, now);
+        }
+        return readBack;
+    }
+
+    /**
+     * Addresses of the writes which are waiting for the read-back.
+     *
+     * @return indexes of the addresses, see {@link BusImage#index(int, int)}
+     */
+    BitSet getPendingAddresses() {
+        BitSet pending = new BitSet(ReadBlockTask.LENGTH_OF_DATA_REPLY);
+        for (PendingWrite pendingWrite : pendingWrites) {
+            int index = index(pendingWrite.getTask().getBusData());
+            if (index >= 0) {
+                pending.set(index);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Check for a newer write to the address of the given write.
+     *
+     * @param task write
+     * @return {@code true} if a newer write to the address exists
+     */
+    boolean isSuperseded(WriteTask task) {
+        int index = index(task.getBusData());
+        return index >= 0 && writeSequences[index] != task.getSequence();
+    }
+
+    /**
+     * Fail all waiting writes and retries, because the channel is closed.
+     */
+    void abort() {
+        PendingWrite pendingWrite;
+        while ((pendingWrite = pendingWrites.poll()) != null) {
+            pendingWrite.getTask().getFuture().completeExceptionally(new CancellationException("channel closed"));
+        }
+        for (WriteTask retry : scheduledRetries) {
+            if (scheduledRetries.remove(retry)) {
+                retry.abort();
+            }
+        }
+    }
+
+    private void verify(PendingWrite pendingWrite, int readBackValue, long readBackNanos) {
+        WriteTask task = pendingWrite.getTask();
+        WriteResult result = pendingWrite.createResult(readBackValue, readBackNanos);
+        WriteVerification verification = this.verification;
+        if (verification == null || (result.isAcknowledged() && !result.hasReadBack())) {
+            // verification disabled or address isn't part of the read block
+            task.getFuture().complete(result);
+        } else if (result.isConfirmed()) {
+            metrics.incrementConfirmed();
+            task.getFuture().complete(result);
+        } else if (isSuperseded(task)) {
+            // the newer write of the address is verified
+            task.getFuture().complete(result);
+        } else if (task.getAttempt() <= verification.getMaxRetries()) {
+            scheduleRetry(task, result, verification.getBackoffMillis(task.getAttempt()));
+        } else {
+            log.warn("write not confirmed after {} attempts: {}", task.getAttempt(), result);
+            metrics.incrementNotConfirmed();
+            for (WriteVerificationListener listener : listeners) {
+                try {
+                    listener.writeNotConfirmed(result, task.getAttempt());
+                } catch (RuntimeException e) {
+                    log.error("error in write verification listener", e);
+                }
+            }
+            task.getFuture().complete(result);
+        }
+    }
+
+    private void scheduleRetry(WriteTask task, WriteResult result, long backoffMillis) {
+        log.debug("retry write in {} ms: {}", backoffMillis, result);
+        metrics.incrementRetries();
+        for (WriteVerificationListener listener : listeners) {
+            try {
+                listener.writeRetried(result, task.getAttempt());
+            } catch (RuntimeException e) {
+                log.error("error in write verification listener", e);
+            }
+        }
+        final WriteTask retry = task.createRetry(result);
+        scheduledRetries.add(retry);
+        try {
+            scheduler.schedule(() -> {
+                if (scheduledRetries.remove(retry)) {
+                    queue.offerFirst(retry);
+                }
+            }, backoffMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // channel closed
+            scheduledRetries.remove(retry);
+            retry.abort();
+        }
+    }
+
+    private static int index(BusData busData) {
+        return BusImage.index(busData.getBus(), busData.getAddress());
+    }
+
+    /**
+     * Executed write which waits for the read-back.
+     */
+    static class PendingWrite {
+
+        private final WriteTask task;
+        private final int reply;
+        private final long startNanos;
+        private final long replyNanos;
+
+        PendingWrite(WriteTask task, int reply, long startNanos, long replyNanos) {
+            this.task = task;
+            this.reply = reply;
+            this.startNanos = startNanos;
+            this.replyNanos = replyNanos;
+        }
+
+        WriteTask getTask() {
+            return task;
+        }
+
+        int getReply() {
+            return reply;
+        }
+
+        /**
+         * Create the result of the write.
+         *
+         * @param readBackValue unsigned value of the address or {@link WriteResult#NO_READ_BACK}
+         * @param readBackNanos time of the read-back by {@link System#nanoTime()}
+         * @return {@link WriteResult}
+         */
+        WriteResult createResult(int readBackValue, long readBackNanos) {
+            return new WriteResult(task.getBusData(), reply, replyNanos - startNanos, readBackValue,
+                    readBackValue == WriteResult.NO_READ_BACK ? 0 : readBackNanos - startNanos);
+        }
+    }
+}
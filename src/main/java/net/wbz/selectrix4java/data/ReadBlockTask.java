@@ -3,15 +3,14 @@ package net.wbz.selectrix4java.data;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Arrays;
-import net.wbz.selectrix4java.bus.BusDataReceiver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This task read the bus 0 and 1 the hole timestamp and delegate the result to the {@link
  * net.wbz.selectrix4java.bus.BusDataReceiver}s. As {@link net.wbz.selectrix4java.data.AbstractSerialAccessTask} it will
- * be used by the {@link net.wbz.selectrix4java.data.BusDataChannel}. TODO it's a FCC specific implementation
+ * be used by the {@link net.wbz.selectrix4java.data.BusDataChannel} for interfaces which support the read of all
+ * addresses by one request, see {@link InterfaceProtocol#isReadBlockSupported()}.
  *
  * @author Daniel Tuerk
  */
@@ -27,21 +26,22 @@ public class ReadBlockTask extends AbstractSerialAccessTask {
      */
     private static final long CONNECTION_TIMEOUT = 5000L;
     /**
-     * TODO FCC specific
+     * Delay to read the SX bus.
      */
-    private static final int ADDRESS = 120;
+    public static final long SX_DELAY_IN_MILLIS = 77L;
     /**
-     * TODO FCC specific
+     * Maximum number of consecutive misaligned replies until the read is handled as error of the device.
      */
-    private static final int DATA = 3;
-    private static final byte[] WRITE_BYTES = new byte[]{(byte) ADDRESS, (byte) DATA};
+    static final int MAX_MISALIGNED_COUNT = 3;
 
     /**
-     * Delay to read the SX bus.
+     * Assembler of the reply from the partial reads of the stream, created for the length of the protocol.
      */
-    public static final long SX_DELAY_IN_MILLIS = 77L;
-
-    private final byte[] reply = new byte[LENGTH_OF_DATA_REPLY];
+    private FrameAssembler frameAssembler;
+    /**
+     * Number of consecutive misaligned replies.
+     */
+    private int misalignedCount = 0;
 
     /**
      * Create new task.
@@ -55,45 +55,45 @@ public class ReadBlockTask extends AbstractSerialAccessTask {
 
     @Override
     public Boolean call() {
-        boolean valid = readBlock(reply);
-        for (final BusDataReceiver receiver : getReceivers()) {
-            // bus 0
-            receiver.received(0, Arrays.copyOfRange(reply, 0, 113));
-            // bus 1
-            receiver.received(1, Arrays.copyOfRange(reply, 113, 226));
+        FrameAssembler.Result result = readBlock();
+        if (result == FrameAssembler.Result.MISALIGNED) {
+            // usually in sync again by the next read, but a channel which is never in sync again delivers no data
+            misalignedCount++;
+            if (misalignedCount >= MAX_MISALIGNED_COUNT) {
+                log.warn("{} consecutive misaligned replies", misalignedCount);
+                misalignedCount = 0;
+                return false;
+            }
+            return true;
+        }
+        misalignedCount = 0;
+        if (result != FrameAssembler.Result.COMPLETE) {
+            return false;
+        }
+        byte[] reply = frameAssembler.getFrame();
+        if (getBusImage() != null) {
+            getBusImage().update(reply);
         }
-        return valid;
+        dispatch(reply);
+        return true;
     }
 
-    private boolean readBlock(byte[] reply) {
-        // request bus data
+    private FrameAssembler.Result readBlock() {
         try {
-            getOutputStream().write(WRITE_BYTES);
+            if (frameAssembler == null) {
+                frameAssembler = new FrameAssembler(getProtocol().getReadBlockLength());
+            }
+            frameAssembler.discardStale(getInputStream());
+
+            // request bus data
+            getOutputStream().write(getProtocol().encodeReadBlock());
             getOutputStream().flush();
 
-            // waiting for full response from FCC
-            long maxWaitingTime = System.currentTimeMillis() + CONNECTION_TIMEOUT;
-            while (getInputStream().available() < LENGTH_OF_DATA_REPLY) {
-                try {
-                    Thread.sleep(SX_DELAY_IN_MILLIS);
-                } catch (InterruptedException e) {
-                    log.error("error to wait for read delay, e");
-                    return false;
-                }
-                if (System.currentTimeMillis() > maxWaitingTime) {
-                    break;
-                }
-            }
-            // read response
-            int length = getInputStream().read(reply);
-            if (length != reply.length) {
-                log.error("block length invalid (" + length + ")");
-                return false;
-            }
+            // waiting for full response
+            return frameAssembler.assemble(getInputStream(), CONNECTION_TIMEOUT);
         } catch (IOException e) {
-            log.error("can't write to output", e);
-            return false;
+            log.error("can't read block", e);
+            return FrameAssembler.Result.INCOMPLETE;
         }
-        return true;
     }
 }
@@ -0,0 +1,80 @@
+package net.wbz.selectrix4java.data;
+
+/**
+ * Protocol of the Stärz interface, compatible with the Trix interface 66842. The interface accesses one SX bus and
+ * each request addresses a single address: the address byte with bit 7 for a write followed by the data byte. A read
+ * is replied by the data of the address, a write isn't replied.
+ *
+ * @author Daniel Tuerk
+ */
+public final class StaerzProtocol implements InterfaceProtocol {
+
+    public static final StaerzProtocol INSTANCE = new StaerzProtocol();
+
+    /**
+     * Highest address of the bus.
+     */
+    private static final int MAX_ADDRESS = 111;
+
+    private StaerzProtocol() {
+    }
+
+    @Override
+    public int getBusCount() {
+        return 1;
+    }
+
+    @Override
+    public boolean isReadBlockSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isReadAddressSupported() {
+        return true;
+    }
+
+    @Override
+    public byte[] encodeReadBlock() {
+        throw new UnsupportedOperationException("Stärz interface reads only single addresses");
+    }
+
+    @Override
+    public int getReadBlockLength() {
+        return 0;
+    }
+
+    @Override
+    public byte[] encodeReadAddress(int bus, int address) {
+        checkAddress(bus, address);
+        return new byte[]{(byte) address, 0};
+    }
+
+    @Override
+    public byte[] encodeWrite(BusData busData) {
+        checkAddress(busData.getBus(), busData.getAddress());
+        return new byte[]{(byte) (busData.getAddress() | 0x80), (byte) busData.getData()};
+    }
+
+    @Override
+    public boolean isWriteAcknowledged() {
+        return false;
+    }
+
+    @Override
+    public boolean isIgnoredAddress(int bus, int address) {
+        return bus != 0 || address > MAX_ADDRESS;
+    }
+
+    private static void checkAddress(int bus, int address) {
+        if (bus != 0 || address < 0 || address > MAX_ADDRESS) {
+            throw new IllegalArgumentException(String.format("invalid address for Stärz interface: bus=%d address=%d",
+                    bus, address));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Stärz";
+    }
+}
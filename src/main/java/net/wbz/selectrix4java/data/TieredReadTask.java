@@ -0,0 +1,54 @@
+package net.wbz.selectrix4java.data;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Read task for interfaces which support the read of all addresses and of single addresses. All addresses are refreshed
+ * by a block read with the interval of the {@link PollingTier#NORMAL} tier, in between only the addresses of the
+ * {@link PollingTier#HOT} tier are read one by one.
+ *
+ * @author Daniel Tuerk
+ */
+class TieredReadTask extends AbstractSerialAccessTask {
+
+    private final PollingSchedule schedule;
+    private final ReadBlockTask readBlockTask;
+    private final ReadAddressesTask readAddressesTask;
+
+    /**
+     * Create new task.
+     *
+     * @param inputStream open {@link java.io.InputStream}
+     * @param outputStream open {@link java.io.OutputStream}
+     * @param schedule {@link PollingSchedule} of the addresses to read
+     */
+    TieredReadTask(InputStream inputStream, OutputStream outputStream, PollingSchedule schedule) {
+        super(inputStream, outputStream);
+        this.schedule = schedule;
+        readBlockTask = new ReadBlockTask(inputStream, outputStream);
+        readAddressesTask = new ReadAddressesTask(inputStream, outputStream, schedule);
+        readAddressesTask.setLeastUrgentTier(PollingTier.HOT);
+    }
+
+    @Override
+    public Boolean call() {
+        long now = System.nanoTime();
+        if (schedule.isBlockDue(now)) {
+            boolean valid = init(readBlockTask).call();
+            if (valid) {
+                schedule.blockRead(now);
+            }
+            return valid;
+        }
+        return init(readAddressesTask).call();
+    }
+
+    private <T extends AbstractSerialAccessTask> T init(T task) {
+        task.setBusImage(getBusImage());
+        task.setReadBackTracker(getReadBackTracker());
+        task.setProtocol(getProtocol());
+        task.setReceivers(getReceivers());
+        return task;
+    }
+}
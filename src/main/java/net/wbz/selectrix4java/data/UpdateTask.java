@@ -0,0 +1,82 @@
+package net.wbz.selectrix4java.data;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Read-modify-write of an address. The new data value is calculated during the execution of the task from the latest
+ * known data of the {@link BusImage}, so updates of the same address are serialized by the queue of the {@link
+ * BusDataChannel} and each update is based on the result of the previous one.
+ *
+ * @author Daniel Tuerk
+ */
+class UpdateTask extends AbstractSerialAccessTask {
+
+    /**
+     * Result of the update function to skip the write.
+     */
+    static final int NO_WRITE = -1;
+
+    private final int bus;
+    private final int address;
+    private final IntUnaryOperator update;
+    private final CompletableFuture<WriteResult> future = new CompletableFuture<>();
+
+    /**
+     * Create new task for an execution
+     *
+     * @param inputStream {@link java.io.InputStream}
+     * @param outputStream {@link java.io.OutputStream}
+     * @param bus number of bus
+     * @param address address of bus
+     * @param update function to calculate the new unsigned data value from the actual one or {@link #NO_WRITE}
+     */
+    UpdateTask(InputStream inputStream, OutputStream outputStream, int bus, int address, IntUnaryOperator update) {
+        super(inputStream, outputStream);
+        this.bus = bus;
+        this.address = address;
+        this.update = update;
+    }
+
+    @Override
+    public Boolean call() {
+        int actualValue = getBusImage().get(bus, address);
+        int newValue;
+        try {
+            newValue = update.applyAsInt(actualValue);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return true;
+        }
+        if (newValue == NO_WRITE) {
+            future.complete(null);
+            return true;
+        }
+        WriteTask writeTask = createWriteTask(new BusData(bus, address, newValue));
+        writeTask.getFuture().whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(result);
+            }
+        });
+        return writeTask.call();
+    }
+
+    @Override
+    void abort() {
+        future.completeExceptionally(new CancellationException("channel closed"));
+    }
+
+    /**
+     * Future of the update.
+     *
+     * @return future completed with the {@link WriteResult} of the write or {@code null} for {@link #NO_WRITE}
+     */
+    CompletableFuture<WriteResult> getFuture() {
+        return future;
+    }
+}
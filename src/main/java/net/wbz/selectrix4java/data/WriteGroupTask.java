@@ -0,0 +1,88 @@
+package net.wbz.selectrix4java.data;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write a group of {@link BusUpdate}s back-to-back as one task of the {@link BusDataChannel}. No other task and no read
+ * of the bus is executed between the writes of the group. Each value is calculated by the read-modify-write of the
+ * {@link UpdateTask} during the execution, so the group is based on the latest known data of the addresses.
+ *
+ * @author Daniel Tuerk
+ */
+class WriteGroupTask extends AbstractSerialAccessTask {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteGroupTask.class);
+
+    private final List<BusUpdate> group;
+    private final CompletableFuture<List<WriteResult>> future = new CompletableFuture<>();
+
+    /**
+     * Create new task for an execution
+     *
+     * @param inputStream {@link java.io.InputStream}
+     * @param outputStream {@link java.io.OutputStream}
+     * @param group {@link BusUpdate}s to write in the given order
+     */
+    WriteGroupTask(InputStream inputStream, OutputStream outputStream, List<BusUpdate> group) {
+        super(inputStream, outputStream);
+        this.group = ImmutableList.copyOf(group);
+    }
+
+    @Override
+    public Boolean call() {
+        List<CompletableFuture<WriteResult>> results = new ArrayList<>();
+        for (BusUpdate busUpdate : group) {
+            UpdateTask updateTask = createUpdateTask(busUpdate);
+            results.add(updateTask.getFuture());
+            if (!updateTask.call()) {
+                // stream broken, skip the remaining writes
+                future.completeExceptionally(new IOException("can't write group, failed at " + busUpdate));
+                return false;
+            }
+        }
+        log.debug("write group of {} executed", group.size());
+        // complete by the read-back of all writes, which includes the retries of verified writes
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).whenComplete((ignore, throwable) -> {
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                List<WriteResult> writeResults = results.stream().map(CompletableFuture::join).collect(
+                        Collectors.toList());
+                List<BusData> failed = writeResults.stream().filter(Objects::nonNull).filter(
+                        result -> !result.isAcknowledged()).map(WriteResult::getBusData).collect(Collectors.toList());
+                if (failed.isEmpty()) {
+                    future.complete(writeResults);
+                } else {
+                    future.completeExceptionally(new IOException("write not acknowledged: " + failed));
+                }
+            }
+        });
+        return true;
+    }
+
+    @Override
+    void abort() {
+        future.completeExceptionally(new CancellationException("channel closed"));
+    }
+
+    /**
+     * Future of the group.
+     *
+     * @return future completed with the {@link WriteResult} of each write after the read-back of all writes, {@code
+     *         null} for an update which skips the write
+     */
+    CompletableFuture<List<WriteResult>> getFuture() {
+        return future;
+    }
+}
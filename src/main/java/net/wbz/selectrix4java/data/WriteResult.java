@@ -0,0 +1,114 @@
+package net.wbz.selectrix4java.data;
+
+import com.google.common.base.MoreObjects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a write to the bus. Contains the reply of the device for the write and the value of the address from the
+ * first read of the bus after the write.
+ *
+ * @author Daniel Tuerk
+ */
+public final class WriteResult {
+
+    /**
+     * Value for no read-back of the address.
+     */
+    public static final int NO_READ_BACK = -1;
+
+    private final BusData busData;
+    private final int reply;
+    private final long roundTripNanos;
+    private final int readBackValue;
+    private final long readBackNanos;
+
+    WriteResult(BusData busData, int reply, long roundTripNanos, int readBackValue, long readBackNanos) {
+        this.busData = busData;
+        this.reply = reply;
+        this.roundTripNanos = roundTripNanos;
+        this.readBackValue = readBackValue;
+        this.readBackNanos = readBackNanos;
+    }
+
+    /**
+     * Written data.
+     *
+     * @return {@link BusData}
+     */
+    public BusData getBusData() {
+        return busData;
+    }
+
+    /**
+     * Reply code of the device for the write.
+     *
+     * @return reply, {@code 0} for success
+     */
+    public int getReply() {
+        return reply;
+    }
+
+    /**
+     * Check the reply of the device.
+     *
+     * @return {@code true} if the device acknowledged the write
+     */
+    public boolean isAcknowledged() {
+        return reply == 0;
+    }
+
+    /**
+     * Time from the start of the write until the reply of the device.
+     *
+     * @param unit unit of the time
+     * @return time in the given unit
+     */
+    public long getRoundTripTime(TimeUnit unit) {
+        return unit.convert(roundTripNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Check for an read of the bus after the write.
+     *
+     * @return {@code true} if the address was read after the write
+     */
+    public boolean hasReadBack() {
+        return readBackValue != NO_READ_BACK;
+    }
+
+    /**
+     * Unsigned value of the address from the first read of the bus after the write.
+     *
+     * @return value or {@link #NO_READ_BACK} for an not acknowledged write or an address which is not part of the read
+     *         block
+     */
+    public int getReadBackValue() {
+        return readBackValue;
+    }
+
+    /**
+     * Time from the start of the write until the read of the bus after the write.
+     *
+     * @param unit unit of the time
+     * @return time in the given unit or {@code 0} without read-back
+     */
+    public long getReadBackTime(TimeUnit unit) {
+        return unit.convert(readBackNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Check that the read of the bus after the write confirms the written value.
+     *
+     * @return {@code true} if the read-back value is equal to the written value
+     */
+    public boolean isConfirmed() {
+        return hasReadBack() && readBackValue == (busData.getData() & 0xff);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("busData", busData).add("reply", reply)
+                .add("roundTripNanos", roundTripNanos).add("readBackValue", readBackValue)
+                .add("readBackNanos", readBackNanos).toString();
+    }
+}
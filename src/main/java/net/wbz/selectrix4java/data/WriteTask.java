@@ -2,8 +2,11 @@ package net.wbz.selectrix4java.data;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
-import java.math.BigInteger;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,8 +19,30 @@ public class WriteTask extends AbstractSerialAccessTask {
 
     private static final Logger log = LoggerFactory.getLogger(WriteTask.class);
 
+    /**
+     * Maximum time to wait for the reply of a write. A missing reply is counted as error of the channel.
+     */
+    public static final long REPLY_TIMEOUT_IN_MILLIS = 1000L;
+    /**
+     * Delay to poll a stream which returns immediately without data.
+     */
+    private static final long REPLY_POLL_DELAY_IN_MILLIS = 5L;
+
     private final BusData busData;
     private final byte[] data;
+    private final CompletableFuture<WriteResult> future;
+    /**
+     * Number of the attempt for a verified write, see {@link WriteVerification}.
+     */
+    private int attempt = 1;
+    /**
+     * Sequence of the write, assigned by the {@link ReadBackTracker}.
+     */
+    private long sequence = 0;
+    /**
+     * Result of the previous attempt for a retry.
+     */
+    private WriteResult previousResult;
 
     /**
      * Create new task for an execution
@@ -30,6 +55,7 @@ public class WriteTask extends AbstractSerialAccessTask {
         super(inputStream, outputStream);
         this.busData = null;
         this.data = data;
+        this.future = new CompletableFuture<>();
     }
 
     /**
@@ -40,21 +66,56 @@ public class WriteTask extends AbstractSerialAccessTask {
      * @param busData {@link net.wbz.selectrix4java.data.BusData}
      */
     public WriteTask(InputStream inputStream, OutputStream outputStream, BusData busData) {
+        this(inputStream, outputStream, busData, new CompletableFuture<>());
+    }
+
+    private WriteTask(InputStream inputStream, OutputStream outputStream, BusData busData,
+        CompletableFuture<WriteResult> future) {
         super(inputStream, outputStream);
         this.busData = busData;
         this.data = null;
+        this.future = future;
+    }
+
+    /**
+     * Create the next attempt of this write which completes the same future.
+     *
+     * @param previousResult result of this attempt
+     * @return {@link WriteTask} to retry
+     */
+    WriteTask createRetry(WriteResult previousResult) {
+        WriteTask retry = new WriteTask(getInputStream(), getOutputStream(), busData, future);
+        retry.setBusImage(getBusImage());
+        retry.setReadBackTracker(getReadBackTracker());
+        retry.setProtocol(getProtocol());
+        retry.attempt = attempt + 1;
+        retry.sequence = sequence;
+        retry.previousResult = previousResult;
+        return retry;
     }
 
     @Override
     public Boolean call() {
+        if (previousResult != null && getReadBackTracker() != null && getReadBackTracker().isSuperseded(this)) {
+            log.debug("skip retry, newer write of the address: {}", busData);
+            future.complete(previousResult);
+            return true;
+        }
+        long startNanos = System.nanoTime();
         try {
             // write to output
             if (data == null && busData != null) {
                 log.debug(String.format("write: bus=%d address=%d data=%d", busData.getBus(), busData.getAddress(),
                     busData.getData()));
-                byte address = BigInteger.valueOf(busData.getAddress()).setBit(7).byteValue();
-
-                getOutputStream().write(new byte[]{(byte) busData.getBus(), address, (byte) busData.getData()});
+                byte[] request;
+                try {
+                    request = getProtocol().encodeWrite(busData);
+                } catch (IllegalArgumentException e) {
+                    // invalid address for the interface, no error of the device
+                    future.completeExceptionally(e);
+                    return true;
+                }
+                getOutputStream().write(request);
 
                 getOutputStream().flush();
 
@@ -64,24 +125,110 @@ public class WriteTask extends AbstractSerialAccessTask {
                 throw new RuntimeException("invalid data to send! Only byte array or BusData are valid!");
             }
 
-            // read write reply as one byte
-            int reply;
-            do {
-                reply = getInputStream().read();
-            } while (reply < 0);
+            // read write reply as one byte; interfaces without reply accept each write
+            int reply = getProtocol().isWriteAcknowledged() ? readReply() : 0;
+            if (reply < 0) {
+                log.warn("no write reply in {} ms: {}", REPLY_TIMEOUT_IN_MILLIS, busData);
+                future.completeExceptionally(new IOException(String.format("no write reply in %d ms",
+                    REPLY_TIMEOUT_IN_MILLIS)));
+                return false;
+            }
+            long replyNanos = System.nanoTime();
 
             if (reply == 0) {
                 if(log.isDebugEnabled()) {
                     log.debug("write successful, reply: {}", reply);
                 }
+                if (getBusImage() != null && getProtocol().isWriteAcknowledged() && !getProtocol().isDataPushed()) {
+                    // pushed interfaces deliver the read back value before the reply; the value of an unacknowledged
+                    // write is only known by the read of the address
+                    getBusImage().set(busData.getBus(), busData.getAddress(), busData.getData());
+                }
             } else {
                 log.warn("write error reply: " + reply);
             }
 
+            ReadBackTracker.PendingWrite pendingWrite = new ReadBackTracker.PendingWrite(this, reply, startNanos,
+                replyNanos);
+            if (getReadBackTracker() != null) {
+                // completed by the next read of the bus
+                getReadBackTracker().written(pendingWrite);
+                if (getProtocol().isDataPushed() && getBusImage() != null) {
+                    // no read of the bus, the pushed value of the address is read back
+                    getReadBackTracker().readBack(getBusImage().copy());
+                }
+            } else {
+                future.complete(pendingWrite.createResult(WriteResult.NO_READ_BACK, replyNanos));
+            }
+
         } catch (IOException e) {
             log.error("error writing data", e);
+            future.completeExceptionally(e);
             return false;
         }
         return true;
     }
+
+    /**
+     * Read the reply of the write. The read of the stream blocks until data is available or the timeout of the stream
+     * is reached. Streams which don't block are polled after a short delay, so the thread doesn't spin until the reply
+     * is received.
+     *
+     * @return reply or {@code -1} if no reply was received until the {@link #REPLY_TIMEOUT_IN_MILLIS}
+     * @throws IOException error to read the stream
+     */
+    private int readReply() throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REPLY_TIMEOUT_IN_MILLIS);
+        while (true) {
+            try {
+                int reply = getInputStream().read();
+                if (reply >= 0) {
+                    return reply;
+                }
+            } catch (InterruptedIOException e) {
+                // timeout of a blocking stream
+                log.trace("read timeout of the write reply");
+            }
+            if (System.nanoTime() >= deadline) {
+                return -1;
+            }
+            try {
+                Thread.sleep(REPLY_POLL_DELAY_IN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted to wait for the write reply");
+            }
+        }
+    }
+
+    @Override
+    void abort() {
+        future.completeExceptionally(new CancellationException("channel closed"));
+    }
+
+    /**
+     * Future of the write.
+     *
+     * @return future completed with the {@link WriteResult} after the read-back of the written address or completed
+     *         exceptionally by an {@link IOException} of the device access
+     */
+    CompletableFuture<WriteResult> getFuture() {
+        return future;
+    }
+
+    BusData getBusData() {
+        return busData;
+    }
+
+    int getAttempt() {
+        return attempt;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
 }
@@ -0,0 +1,59 @@
+package net.wbz.selectrix4java.data;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration to verify each write by the read of the bus after the write. A write which isn't acknowledged by the
+ * device or which isn't confirmed by the read value of the address is written again after an exponential backoff.
+ *
+ * @author Daniel Tuerk
+ */
+public class WriteVerification {
+
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    /**
+     * Create configuration.
+     *
+     * @param maxRetries maximum number of retries for each write
+     * @param initialBackoff delay before the first retry; doubled for each further retry
+     * @param maxBackoff maximum delay before a retry
+     * @param unit unit of the delays
+     */
+    public WriteVerification(int maxRetries, long initialBackoff, long maxBackoff, TimeUnit unit) {
+        Preconditions.checkArgument(maxRetries >= 0, "negative retries");
+        Preconditions.checkArgument(initialBackoff >= 0 && maxBackoff >= initialBackoff, "invalid backoff");
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = unit.toMillis(initialBackoff);
+        this.maxBackoffMillis = unit.toMillis(maxBackoff);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Delay before the given retry.
+     *
+     * @param retry number of the retry, starting with 1
+     * @return delay in milliseconds
+     */
+    public long getBackoffMillis(int retry) {
+        long backoff = initialBackoffMillis;
+        for (int i = 1; i < retry && backoff < maxBackoffMillis; i++) {
+            backoff *= 2;
+        }
+        return Math.min(backoff, maxBackoffMillis);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("maxRetries", maxRetries)
+                .add("initialBackoffMillis", initialBackoffMillis).add("maxBackoffMillis", maxBackoffMillis)
+                .toString();
+    }
+}
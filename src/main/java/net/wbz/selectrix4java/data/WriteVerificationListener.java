@@ -0,0 +1,27 @@
+package net.wbz.selectrix4java.data;
+
+/**
+ * Listener for writes which can't be verified by the read of the bus.
+ *
+ * @author Daniel Tuerk
+ * @see WriteVerification
+ */
+public interface WriteVerificationListener {
+
+    /**
+     * Write is retried, because the device didn't acknowledge the write or the read of the bus shows another value.
+     *
+     * @param result result of the last attempt
+     * @param retry number of the retry, starting with 1
+     */
+    default void writeRetried(WriteResult result, int retry) {
+    }
+
+    /**
+     * Write isn't confirmed by the read of the bus after all retries.
+     *
+     * @param result result of the last attempt
+     * @param attempts number of all attempts of the write
+     */
+    void writeNotConfirmed(WriteResult result, int attempts);
+}
@@ -0,0 +1,62 @@
+package net.wbz.selectrix4java.data;
+
+import com.google.common.base.MoreObjects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the verified writes of an {@link BusDataChannel}.
+ *
+ * @author Daniel Tuerk
+ * @see WriteVerification
+ */
+public class WriteVerificationMetrics {
+
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong notConfirmed = new AtomicLong();
+
+    /**
+     * Writes which are confirmed by the read of the bus, also after retries.
+     *
+     * @return count
+     */
+    public long getConfirmed() {
+        return confirmed.get();
+    }
+
+    /**
+     * Retries of writes.
+     *
+     * @return count
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Writes which aren't confirmed after all retries.
+     *
+     * @return count
+     */
+    public long getNotConfirmed() {
+        return notConfirmed.get();
+    }
+
+    void incrementConfirmed() {
+        confirmed.incrementAndGet();
+    }
+
+    void incrementRetries() {
+        retries.incrementAndGet();
+    }
+
+    void incrementNotConfirmed() {
+        notConfirmed.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("confirmed", confirmed).add("retries", retries)
+                .add("notConfirmed", notConfirmed).toString();
+    }
+}
@@ -0,0 +1,227 @@
+package net.wbz.selectrix4java.data.recording;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.wbz.selectrix4java.bus.BusChangeEvent;
+import net.wbz.selectrix4java.executor.ExecutorProvider;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Journal of the changes of the addresses. Set by {@link net.wbz.selectrix4java.bus.BusDataDispatcher#setJournal} to
+ * append each change which is received from the bus, written by the channel or replayed by the {@link BusDataPlayer}.
+ * <p>
+ * The changes are written by an own thread to memory-mapped segment files in the given directory, so the thread of the
+ * channel only puts the change into a bounded queue. If the queue is full, the change is dropped and counted, see
+ * {@link #getDroppedCount()}. A full segment is sealed and the next segment is created; the oldest segments are deleted
+ * to keep the maximum number of segments.
+ * </p>
+ * <p>
+ * The journal can be read by the {@link BusChangeJournalReader} while it's written, by another thread of this JVM or
+ * by another process. Other processes see the records by the shared mapping of the files.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public class BusChangeJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BusChangeJournal.class);
+
+    /**
+     * Default number of changes in one segment; a segment has 1 MB.
+     */
+    public static final int DEFAULT_SEGMENT_CAPACITY = 65536;
+    /**
+     * Default number of segments to keep.
+     */
+    public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+    /**
+     * Number of changes which can wait to be written.
+     */
+    private static final int QUEUE_CAPACITY = 65536;
+    /**
+     * Maximum number of changes to write before the changes are committed for the readers.
+     */
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final int maxSegments;
+    private final BlockingQueue<BusChangeEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /**
+     * Segments by the order of the sequence; the last one is written. Only accessed by the writer thread.
+     */
+    private final Deque<Path> segmentFiles = new ArrayDeque<>();
+    private JournalSegment segment;
+    private int segmentPosition = 0;
+    private volatile long nextSequence;
+
+    /**
+     * Create journal with the default size of the segments and threads.
+     *
+     * @param directory directory of the segment files, created if it doesn't exist
+     * @throws RecordingException can't create the journal
+     */
+    public BusChangeJournal(Path directory) throws RecordingException {
+        this(directory, DEFAULT_SEGMENT_CAPACITY, DEFAULT_MAX_SEGMENTS, ExecutorProviders.getDefault());
+    }
+
+    /**
+     * Create journal. The sequence continues after the last change of existing segments in the directory.
+     *
+     * @param directory directory of the segment files, created if it doesn't exist
+     * @param segmentCapacity number of changes in one segment
+     * @param maxSegments maximum number of segments to keep
+     * @param executorProvider {@link ExecutorProvider} of the writer thread
+     * @throws RecordingException can't create the journal
+     */
+    public BusChangeJournal(Path directory, int segmentCapacity, int maxSegments, ExecutorProvider executorProvider)
+            throws RecordingException {
+        Preconditions.checkArgument(segmentCapacity > 0, "segment capacity must be positive: %s", segmentCapacity);
+        Preconditions.checkArgument(maxSegments > 0, "maximum of segments must be positive: %s", maxSegments);
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        this.maxSegments = maxSegments;
+        try {
+            Files.createDirectories(directory);
+            for (Path file : JournalSegment.list(directory)) {
+                JournalSegment existing = JournalSegment.open(file, true);
+                if (existing == null || existing.getCommitted() == 0) {
+                    // empty segment is replaced by the new segment
+                    JournalSegment.delete(file);
+                    continue;
+                }
+                nextSequence = existing.getFirstSequence() + existing.getCommitted();
+                if (!existing.isSealed()) {
+                    // not closed by the last writer
+                    existing.seal();
+                }
+                segmentFiles.add(file);
+            }
+            openSegment(nextSequence);
+        } catch (IOException e) {
+            throw new RecordingException("can't create journal in " + directory, e);
+        }
+        writerThread = executorProvider.newThreadFactory("bus-change-journal").newThread(this::write);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Append the change. Doesn't block; the change is dropped if the writer can't keep up.
+     *
+     * @param event {@link BusChangeEvent}
+     */
+    public void append(BusChangeEvent event) {
+        if (!running || !queue.offer(event)) {
+            if (droppedCount.getAndIncrement() == 0) {
+                log.warn("journal can't keep up, drop changes");
+            }
+        }
+    }
+
+    /**
+     * Number of the changes which are dropped, because the queue of the writer was full.
+     *
+     * @return count of changes
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Sequence number of the next change to write.
+     *
+     * @return sequence number
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Write the queued changes and seal the actual segment.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write() {
+        List<BusChangeEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        try {
+            while (running || !queue.isEmpty()) {
+                BusChangeEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                for (BusChangeEvent event : batch) {
+                    if (segmentPosition == segmentCapacity) {
+                        rotate();
+                    }
+                    segment.write(segmentPosition++, event);
+                }
+                segment.commit(segmentPosition);
+                nextSequence += batch.size();
+                batch.clear();
+            }
+            segment.seal();
+        } catch (InterruptedException e) {
+            log.warn("journal writer interrupted");
+            segment.seal();
+        } catch (IOException e) {
+            log.error("can't write journal, stop writing", e);
+            running = false;
+        }
+    }
+
+    private void rotate() throws IOException {
+        segment.commit(segmentPosition);
+        segment.seal();
+        openSegment(segment.getFirstSequence() + segmentPosition);
+        while (segmentFiles.size() > maxSegments) {
+            Path oldest = segmentFiles.poll();
+            try {
+                JournalSegment.delete(oldest);
+            } catch (IOException e) {
+                log.warn("can't delete journal segment {}: {}", oldest, e.getMessage());
+            }
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        segment = JournalSegment.create(directory, firstSequence, segmentCapacity);
+        segmentPosition = 0;
+        segmentFiles.add(segment.getFile());
+    }
+}
@@ -0,0 +1,151 @@
+package net.wbz.selectrix4java.data.recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import net.wbz.selectrix4java.bus.BusChangeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reader of the {@link BusChangeJournal} which follows the journal while it's written. Each {@link #poll(int)} returns
+ * the changes which are committed since the last poll, so the changes can be consumed incrementally.
+ *
+ * @author Daniel Tuerk
+ */
+public class BusChangeJournalReader {
+
+    private static final Logger log = LoggerFactory.getLogger(BusChangeJournalReader.class);
+
+    private final Path directory;
+    private JournalSegment segment;
+    private long sequence;
+
+    /**
+     * Create reader to start with the oldest kept change.
+     *
+     * @param directory directory of the journal
+     */
+    public BusChangeJournalReader(Path directory) {
+        this(directory, 0L);
+    }
+
+    /**
+     * Create reader to start with the given change.
+     *
+     * @param directory directory of the journal
+     * @param sequence sequence number of the first change to read, e.g. the {@link #getSequence()} of a previous
+     *         reader
+     */
+    public BusChangeJournalReader(Path directory, long sequence) {
+        this.directory = directory;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Sequence number of the next change to read.
+     *
+     * @return sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Read the committed changes which aren't read yet.
+     *
+     * @param maxChanges maximum number of changes to read
+     * @return changes in the order of the journal; empty if no new change is committed
+     * @throws RecordingException can't read the journal
+     */
+    public List<BusChangeEvent> poll(int maxChanges) throws RecordingException {
+        List<BusChangeEvent> changes = new ArrayList<>();
+        try {
+            while (changes.size() < maxChanges) {
+                if (segment == null && !openSegment()) {
+                    break;
+                }
+                int index = (int) (sequence - segment.getFirstSequence());
+                int committed = segment.getCommitted();
+                while (index < committed && changes.size() < maxChanges) {
+                    changes.add(segment.read(index++));
+                    sequence++;
+                }
+                if (index < committed) {
+                    // maximum number of changes read
+                    break;
+                }
+                // the writer commits all changes before it seals the segment, so the seal is read first and the
+                // committed changes again: further changes could be committed since the first read
+                boolean sealed = segment.isSealed();
+                if (index < segment.getCommitted()) {
+                    continue;
+                }
+                if (!sealed) {
+                    break;
+                }
+                // read completely, continue with the next segment
+                long finished = segment.getFirstSequence();
+                segment = null;
+                if (!openNextSegment(finished)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new RecordingException("can't read journal in " + directory, e);
+        }
+        return changes;
+    }
+
+    /**
+     * Open the segment which follows the given segment.
+     *
+     * @param finished sequence number of the first change of the finished segment
+     * @return {@code true} if the next segment is opened
+     * @throws IOException can't read the segment
+     */
+    private boolean openNextSegment(long finished) throws IOException {
+        for (Path file : JournalSegment.list(directory)) {
+            long firstSequence = JournalSegment.sequenceOf(file);
+            if (firstSequence > finished) {
+                segment = JournalSegment.open(file, false);
+                if (segment != null && firstSequence > sequence) {
+                    log.warn("changes {} to {} are missing, continue with the next segment", sequence,
+                            firstSequence - 1);
+                    sequence = firstSequence;
+                }
+                return segment != null;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Open the segment which contains the actual sequence.
+     *
+     * @return {@code true} if the segment is opened
+     * @throws IOException can't read the segment
+     */
+    private boolean openSegment() throws IOException {
+        List<Path> files = JournalSegment.list(directory);
+        Path found = null;
+        for (Path file : files) {
+            if (JournalSegment.sequenceOf(file) <= sequence) {
+                found = file;
+            }
+        }
+        if (found == null) {
+            if (files.isEmpty()) {
+                return false;
+            }
+            // changes are deleted by the rotation of the writer
+            found = files.get(0);
+            long oldest = JournalSegment.sequenceOf(found);
+            log.warn("changes {} to {} are deleted, continue with the oldest kept change", sequence, oldest - 1);
+            sequence = oldest;
+        }
+        segment = JournalSegment.open(found, false);
+        return segment != null;
+    }
+}
@@ -1,7 +1,6 @@
 package net.wbz.selectrix4java.data.recording;
 
 import com.google.common.collect.Lists;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -9,12 +8,12 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import net.wbz.selectrix4java.bus.BusDataReceiver;
 import net.wbz.selectrix4java.data.BusDataChannel;
+import net.wbz.selectrix4java.executor.ExecutorProvider;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,13 +56,26 @@ public class BusDataPlayer {
      * @param playbackSpeedMultiplication multiplication of playback speed (1 is normal speed; 2 double speed)
      */
     public BusDataPlayer(BusDataReceiver receiver, BusDataChannel busDataChannel, int playbackSpeedMultiplication) {
+        this(receiver, busDataChannel, playbackSpeedMultiplication, ExecutorProviders.getDefault());
+    }
+
+    /**
+     * Creating new player to call the given {@link net.wbz.selectrix4java.bus.BusDataReceiver} by playing an record
+     * with the thread of the given provider.
+     *
+     * @param receiver {@link net.wbz.selectrix4java.bus.BusDataReceiver}
+     * @param busDataChannel {@link net.wbz.selectrix4java.data.BusDataChannel}
+     * @param playbackSpeedMultiplication multiplication of playback speed (1 is normal speed; 2 double speed)
+     * @param executorProvider {@link ExecutorProvider} of the playback thread
+     */
+    public BusDataPlayer(BusDataReceiver receiver, BusDataChannel busDataChannel, int playbackSpeedMultiplication,
+            ExecutorProvider executorProvider) {
         this.receiver = receiver;
         this.busDataChannel = busDataChannel;
         assert playbackSpeedMultiplication >= 0;
         this.playbackSpeedMultiplication = playbackSpeedMultiplication;
 
-        ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("bus-data-player-%d").build();
-        executorService = Executors.newSingleThreadExecutor(namedThreadFactory);
+        executorService = executorProvider.newSingleThreadExecutor("bus-data-player");
     }
 
     /**
@@ -117,7 +129,7 @@ public class BusDataPlayer {
                     lastReceivedTime = recordEntry.getTimestamp();
 
                     // handle data
-                    receiver.received(recordEntry.getBus(), recordEntry.getData());
+                    receiver.replayed(recordEntry.getBus(), recordEntry.getData());
                 }
                 stop();
             });
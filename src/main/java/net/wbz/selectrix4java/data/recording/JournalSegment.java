@@ -0,0 +1,262 @@
+package net.wbz.selectrix4java.data.recording;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.wbz.selectrix4java.bus.BusChangeEvent;
+import net.wbz.selectrix4java.bus.BusChangeSource;
+
+/**
+ * Memory-mapped segment file of the {@link BusChangeJournal}.
+ * <p>
+ * The segment starts with a header of {@value #HEADER_SIZE} bytes: the magic number, the capacity of records, the
+ * number of committed records and the sealed flag. The records of {@value #RECORD_SIZE} bytes follow: the timestamp,
+ * the bus, the address, the old value, the new value and the source. A reader reads only the committed records; a
+ * sealed segment is followed by the next segment. The name of the segment contains the sequence number of the first
+ * record, so the names are ordered.
+ * </p>
+ * <p>
+ * The records and the header are written by plain stores of the mapped buffer. For the readers of the same JVM the
+ * committed count and the sealed flag are published by volatile fields of a {@link Publication}, which is shared by all
+ * segments of the same file. The volatile write of the count follows the writes of the records, so a reader which sees
+ * the count also sees the records. Readers of another process read the header of the file.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+final class JournalSegment {
+
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 16;
+
+    private static final int MAGIC = 0x53584a31;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int COMMITTED_OFFSET = 8;
+    private static final int SEALED_OFFSET = 12;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".sxj";
+
+    /**
+     * Publications of the segments which are written by this JVM, by the absolute path of the file.
+     */
+    private static final Map<Path, Publication> PUBLICATIONS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final long firstSequence;
+    private final MappedByteBuffer buffer;
+    /**
+     * Publication of the writer of this JVM or {@code null} if the segment is written by another process.
+     */
+    private final Publication publication;
+
+    private JournalSegment(Path file, long firstSequence, MappedByteBuffer buffer, Publication publication) {
+        this.file = file;
+        this.firstSequence = firstSequence;
+        this.buffer = buffer;
+        this.publication = publication;
+    }
+
+    /**
+     * Create new segment to write.
+     *
+     * @param directory directory of the journal
+     * @param firstSequence sequence number of the first record
+     * @param capacity number of records
+     * @return {@link JournalSegment}
+     * @throws IOException can't create the file
+     */
+    static JournalSegment create(Path directory, long firstSequence, int capacity) throws IOException {
+        Path file = directory.resolve(fileName(firstSequence));
+        // published before the file exists, so each reader of this JVM uses the publication
+        Publication publication = new Publication();
+        PUBLICATIONS.put(key(file), publication);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            return new JournalSegment(file, firstSequence, buffer, publication);
+        } catch (IOException e) {
+            PUBLICATIONS.remove(key(file), publication);
+            throw e;
+        }
+    }
+
+    /**
+     * Open existing segment.
+     *
+     * @param file file of the segment
+     * @param writable {@code true} to change the header
+     * @return {@link JournalSegment} or {@code null} if the segment isn't initialized yet by the writer
+     * @throws IOException can't read the file
+     */
+    static JournalSegment open(Path file, boolean writable) throws IOException {
+        try (FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE
+                    : FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+                return null;
+            }
+            Publication publication;
+            if (writable) {
+                // the header is changed by this JVM from now on
+                publication = PUBLICATIONS.computeIfAbsent(key(file), key -> new Publication(
+                        buffer.getInt(COMMITTED_OFFSET), buffer.getInt(SEALED_OFFSET) != 0));
+            } else {
+                publication = PUBLICATIONS.get(key(file));
+            }
+            return new JournalSegment(file, sequenceOf(file), buffer, publication);
+        }
+    }
+
+    /**
+     * Segment files of the directory ordered by the sequence number of the first record.
+     *
+     * @param directory directory of the journal
+     * @return files of the segments
+     * @throws IOException can't list the directory
+     */
+    static List<Path> list(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Delete the file of the segment.
+     *
+     * @param file file of the segment
+     * @throws IOException can't delete the file
+     */
+    static void delete(Path file) throws IOException {
+        PUBLICATIONS.remove(key(file));
+        Files.deleteIfExists(file);
+    }
+
+    static String fileName(long firstSequence) {
+        return String.format("%s%019d%s", PREFIX, firstSequence, SUFFIX);
+    }
+
+    private static Path key(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+
+    static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    int getCapacity() {
+        return buffer.getInt(CAPACITY_OFFSET);
+    }
+
+    int getCommitted() {
+        return publication != null ? publication.committed : buffer.getInt(COMMITTED_OFFSET);
+    }
+
+    boolean isSealed() {
+        return publication != null ? publication.sealed : buffer.getInt(SEALED_OFFSET) != 0;
+    }
+
+    /**
+     * Write the record at the given index. Visible for the readers after the {@link #commit(int)}.
+     *
+     * @param index index of the record in the segment
+     * @param event {@link BusChangeEvent}
+     */
+    void write(int index, BusChangeEvent event) {
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+        buffer.putLong(offset, event.getTimestamp());
+        buffer.put(offset + 8, (byte) event.getBus());
+        buffer.put(offset + 9, (byte) event.getAddress());
+        buffer.put(offset + 10, (byte) event.getOldValue());
+        buffer.put(offset + 11, (byte) event.getNewValue());
+        buffer.put(offset + 12, (byte) event.getSource().ordinal());
+    }
+
+    /**
+     * Read the record at the given index.
+     *
+     * @param index index of the record in the segment
+     * @return {@link BusChangeEvent}
+     */
+    BusChangeEvent read(int index) {
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+        return new BusChangeEvent(buffer.get(offset + 8) & 0xff, buffer.get(offset + 9) & 0xff,
+                buffer.get(offset + 10) & 0xff, buffer.get(offset + 11) & 0xff, buffer.getLong(offset),
+                BusChangeSource.values()[buffer.get(offset + 12)]);
+    }
+
+    /**
+     * Publish the written records to the readers.
+     *
+     * @param committed number of the written records
+     */
+    void commit(int committed) {
+        buffer.putInt(COMMITTED_OFFSET, committed);
+        if (publication != null) {
+            // release of the written records for the readers of this JVM
+            publication.committed = committed;
+        }
+    }
+
+    /**
+     * Mark the segment as complete and write it to the storage.
+     */
+    void seal() {
+        buffer.putInt(SEALED_OFFSET, 1);
+        buffer.force();
+        if (publication != null) {
+            publication.sealed = true;
+        }
+    }
+
+    /**
+     * Committed count and sealed flag of a segment which is written by this JVM.
+     */
+    private static final class Publication {
+
+        private volatile int committed;
+        private volatile boolean sealed;
+
+        Publication() {
+            this(0, false);
+        }
+
+        Publication(int committed, boolean sealed) {
+            this.committed = committed;
+            this.sealed = sealed;
+        }
+    }
+}
@@ -1,29 +1,40 @@
 package net.wbz.selectrix4java.device;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import java.math.BigInteger;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import net.wbz.selectrix4java.Module;
 import net.wbz.selectrix4java.block.BlockModule;
 import net.wbz.selectrix4java.block.FeedbackBlockModule;
+import net.wbz.selectrix4java.block.OccupancyMap;
+import net.wbz.selectrix4java.block.TrainLocationIndex;
+import net.wbz.selectrix4java.bus.BitDiff;
 import net.wbz.selectrix4java.bus.BusAddress;
 import net.wbz.selectrix4java.bus.BusAddressBitListener;
 import net.wbz.selectrix4java.bus.BusAddressListener;
 import net.wbz.selectrix4java.bus.BusDataDispatcher;
+import net.wbz.selectrix4java.bus.BusSnapshot;
+import net.wbz.selectrix4java.bus.ReflexRule;
 import net.wbz.selectrix4java.bus.consumption.AbstractBusDataConsumer;
+import net.wbz.selectrix4java.data.BusData;
 import net.wbz.selectrix4java.data.BusDataChannel;
+import net.wbz.selectrix4java.data.BusUpdate;
+import net.wbz.selectrix4java.data.FccProtocol;
+import net.wbz.selectrix4java.data.InterfaceProtocol;
+import net.wbz.selectrix4java.data.PollingTier;
+import net.wbz.selectrix4java.data.WriteResult;
 import net.wbz.selectrix4java.data.recording.BusDataRecorder;
 import net.wbz.selectrix4java.data.recording.IsRecordable;
 import net.wbz.selectrix4java.data.recording.RecordingException;
+import net.wbz.selectrix4java.executor.ExecutorProvider;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
 import net.wbz.selectrix4java.train.TrainModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,30 +55,83 @@ public abstract class AbstractDevice implements Device, IsRecordable {
      */
     private static final int RAILVOLTAGE_ADDRESS = 109;
     private static final int RAILVOLTAGE_BIT = 8;
+    /**
+     * Bit 1-5 of the address 110 for the system format.
+     */
+    private static final int SYSTEM_FORMAT_MASK = 0x1f;
     private static final Logger log = LoggerFactory.getLogger(AbstractDevice.class);
+    /**
+     * Delay before the first reconnect of a lost connection. Doubled for each further attempt.
+     */
+    private static final long RECONNECT_INITIAL_DELAY_IN_MS = 500L;
+    /**
+     * Maximum delay between the reconnect attempts.
+     */
+    private static final long RECONNECT_MAX_DELAY_IN_MS = 30000L;
 
+    /**
+     * Provider of the threads of the dispatcher, the channel and the reconnect.
+     */
+    private final ExecutorProvider executorProvider;
     /**
      * Corresponding dispatcher to read the bus and dispatch the data ot the customers.
      */
-    private final BusDataDispatcher busDataDispatcher = new BusDataDispatcher();
+    private final BusDataDispatcher busDataDispatcher;
     /**
      * Recorder to implement {@link net.wbz.selectrix4java.data.recording.IsRecordable}.
      */
     private final BusDataRecorder busDataRecorder = new BusDataRecorder();
     /**
-     * Used {@link net.wbz.selectrix4java.bus.BusAddress}s with descriptor as {@link java.lang.String} in the format
-     * 'bus:address'. Single instance of each address to prevent event-traffic.
+     * Used {@link net.wbz.selectrix4java.bus.BusAddress}s by bus and address. Single instance of each address to
+     * prevent event-traffic.
+     */
+    private final AddressTable<BusAddress> busAddresses = new AddressTable<>();
+    /**
+     * Used {@link net.wbz.selectrix4java.Module}s by type, bus and address. Single instance of each module to prevent
+     * event-traffic.
      */
-    private final Map<String, BusAddress> busAddresses = Maps.newConcurrentMap();
+    private final ModuleRegistry modules = new ModuleRegistry();
     /**
-     * Used {@link net.wbz.selectrix4java.bus.BusAddress}s with descriptor as {@link java.lang.String} in the format
-     * 'bus:address'. Single instance of each module to prevent event-traffic.
+     * Locations of the trains detected by all {@link FeedbackBlockModule}s.
      */
-    private final Map<String, Module> modules = Maps.newHashMap();
+    private final TrainLocationIndex trainLocationIndex = new TrainLocationIndex();
+    /**
+     * Occupied states of the blocks of all {@link BlockModule}s.
+     */
+    private final OccupancyMap occupancyMap = new OccupancyMap();
+    /**
+     * Polling tiers derived from the type of the modules, kept for the channel of a reconnect.
+     */
+    private final AddressTable<PollingTier> derivedPollingTiers = new AddressTable<>();
+    /**
+     * Polling tiers set explicitly, see {@link #setPollingTier(int, int, PollingTier)}. Kept by the disconnect.
+     */
+    private final AddressTable<PollingTier> explicitPollingTiers = new AddressTable<>();
     /**
      * Channel to send signals to the connected bus.
      */
-    private BusDataChannel busDataChannel;
+    private volatile BusDataChannel busDataChannel;
+    /**
+     * Executor to reconnect a lost connection. Created by the connect and shut down by the disconnect.
+     */
+    private ScheduledExecutorService reconnectExecutor;
+    /**
+     * Lock for the reconnect and the disconnect of the device.
+     */
+    private final Object reconnectLock = new Object();
+    /**
+     * Lock for the changes of the reflex rules and the tier of their trigger addresses.
+     */
+    private final Object reflexRuleLock = new Object();
+    /**
+     * Flag to reconnect a lost connection.
+     */
+    private volatile boolean autoReconnect = true;
+    /**
+     * Flag for a lost connection which is reconnected.
+     */
+    private volatile boolean reconnecting = false;
+    private ScheduledFuture<?> reconnectTask;
     /**
      * Registered listener of {@link DeviceConnectionListener}. Usage of {@link java.util.Queue} for synchronization to
      * remove listener while event handling is in progress.
@@ -80,17 +144,87 @@ public abstract class AbstractDevice implements Device, IsRecordable {
      */
     private final Queue<RailVoltageListener> railVoltageListeners = new ConcurrentLinkedQueue<>();
 
+    /**
+     * Create device which uses the default {@link ExecutorProvider}.
+     */
+    protected AbstractDevice() {
+        this(ExecutorProviders.getDefault());
+    }
+
+    /**
+     * Create device which uses the threads of the given provider, e.g. to run several devices with virtual threads.
+     *
+     * @param executorProvider {@link ExecutorProvider}
+     */
+    protected AbstractDevice(ExecutorProvider executorProvider) {
+        this.executorProvider = executorProvider;
+        busDataDispatcher = new BusDataDispatcher(executorProvider);
+        busDataDispatcher.addReadReceiver(occupancyMap);
+    }
+
+    /**
+     * Provider of the threads of the device. The implementations create the channel with the threads of this provider.
+     *
+     * @return {@link ExecutorProvider}
+     */
+    public ExecutorProvider getExecutorProvider() {
+        return executorProvider;
+    }
+
     /**
      * Open the connection for the device.
      */
     @Override
     public void connect() throws DeviceAccessException {
         log.info("connect device");
+        synchronized (reconnectLock) {
+            if (reconnectExecutor == null) {
+                reconnectExecutor = executorProvider.newSingleThreadScheduledExecutor("device-reconnect");
+            }
+        }
+        openChannel(null);
+
+        initSystemFormatListener();
+
+        initRailVoltageListener();
+    }
+
+    /**
+     * Connect the device and start the channel.
+     *
+     * @param lostChannel channel of the lost connection to take over the configuration or {@code null}
+     * @throws DeviceAccessException no access
+     */
+    private void openChannel(BusDataChannel lostChannel) throws DeviceAccessException {
+        final BusDataChannel channel;
+        busDataDispatcher.setProtocol(getProtocol());
         try {
-            busDataChannel = doConnect(busDataDispatcher);
+            channel = doConnect(busDataDispatcher);
         } catch (Exception e) {
             throw new DeviceAccessException("can't connect", e);
         }
+        if (lostChannel != null) {
+            channel.takeOverWriteVerification(lostChannel);
+        }
+        if (isRecording()) {
+            channel.addBusDataReceiver(busDataRecorder);
+        }
+        for (BusAddress busAddress : busAddresses.values()) {
+            int bus = busAddress.getBus();
+            int address = busAddress.getAddress();
+            channel.watchAddress(bus, address);
+            PollingTier derivedTier = derivedPollingTiers.get(bus, address);
+            if (derivedTier != null) {
+                channel.watchAddress(bus, address, derivedTier);
+            }
+        }
+        for (ReflexRule rule : busDataDispatcher.getReflexRules()) {
+            channel.watchAddress(rule.getBus(), rule.getAddress(), PollingTier.HOT);
+        }
+        explicitPollingTiers.forEach(channel::setPollingTier);
+        busDataDispatcher.setReflexWriter(channel::updateFirst);
+        busDataChannel = channel;
+        reconnecting = false;
 
         log.info("device connected");
         for (final DeviceConnectionListener listener : listeners) {
@@ -100,21 +234,104 @@ public abstract class AbstractDevice implements Device, IsRecordable {
             }).run();
         }
 
-        busDataChannel.setCallback(() -> {
-            log.info("device connection lost");
-            for (final DeviceConnectionListener listener : listeners) {
-                new FutureTask<>((Callable<Void>) () -> {
-                    listener.disconnected(AbstractDevice.this);
-                    return null;
-                }).run();
+        channel.setCallback(new BusDataChannel.ChannelStateCallback() {
+            @Override
+            public void channelClosed() {
+                log.info("device connection lost");
+                fireDisconnected();
+            }
+
+            @Override
+            public void channelLost() {
+                log.warn("device connection lost by errors");
+                if (autoReconnect) {
+                    // before the listeners are informed, so they can check the reconnect
+                    synchronized (reconnectLock) {
+                        if (busDataChannel == channel) {
+                            busDataChannel = null;
+                            reconnecting = true;
+                            scheduleReconnect(channel, 1);
+                        }
+                    }
+                }
+                fireDisconnected();
             }
         });
 
-        busDataChannel.start();
+        channel.start();
+    }
 
-        initSystemFormatListener();
+    private void fireDisconnected() {
+        for (final DeviceConnectionListener listener : listeners) {
+            new FutureTask<>((Callable<Void>) () -> {
+                listener.disconnected(AbstractDevice.this);
+                return null;
+            }).run();
+        }
+    }
 
-        initRailVoltageListener();
+    /**
+     * Schedule the next attempt to reconnect the lost connection.
+     *
+     * @param lostChannel channel of the lost connection
+     * @param attempt number of the attempt
+     */
+    private void scheduleReconnect(final BusDataChannel lostChannel, final int attempt) {
+        long delay = Math.min(RECONNECT_INITIAL_DELAY_IN_MS << Math.min(attempt - 1, 16), RECONNECT_MAX_DELAY_IN_MS);
+        if (reconnectExecutor == null) {
+            // disconnected in the meantime
+            return;
+        }
+        log.info("reconnect device in {} ms (attempt {})", delay, attempt);
+        reconnectTask = reconnectExecutor.schedule(() -> reconnect(lostChannel, attempt), delay,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reopen the lost connection. All addresses, modules and consumers are kept. The dispatcher compares the first read
+     * of the new connection with the last read of the lost connection, so only the changes during the reconnect are
+     * fired.
+     *
+     * @param lostChannel channel of the lost connection
+     * @param attempt number of the attempt
+     */
+    private void reconnect(BusDataChannel lostChannel, int attempt) {
+        synchronized (reconnectLock) {
+            if (!reconnecting) {
+                // disconnected in the meantime
+                return;
+            }
+            try {
+                doDisconnect();
+            } catch (RuntimeException e) {
+                log.debug("error to close the lost connection", e);
+            }
+            try {
+                openChannel(lostChannel);
+                log.info("device reconnected after {} attempts", attempt);
+            } catch (DeviceAccessException e) {
+                log.warn("reconnect failed (attempt {}): {}", attempt, e.getMessage());
+                scheduleReconnect(lostChannel, attempt + 1);
+            }
+        }
+    }
+
+    /**
+     * Enable or disable the reconnect of a connection which is lost by errors of the device access. Enabled by default.
+     *
+     * @param autoReconnect {@code true} to reconnect
+     */
+    public void setAutoReconnect(boolean autoReconnect) {
+        this.autoReconnect = autoReconnect;
+    }
+
+    /**
+     * Check for a lost connection which is actually reconnected.
+     *
+     * @return {@code true} during the reconnect
+     */
+    public boolean isReconnecting() {
+        return reconnecting;
     }
 
     private void initRailVoltageListener() throws DeviceAccessException {
@@ -158,33 +375,33 @@ public abstract class AbstractDevice implements Device, IsRecordable {
     }
 
     /**
-     * Return all registered {@link FeedbackBlockModule}s.
+     * Return all registered {@link BlockModule}s including the {@link FeedbackBlockModule}s.
      *
-     * @return modules
+     * @return unmodifiable view of the modules
      */
     protected List<BlockModule> getBlockModules() {
-        List<BlockModule> blockModules = new ArrayList<>();
-        for (Module module : modules.values()) {
-            if (module instanceof BlockModule) {
-                blockModules.add((BlockModule) module);
-            }
-        }
-        return blockModules;
+        return getModules(BlockModule.class);
     }
 
     /**
      * Return all registered {@link FeedbackBlockModule}s.
      *
-     * @return modules
+     * @return unmodifiable view of the modules
      */
     protected List<FeedbackBlockModule> getFeedbackBlockModules() {
-        List<FeedbackBlockModule> feedbackBlockModules = new ArrayList<>();
-        for (Module module : modules.values()) {
-            if (module instanceof FeedbackBlockModule) {
-                feedbackBlockModules.add((FeedbackBlockModule) module);
-            }
-        }
-        return feedbackBlockModules;
+        return getModules(FeedbackBlockModule.class);
+    }
+
+    /**
+     * Return all registered modules of the given type including the modules of sub types. The returned list is a live
+     * view which is lock-free to iterate and updated by the creation of new modules.
+     *
+     * @param type type of the modules (e.g. {@link TrainModule})
+     * @param <T> type of module
+     * @return unmodifiable view of the modules
+     */
+    public <T extends Module> List<T> getModules(Class<T> type) {
+        return modules.getModules(type);
     }
 
     private void initSystemFormatListener() throws DeviceAccessException {
@@ -192,11 +409,9 @@ public abstract class AbstractDevice implements Device, IsRecordable {
 
             @Override
             public void dataChanged(byte oldValue, byte newValue) {
-
-                BigInteger wrappedOldValue = BigInteger.valueOf(oldValue);
-                BigInteger wrappedNewValue = BigInteger.valueOf(newValue);
-                int oldSystemFormat = wrappedOldValue.clearBit(5).clearBit(6).clearBit(7).intValue() & 0xff;
-                int newSystemFormat = wrappedNewValue.clearBit(5).clearBit(6).clearBit(7).intValue() & 0xff;
+                // bit 1-5
+                int oldSystemFormat = oldValue & SYSTEM_FORMAT_MASK;
+                int newSystemFormat = newValue & SYSTEM_FORMAT_MASK;
 
                 if (oldSystemFormat != newSystemFormat) {
                     fireSystemFormat(convertSystemFormat(newSystemFormat));
@@ -252,6 +467,15 @@ public abstract class AbstractDevice implements Device, IsRecordable {
         return systemFormat;
     }
 
+    /**
+     * Protocol of the interface. Used for the channel created by {@link #doConnect(BusDataDispatcher)}.
+     *
+     * @return {@link InterfaceProtocol}, FCC by default
+     */
+    protected InterfaceProtocol getProtocol() {
+        return FccProtocol.INSTANCE;
+    }
+
     /**
      * Establish the connection to the OS and return the {@link net.wbz.selectrix4java.data.BusDataChannel} for the open
      * streams.
@@ -267,11 +491,23 @@ public abstract class AbstractDevice implements Device, IsRecordable {
      */
     @Override
     public void disconnect() throws DeviceAccessException {
-        log.debug("close channel");
-        if (busDataChannel != null) {
-            busDataChannel.shutdownNow();
+        synchronized (reconnectLock) {
+            reconnecting = false;
+            if (reconnectTask != null) {
+                reconnectTask.cancel(false);
+                reconnectTask = null;
+            }
+            if (reconnectExecutor != null) {
+                reconnectExecutor.shutdown();
+                reconnectExecutor = null;
+            }
         }
+        log.debug("close channel");
+        BusDataChannel channel = busDataChannel;
         busDataChannel = null;
+        if (channel != null) {
+            channel.shutdownNow();
+        }
         log.info("disconnecting device");
 
         try {
@@ -288,8 +524,11 @@ public abstract class AbstractDevice implements Device, IsRecordable {
 
         } finally {
             modules.clear();
-            // address after train because the train map has the address as key
+            // address after modules because the modules hold the addresses
             busAddresses.clear();
+            derivedPollingTiers.clear();
+            trainLocationIndex.clear();
+            occupancyMap.clear();
             busDataDispatcher.reset();
         }
     }
@@ -308,85 +547,187 @@ public abstract class AbstractDevice implements Device, IsRecordable {
      * @return {@link net.wbz.selectrix4java.bus.BusAddress}
      */
     @Override
-    public synchronized BusAddress getBusAddress(int bus, int address) throws DeviceAccessException {
+    public BusAddress getBusAddress(int bus, int address) throws DeviceAccessException {
         checkConnected();
 
-        String busAddressIdentifier = createIdentifier(bus, address, null);
-        if (!busAddresses.containsKey(busAddressIdentifier)) {
-            BusAddress busAddress = new BusAddress(bus, address, busDataChannel);
-            busDataDispatcher.registerConsumer(busAddress.getConsumer());
-            busAddresses.put(busAddressIdentifier, busAddress);
+        BusAddress busAddress = busAddresses.get(bus, address);
+        if (busAddress == null) {
+            BusAddress newBusAddress = new BusAddress(bus, address, this::getBusDataChannel);
+            busAddress = busAddresses.putIfAbsent(bus, address, newBusAddress);
+            if (busAddress == null) {
+                // only the winner of a concurrent creation register the consumer
+                busDataDispatcher.registerConsumer(newBusAddress.getConsumer());
+                BusDataChannel channel = busDataChannel;
+                if (channel != null) {
+                    channel.watchAddress(bus, address);
+                }
+                busAddress = newBusAddress;
+            }
         }
-        return busAddresses.get(busAddressIdentifier);
+        return busAddress;
     }
 
     private void checkConnected() throws DeviceAccessException {
-        if (!isConnected()) {
+        // addresses are also available during the reconnect
+        if (!isConnected() && !reconnecting) {
             throw new DeviceAccessException("serial device not connected");
         }
     }
 
-    private String createIdentifier(int bus, int address, Class<? extends Module> moduleClass) {
-        return String.format("%d:%d:%s", bus, address, moduleClass != null ? moduleClass.getName() : "");
-    }
-
     /**
      * Get {@link net.wbz.selectrix4java.train.TrainModule} with actual data for the address.
-     * Module is created by the first access and cached for future access.
+     * Module is created by the first access and cached for future access. Additional addresses which are given for an
+     * already existing module are added to the existing module.
      *
      * @param address address of the train
      * @param additionalAddresses additional function address
      * @return {@link net.wbz.selectrix4java.train.TrainModule}
      */
     @Override
-    public synchronized TrainModule getTrainModule(int address, int... additionalAddresses) throws
-            DeviceAccessException {
+    public TrainModule getTrainModule(int address, int... additionalAddresses) throws DeviceAccessException {
         if (address >= 0) {
             final int bus = 0;
-            String busAddressIdentifier = createIdentifier(bus, address, TrainModule.class);
+            TrainModule trainModule = modules.getOrCreate(TrainModule.class, bus, address,
+                    () -> new TrainModule(getBusAddress(bus, address)));
             if (additionalAddresses != null) {
-                busAddressIdentifier += "-additional: " + Arrays.toString(additionalAddresses);
-            }
-            if (!modules.containsKey(String.valueOf(busAddressIdentifier))) {
-                List<BusAddress> additionalBusAddresses = Lists.newArrayList();
-                if (additionalAddresses != null) {
-                    for (int additionalAddress : additionalAddresses) {
-                        additionalBusAddresses.add(getBusAddress(bus, additionalAddress));
-                    }
+                for (int additionalAddress : additionalAddresses) {
+                    trainModule.addAdditionalAddress(getBusAddress(bus, additionalAddress));
                 }
-                TrainModule trainModule = new TrainModule(getBusAddress(bus, address),
-                        additionalBusAddresses.toArray(new BusAddress[0]));
-                modules.put(busAddressIdentifier, trainModule);
             }
-            return (TrainModule) modules.get(busAddressIdentifier);
+            return trainModule;
         }
         throw new DeviceAccessException("train with id lower than zero is invalid!");
     }
 
     @Override
-    public synchronized BlockModule getBlockModule(int address) throws DeviceAccessException {
-        int bus = 1;
-        String busAddressIdentifier = createIdentifier(bus, address, BlockModule.class);
-        if (!modules.containsKey(String.valueOf(busAddressIdentifier))) {
-            BlockModule blockModule = new BlockModule(getBusAddress(bus, address));
+    public BlockModule getBlockModule(int address) throws DeviceAccessException {
+        final int bus = 1;
+        return modules.getOrCreate(BlockModule.class, bus, address, () -> {
+            BlockModule blockModule = new BlockModule(getBusAddress(bus, address), occupancyMap);
+            // occupancy of the blocks
+            watch(bus, address, PollingTier.HOT);
             busDataDispatcher.registerConsumers(blockModule.getConsumers());
-            modules.put(busAddressIdentifier, blockModule);
-        }
-        return (BlockModule) modules.get(busAddressIdentifier);
+            return blockModule;
+        });
     }
 
     @Override
-    public synchronized FeedbackBlockModule getFeedbackBlockModule(int address, int feedbackAddress,
+    public FeedbackBlockModule getFeedbackBlockModule(int address, int feedbackAddress,
             int additionalAddress) throws DeviceAccessException {
-        int bus = 1;
-        String busAddressIdentifier = createIdentifier(bus, address, FeedbackBlockModule.class);
-        if (!modules.containsKey(busAddressIdentifier)) {
+        final int bus = 1;
+        return modules.getOrCreate(FeedbackBlockModule.class, bus, address, () -> {
             FeedbackBlockModule blockModule = new FeedbackBlockModule(getBusAddress(bus, address),
-                    getBusAddress(bus, feedbackAddress), getBusAddress(bus, additionalAddress));
+                    getBusAddress(bus, feedbackAddress), getBusAddress(bus, additionalAddress),
+                    trainLocationIndex, occupancyMap);
+            // occupancy and feedback of the blocks
+            watch(bus, address, PollingTier.HOT);
+            watch(bus, feedbackAddress, PollingTier.HOT);
+            watch(bus, additionalAddress, PollingTier.HOT);
             busDataDispatcher.registerConsumers(blockModule.getConsumers());
-            modules.put(busAddressIdentifier, blockModule);
+            return blockModule;
+        });
+    }
+
+    /**
+     * Add the rule to the dispatcher and read the trigger address with the {@link PollingTier#HOT} tier. The rules are
+     * kept by the disconnect.
+     *
+     * @param rule {@link ReflexRule}
+     */
+    @Override
+    public void addReflexRule(ReflexRule rule) {
+        synchronized (reflexRuleLock) {
+            busDataDispatcher.addReflexRule(rule);
+            BusDataChannel channel = busDataChannel;
+            if (channel != null) {
+                channel.watchAddress(rule.getBus(), rule.getAddress(), PollingTier.HOT);
+            }
+        }
+    }
+
+    /**
+     * Remove the rule from the dispatcher. The trigger address of the last rule for the address is read with the tier
+     * it had without the rules again.
+     *
+     * @param rule {@link ReflexRule}
+     */
+    @Override
+    public void removeReflexRule(ReflexRule rule) {
+        synchronized (reflexRuleLock) {
+            if (busDataDispatcher.removeReflexRule(rule)) {
+                BusDataChannel channel = busDataChannel;
+                if (channel != null) {
+                    resetPollingTier(channel, rule.getBus(), rule.getAddress());
+                }
+            }
+        }
+    }
+
+    @Override
+    public TrainLocationIndex getTrainLocationIndex() {
+        return trainLocationIndex;
+    }
+
+    @Override
+    public OccupancyMap getOccupancyMap() {
+        return occupancyMap;
+    }
+
+    /**
+     * Read the address with the given tier derived from the type of the module.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param tier {@link PollingTier}
+     */
+    private void watch(int bus, int address, PollingTier tier) {
+        if (derivedPollingTiers.putIfAbsent(bus, address, tier) != null) {
+            return;
+        }
+        BusDataChannel channel = busDataChannel;
+        if (channel != null) {
+            channel.watchAddress(bus, address, tier);
+        }
+    }
+
+    /**
+     * Set the tier of the address to the explicit tier, the tier derived from the modules or the default tier of an
+     * address which is used by a {@link BusAddress}. Other addresses aren't read anymore.
+     *
+     * @param channel {@link BusDataChannel} of the connected device
+     * @param bus number of bus
+     * @param address address of bus
+     */
+    private void resetPollingTier(BusDataChannel channel, int bus, int address) {
+        PollingTier tier = explicitPollingTiers.get(bus, address);
+        if (tier == null) {
+            tier = derivedPollingTiers.get(bus, address);
+        }
+        if (tier == null && busAddresses.get(bus, address) != null) {
+            tier = PollingTier.NORMAL;
+        }
+        if (tier != null) {
+            channel.setPollingTier(bus, address, tier);
+        } else {
+            channel.unwatchAddress(bus, address);
+        }
+    }
+
+    /**
+     * Set the tier to read the given address for interfaces which can read single addresses. Overrides the tier which
+     * is derived from the type of the modules, e.g. {@link PollingTier#HOT} for the occupancy of the blocks.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param tier {@link PollingTier}
+     * @see BusDataChannel#setPollingTier(int, int, PollingTier)
+     */
+    public void setPollingTier(int bus, int address, PollingTier tier) {
+        explicitPollingTiers.put(bus, address, tier);
+        BusDataChannel channel = busDataChannel;
+        if (channel != null) {
+            channel.setPollingTier(bus, address, tier);
         }
-        return (FeedbackBlockModule) modules.get(busAddressIdentifier);
     }
 
     /**
@@ -396,20 +737,21 @@ public abstract class AbstractDevice implements Device, IsRecordable {
      */
     @Override
     public boolean getRailVoltage() throws DeviceAccessException {
-        return BigInteger.valueOf(getRailVoltageAddress().getData()).testBit(RAILVOLTAGE_BIT);
+        return BitDiff.isSet(getRailVoltageAddress().getData(), RAILVOLTAGE_BIT);
     }
 
     /**
      * Change rail voltage.
      *
      * @param state {@link java.lang.Boolean} state
+     * @return future completed with the {@link WriteResult} of the write
      */
-    public void setRailVoltage(boolean state) throws DeviceAccessException {
+    public CompletableFuture<WriteResult> setRailVoltage(boolean state) throws DeviceAccessException {
         BusAddress busAddress = getBusAddress(1, (byte) 255);
         if (state) {
-            busAddress.sendData((byte) 1);
+            return busAddress.sendData((byte) 1);
         } else {
-            busAddress.sendData((byte) 0);
+            return busAddress.sendData((byte) 0);
         }
     }
 
@@ -430,7 +772,30 @@ public abstract class AbstractDevice implements Device, IsRecordable {
 
     @Override
     public void sendNative(byte[] data) {
-        busDataChannel.send(data);
+        BusDataChannel channel = busDataChannel;
+        if (channel != null) {
+            channel.send(data);
+        } else {
+            log.warn("no channel connected to send native data");
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<WriteResult>> sendGroup(List<BusData> group) throws DeviceAccessException {
+        BusDataChannel channel = busDataChannel;
+        if (channel == null) {
+            throw new DeviceAccessException("no channel connected");
+        }
+        return channel.sendGroup(group);
+    }
+
+    @Override
+    public CompletableFuture<List<WriteResult>> updateGroup(List<BusUpdate> group) throws DeviceAccessException {
+        BusDataChannel channel = busDataChannel;
+        if (channel == null) {
+            throw new DeviceAccessException("no channel connected");
+        }
+        return channel.updateGroup(group);
     }
 
     @Override
@@ -440,8 +805,7 @@ public abstract class AbstractDevice implements Device, IsRecordable {
 
     @Override
     public SYSTEM_FORMAT getActualSystemFormat() throws DeviceAccessException {
-        BigInteger wrappedData = BigInteger.valueOf(getBusAddress(0, (byte) 110).getData());
-        return convertSystemFormat(wrappedData.clearBit(5).clearBit(6).clearBit(7).intValue() & 0xff);
+        return convertSystemFormat(getBusAddress(0, (byte) 110).getData() & SYSTEM_FORMAT_MASK);
     }
 
     @Override
@@ -449,6 +813,11 @@ public abstract class AbstractDevice implements Device, IsRecordable {
         return busDataChannel;
     }
 
+    @Override
+    public BusSnapshot getBusSnapshot() {
+        return busDataDispatcher.getSnapshot();
+    }
+
     /**
      * Dispatcher for the read and write operation of the device. Used to register {@link AbstractBusDataConsumer}s.
      * Dispatcher is also available in offline mode and will inform all consumers after an connection is established.
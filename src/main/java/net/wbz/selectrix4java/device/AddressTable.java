@@ -0,0 +1,158 @@
+package net.wbz.selectrix4java.device;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Flat table for values which are identified by the bus and address. The slot of each value is the primitive index
+ * {@code bus * 113 + address}, preallocated for the SX bus 0 and 1. Reads are lock-free and don't allocate.
+ * <p>
+ * Addresses outside of the SX range (e.g. the special command address 255 of the FCC) are stored in an overflow map.
+ * </p>
+ *
+ * @param <T> type of the stored values
+ * @author Daniel Tuerk
+ */
+class AddressTable<T> {
+
+    /**
+     * Number of addresses for each SX bus.
+     */
+    static final int ADDRESSES_PER_BUS = 113;
+    /**
+     * Number of SX buses which are preallocated in the table.
+     */
+    static final int BUS_COUNT = 2;
+
+    private final AtomicReferenceArray<T> table = new AtomicReferenceArray<>(BUS_COUNT * ADDRESSES_PER_BUS);
+
+    /**
+     * Values for addresses outside of the preallocated table. Key is created by {@link #overflowKey(int, int)}.
+     */
+    private final Map<Integer, T> overflow = new ConcurrentHashMap<>();
+
+    /**
+     * Index of the slot in the table for the given bus and address.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @return index or {@code -1} if the address isn't part of the preallocated table
+     */
+    static int index(int bus, int address) {
+        if (bus >= 0 && bus < BUS_COUNT && address >= 0 && address < ADDRESSES_PER_BUS) {
+            return bus * ADDRESSES_PER_BUS + address;
+        }
+        return -1;
+    }
+
+    private static int overflowKey(int bus, int address) {
+        return (bus << 16) | (address & 0xffff);
+    }
+
+    /**
+     * Value for the given bus and address.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @return stored value or {@code null}
+     */
+    T get(int bus, int address) {
+        int index = index(bus, address);
+        if (index >= 0) {
+            return table.get(index);
+        }
+        return overflow.get(overflowKey(bus, address));
+    }
+
+    /**
+     * Store the given value if no value is present for the bus and address.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param value value to store
+     * @return already present value or {@code null} if the given value was stored
+     */
+    T putIfAbsent(int bus, int address, T value) {
+        int index = index(bus, address);
+        if (index >= 0) {
+            if (table.compareAndSet(index, null, value)) {
+                return null;
+            }
+            return table.get(index);
+        }
+        return overflow.putIfAbsent(overflowKey(bus, address), value);
+    }
+
+    /**
+     * Store the given value for the bus and address.
+     *
+     * @param bus number of bus
+     * @param address address of bus
+     * @param value value to store
+     */
+    void put(int bus, int address, T value) {
+        int index = index(bus, address);
+        if (index >= 0) {
+            table.set(index, value);
+        } else {
+            overflow.put(overflowKey(bus, address), value);
+        }
+    }
+
+    /**
+     * Call the given consumer for each stored value with the bus and address of the value.
+     *
+     * @param consumer {@link EntryConsumer}
+     */
+    void forEach(EntryConsumer<T> consumer) {
+        for (int i = 0; i < table.length(); i++) {
+            T value = table.get(i);
+            if (value != null) {
+                consumer.accept(i / ADDRESSES_PER_BUS, i % ADDRESSES_PER_BUS, value);
+            }
+        }
+        for (Map.Entry<Integer, T> entry : overflow.entrySet()) {
+            consumer.accept(entry.getKey() >>> 16, entry.getKey() & 0xffff, entry.getValue());
+        }
+    }
+
+    /**
+     * All stored values.
+     *
+     * @return list of values
+     */
+    List<T> values() {
+        List<T> values = new ArrayList<>();
+        for (int i = 0; i < table.length(); i++) {
+            T value = table.get(i);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        values.addAll(overflow.values());
+        return values;
+    }
+
+    /**
+     * Remove all values.
+     */
+    void clear() {
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, null);
+        }
+        overflow.clear();
+    }
+
+    /**
+     * Consumer of a stored value and its bus and address.
+     *
+     * @param <T> type of the stored values
+     */
+    interface EntryConsumer<T> {
+
+        void accept(int bus, int address, T value);
+    }
+}
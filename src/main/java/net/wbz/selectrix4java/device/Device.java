@@ -1,12 +1,21 @@
 package net.wbz.selectrix4java.device;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import net.wbz.selectrix4java.block.BlockModule;
 import net.wbz.selectrix4java.block.FeedbackBlockModule;
+import net.wbz.selectrix4java.block.OccupancyMap;
+import net.wbz.selectrix4java.block.TrainLocationIndex;
 import net.wbz.selectrix4java.bus.BusAddress;
 import net.wbz.selectrix4java.bus.BusDataDispatcher;
+import net.wbz.selectrix4java.bus.BusSnapshot;
+import net.wbz.selectrix4java.bus.ReflexRule;
 import net.wbz.selectrix4java.bus.consumption.AbstractBusDataConsumer;
+import net.wbz.selectrix4java.data.BusData;
 import net.wbz.selectrix4java.data.BusDataChannel;
+import net.wbz.selectrix4java.data.BusUpdate;
+import net.wbz.selectrix4java.data.WriteResult;
 import net.wbz.selectrix4java.train.TrainModule;
 
 /**
@@ -100,6 +109,37 @@ public interface Device extends Serializable {
     FeedbackBlockModule getFeedbackBlockModule(int address, int feedbackAddress, int additionalAddress) throws
             DeviceAccessException;
 
+    /**
+     * Add a rule which reacts to the received changes before the consumers are called. The action of a triggered rule
+     * is written by the next access of the bus, before all other queued writes.
+     *
+     * @param rule {@link ReflexRule}
+     */
+    void addReflexRule(ReflexRule rule);
+
+    /**
+     * Remove the given rule.
+     *
+     * @param rule {@link ReflexRule}
+     */
+    void removeReflexRule(ReflexRule rule);
+
+    /**
+     * Locations of the trains detected by all {@link net.wbz.selectrix4java.block.FeedbackBlockModule}s of the device.
+     * The index is cleared by the disconnect.
+     *
+     * @return {@link TrainLocationIndex}
+     */
+    TrainLocationIndex getTrainLocationIndex();
+
+    /**
+     * Occupied states of the blocks of all {@link net.wbz.selectrix4java.block.BlockModule}s of the device. The states
+     * are cleared by the disconnect.
+     *
+     * @return {@link OccupancyMap}
+     */
+    OccupancyMap getOccupancyMap();
+
     /**
      * State of the rail voltage.
      *
@@ -112,9 +152,10 @@ public interface Device extends Serializable {
      * Change the state of the rail voltage.
      *
      * @param state {@link java.lang.Boolean} new state
+     * @return future completed with the {@link net.wbz.selectrix4java.data.WriteResult} of the write
      * @throws DeviceAccessException no access
      */
-    void setRailVoltage(boolean state) throws DeviceAccessException;
+    CompletableFuture<WriteResult> setRailVoltage(boolean state) throws DeviceAccessException;
 
     /**
      * Return the {@link BusAddress} for the rail voltage.
@@ -146,6 +187,28 @@ public interface Device extends Serializable {
      */
     void sendNative(byte[] data);
 
+    /**
+     * Send the given data as one group. All data is written back-to-back without other writes or reads of the bus in
+     * between, e.g. to switch all turnouts of a route in one burst.
+     *
+     * @param group {@link net.wbz.selectrix4java.data.BusData} to send in the given order
+     * @return future completed with the {@link net.wbz.selectrix4java.data.WriteResult} of each write after all
+     *         writes are acknowledged by the device and read back
+     * @throws DeviceAccessException no access
+     */
+    CompletableFuture<List<WriteResult>> sendGroup(List<BusData> group) throws DeviceAccessException;
+
+    /**
+     * Update the data of the addresses as one group, see {@link #sendGroup(List)}. The new data values are calculated
+     * from the latest known data values during the execution of the group, e.g. to switch some turnouts of a decoder.
+     *
+     * @param group {@link net.wbz.selectrix4java.data.BusUpdate}s to execute in the given order
+     * @return future completed with the {@link net.wbz.selectrix4java.data.WriteResult} of each update after all
+     *         writes are acknowledged by the device and read back
+     * @throws DeviceAccessException no access
+     */
+    CompletableFuture<List<WriteResult>> updateGroup(List<BusUpdate> group) throws DeviceAccessException;
+
     /**
      * Switch the device to the next system format.
      */
@@ -169,6 +232,14 @@ public interface Device extends Serializable {
      */
     BusDataDispatcher getBusDataDispatcher();
 
+    /**
+     * Last snapshot of the data from all buses. Use the snapshot to check the values of several addresses against a
+     * consistent state of the bus.
+     *
+     * @return {@link net.wbz.selectrix4java.bus.BusSnapshot}
+     */
+    BusSnapshot getBusSnapshot();
+
     /**
      * Running channel for communication or {@code null} if not connected.
      *
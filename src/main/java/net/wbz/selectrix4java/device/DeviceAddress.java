@@ -0,0 +1,65 @@
+package net.wbz.selectrix4java.device;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+/**
+ * Address of the bus for one of several devices. Unique address in the namespace of the {@link DeviceManager} by the
+ * id of the device, the number of the bus and the address of the bus.
+ *
+ * @author Daniel Tuerk
+ */
+public final class DeviceAddress {
+
+    private final String deviceId;
+    private final int bus;
+    private final int address;
+
+    /**
+     * Create address.
+     *
+     * @param deviceId id of the device
+     * @param bus number of the bus of the device
+     * @param address address of the bus
+     */
+    public DeviceAddress(String deviceId, int bus, int address) {
+        this.deviceId = deviceId;
+        this.bus = bus;
+        this.address = address;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public int getBus() {
+        return bus;
+    }
+
+    public int getAddress() {
+        return address;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DeviceAddress that = (DeviceAddress) o;
+        return bus == that.bus && address == that.address && Objects.equal(deviceId, that.deviceId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(deviceId, bus, address);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("deviceId", deviceId).add("bus", bus).add("address", address)
+                .toString();
+    }
+}
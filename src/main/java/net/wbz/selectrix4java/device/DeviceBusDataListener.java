@@ -0,0 +1,21 @@
+package net.wbz.selectrix4java.device;
+
+/**
+ * Listener for the data changes of all addresses of all devices which are registered in the {@link DeviceManager}.
+ * Changes of one device are received in the order of the reads of the device. Changes of different devices are
+ * received in parallel.
+ *
+ * @author Daniel Tuerk
+ */
+public interface DeviceBusDataListener {
+
+    /**
+     * Data of the address is changed. Called initially with the actual data of each address after the connect of the
+     * device.
+     *
+     * @param address {@link DeviceAddress} of the changed data
+     * @param oldValue old unsigned data value
+     * @param newValue new unsigned data value
+     */
+    void dataChanged(DeviceAddress address, int oldValue, int newValue);
+}
@@ -1,32 +1,57 @@
 package net.wbz.selectrix4java.device;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import net.wbz.selectrix4java.bus.BusAddress;
+import net.wbz.selectrix4java.bus.BusSnapshot;
+import net.wbz.selectrix4java.bus.consumption.AllBusDataConsumer;
 import net.wbz.selectrix4java.device.serial.SerialDevice;
+import net.wbz.selectrix4java.device.socket.SocketDevice;
 import net.wbz.selectrix4java.device.test.TestDevice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Manager to access the {@link Device} by device id.
+ * <p>
+ * Several devices can be connected at the same time, e.g. one interface for each part of a large layout. Each device
+ * has its own channel and dispatcher. The addresses of all devices are accessible by the {@link DeviceAddress} and the
+ * changes of all devices are aggregated for the {@link DeviceBusDataListener}s.
+ * </p>
  *
  * @author Daniel Tuerk
  */
 public class DeviceManager {
 
-    private final Map<String, Device> devices = Maps.newHashMap();
+    private static final Logger log = LoggerFactory.getLogger(DeviceManager.class);
 
-    private final List<DeviceConnectionListener> listeners = Lists.newArrayList();
+    private final Map<String, Device> devices = new ConcurrentHashMap<>();
 
-    public enum DEVICE_TYPE {SERIAL, TEST}
+    private final List<DeviceConnectionListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final List<DeviceBusDataListener> busDataListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Listener of each device to register the consumer for the aggregated data changes by the connect.
+     */
+    private final Map<String, DeviceConnectionListener> consumerRegistrations = new ConcurrentHashMap<>();
+
+    public enum DEVICE_TYPE {SERIAL, SOCKET, TEST}
 
     public void registerDevice(Device device) {
-        if (!devices.containsKey(device.getDeviceId())) {
+        if (devices.putIfAbsent(device.getDeviceId(), device) == null) {
             for (DeviceConnectionListener listener : listeners) {
                 device.addDeviceConnectionListener(listener);
             }
-            devices.put(device.getDeviceId(), device);
+            DeviceConnectionListener consumerRegistration = createConsumerRegistration(device.getDeviceId());
+            consumerRegistrations.put(device.getDeviceId(), consumerRegistration);
+            device.addDeviceConnectionListener(consumerRegistration);
         }
     }
 
@@ -34,19 +59,25 @@ public class DeviceManager {
         switch (type) {
             case SERIAL:
                 return new SerialDevice(deviceId, baudRate);
+            case SOCKET:
+                // device id as host:port, the baud rate is configured by the bridge of the interface
+                int separator = deviceId.lastIndexOf(':');
+                if (separator < 0) {
+                    throw new RuntimeException("device id must be host:port for type " + type.name());
+                }
+                return new SocketDevice(deviceId.substring(0, separator),
+                        Integer.parseInt(deviceId.substring(separator + 1)));
             case TEST:
-                return new TestDevice();
+                return new TestDevice(deviceId);
             default:
                 throw new RuntimeException("no device found for type " + type.name());
         }
     }
 
     public String getDeviceId(Device device) {
-        if (devices.containsValue(device)) {
-            for (Map.Entry<String, Device> entry : devices.entrySet()) {
-                if (entry.getValue() == device) {
-                    return entry.getKey();
-                }
+        for (Map.Entry<String, Device> entry : devices.entrySet()) {
+            if (entry.getValue() == device) {
+                return entry.getKey();
             }
         }
         throw new RuntimeException("no key for value");
@@ -64,6 +95,13 @@ public class DeviceManager {
         return Lists.newArrayList(devices.keySet());
     }
 
+    /**
+     * Return the first connected device.
+     *
+     * @return connected {@link Device}
+     * @throws DeviceAccessException no device connected
+     * @see #getConnectedDevices()
+     */
     public Device getConnectedDevice() throws DeviceAccessException {
         for (Device device : devices.values()) {
             if (device.isConnected()) {
@@ -73,6 +111,15 @@ public class DeviceManager {
         throw new DeviceAccessException("no device connected");
     }
 
+    /**
+     * Return all connected devices.
+     *
+     * @return connected devices
+     */
+    public List<Device> getConnectedDevices() {
+        return devices.values().stream().filter(Device::isConnected).collect(Collectors.toList());
+    }
+
     public boolean isConnected() {
         try {
             getConnectedDevice();
@@ -82,10 +129,93 @@ public class DeviceManager {
         }
     }
 
+    /**
+     * Connect all registered devices which aren't connected. Each device is connected, also if the connect of another
+     * device fails.
+     *
+     * @throws DeviceAccessException connect of at least one device failed; errors of further devices are suppressed
+     */
+    public void connectAll() throws DeviceAccessException {
+        DeviceAccessException error = null;
+        for (Device device : devices.values()) {
+            if (!device.isConnected()) {
+                try {
+                    device.connect();
+                } catch (DeviceAccessException e) {
+                    log.error("can't connect device " + device.getDeviceId(), e);
+                    if (error == null) {
+                        error = e;
+                    } else {
+                        error.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Disconnect all connected devices.
+     *
+     * @throws DeviceAccessException disconnect of at least one device failed; errors of further devices are suppressed
+     */
+    public void disconnectAll() throws DeviceAccessException {
+        DeviceAccessException error = null;
+        for (Device device : getConnectedDevices()) {
+            try {
+                device.disconnect();
+            } catch (DeviceAccessException e) {
+                log.error("can't disconnect device " + device.getDeviceId(), e);
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Get the {@link BusAddress} of the device for the given address.
+     *
+     * @param address {@link DeviceAddress}
+     * @return {@link BusAddress}
+     * @throws DeviceAccessException no device registered for the id of the address or device not connected
+     */
+    public BusAddress getBusAddress(DeviceAddress address) throws DeviceAccessException {
+        Device device = devices.get(address.getDeviceId());
+        if (device == null) {
+            throw new DeviceAccessException("no device registered for id " + address.getDeviceId());
+        }
+        return device.getBusAddress(address.getBus(), address.getAddress());
+    }
+
+    /**
+     * Last snapshots of all connected devices.
+     *
+     * @return {@link BusSnapshot} by the id of the device
+     */
+    public Map<String, BusSnapshot> getBusSnapshots() {
+        ImmutableMap.Builder<String, BusSnapshot> snapshots = ImmutableMap.builder();
+        for (Device device : getConnectedDevices()) {
+            snapshots.put(device.getDeviceId(), device.getBusSnapshot());
+        }
+        return snapshots.build();
+    }
+
     public void removeDevice(Device device) {
         for (Map.Entry<String, Device> entry : devices.entrySet()) {
             if (entry.getValue() == device) {
                 devices.remove(entry.getKey());
+                DeviceConnectionListener consumerRegistration = consumerRegistrations.remove(entry.getKey());
+                if (consumerRegistration != null) {
+                    device.removeDeviceConnectionListener(consumerRegistration);
+                }
                 return;
             }
         }
@@ -107,4 +237,49 @@ public class DeviceManager {
         devices.values().forEach(device -> device.removeDeviceConnectionListener(listener));
     }
 
-}
\ No newline at end of file
+    /**
+     * Add listener for the data changes of all devices.
+     *
+     * @param listener {@link DeviceBusDataListener}
+     */
+    public void addBusDataListener(DeviceBusDataListener listener) {
+        busDataListeners.add(listener);
+    }
+
+    public void removeBusDataListener(DeviceBusDataListener listener) {
+        busDataListeners.remove(listener);
+    }
+
+    /**
+     * Create the listener to register the consumer for the aggregated data changes of the device. The consumer is
+     * registered by each connect, because the dispatcher of the device is reset by the disconnect.
+     *
+     * @param deviceId id of the device
+     * @return {@link DeviceConnectionListener}
+     */
+    private DeviceConnectionListener createConsumerRegistration(final String deviceId) {
+        final AllBusDataConsumer consumer = new AllBusDataConsumer() {
+            @Override
+            public void valueChanged(int bus, int address, int oldValue, int newValue) {
+                if (!busDataListeners.isEmpty()) {
+                    DeviceAddress deviceAddress = new DeviceAddress(deviceId, bus, address);
+                    for (DeviceBusDataListener listener : busDataListeners) {
+                        listener.dataChanged(deviceAddress, oldValue & 0xff, newValue & 0xff);
+                    }
+                }
+            }
+        };
+        return new DeviceConnectionListener() {
+            @Override
+            public void connected(Device device) {
+                // kept by the reconnect of a lost connection
+                device.getBusDataDispatcher().registerConsumerIfAbsent(consumer);
+            }
+
+            @Override
+            public void disconnected(Device device) {
+            }
+        };
+    }
+
+}
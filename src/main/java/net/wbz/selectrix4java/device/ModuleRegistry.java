@@ -0,0 +1,137 @@
+package net.wbz.selectrix4java.device;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import net.wbz.selectrix4java.Module;
+
+/**
+ * Thread-safe registry of the {@link Module}s of a device. Modules are stored for each type in an {@link AddressTable}
+ * by bus and address. The lookup is lock-free, the creation of a missing module is only locked for the same type, so
+ * modules of different types are created concurrently.
+ * <p>
+ * For each type the registry holds a precomputed view of the modules which is updated by the creation of a module. A
+ * module is part of the view of its own type and the views of all super types (e.g. a
+ * {@link net.wbz.selectrix4java.block.FeedbackBlockModule} is also part of the view for
+ * {@link net.wbz.selectrix4java.block.BlockModule}). The views are lock-free to iterate.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+class ModuleRegistry {
+
+    /**
+     * Modules by the concrete type.
+     */
+    private final Map<Class<? extends Module>, AddressTable<Module>> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Views of the modules for each type including the modules of sub types.
+     */
+    private final Map<Class<? extends Module>, List<Module>> views = new ConcurrentHashMap<>();
+
+    /**
+     * Factory to create a missing module.
+     *
+     * @param <T> type of module
+     */
+    interface ModuleFactory<T extends Module> {
+
+        /**
+         * Create the module.
+         *
+         * @return new module
+         * @throws DeviceAccessException no access
+         */
+        T create() throws DeviceAccessException;
+    }
+
+    /**
+     * Return the module of the given type for the bus and address or create the module by the given factory.
+     *
+     * @param type type of the module
+     * @param bus number of bus
+     * @param address address of bus
+     * @param factory {@link ModuleFactory} to create the missing module
+     * @param <T> type of module
+     * @return existing or created module
+     * @throws DeviceAccessException no access
+     */
+    <T extends Module> T getOrCreate(Class<T> type, int bus, int address, ModuleFactory<T> factory)
+            throws DeviceAccessException {
+        AddressTable<Module> table = getTable(type);
+        Module module = table.get(bus, address);
+        if (module == null) {
+            synchronized (table) {
+                module = table.get(bus, address);
+                if (module == null) {
+                    module = factory.create();
+                    table.putIfAbsent(bus, address, module);
+                    addToViews(module);
+                }
+            }
+        }
+        return type.cast(module);
+    }
+
+    /**
+     * Return the module of the given type for the bus and address.
+     *
+     * @param type type of the module
+     * @param bus number of bus
+     * @param address address of bus
+     * @param <T> type of module
+     * @return module or {@code null} if not registered
+     */
+    <T extends Module> T get(Class<T> type, int bus, int address) {
+        return type.cast(getTable(type).get(bus, address));
+    }
+
+    /**
+     * Registered modules of the given type and all sub types. The returned list is an unmodifiable and live view of the
+     * modules.
+     *
+     * @param type type of the modules
+     * @param <T> type of module
+     * @return view of the modules
+     */
+    @SuppressWarnings("unchecked")
+    <T extends Module> List<T> getModules(Class<T> type) {
+        return (List<T>) Collections.unmodifiableList(getView(type));
+    }
+
+    /**
+     * Remove all modules.
+     */
+    void clear() {
+        for (AddressTable<Module> table : tables.values()) {
+            synchronized (table) {
+                table.clear();
+            }
+        }
+        // keep the view instances, they are referenced by the returned views
+        for (List<Module> view : views.values()) {
+            view.clear();
+        }
+    }
+
+    private AddressTable<Module> getTable(Class<? extends Module> type) {
+        return tables.computeIfAbsent(type, key -> new AddressTable<>());
+    }
+
+    private List<Module> getView(Class<? extends Module> type) {
+        return views.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addToViews(Module module) {
+        Class<?> type = module.getClass();
+        while (type != null && Module.class.isAssignableFrom(type)) {
+            getView((Class<? extends Module>) type).add(module);
+            type = type.getSuperclass();
+        }
+        getView(Module.class).add(module);
+    }
+}
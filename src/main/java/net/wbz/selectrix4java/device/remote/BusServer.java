@@ -0,0 +1,395 @@
+package net.wbz.selectrix4java.device.remote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import net.wbz.selectrix4java.bus.consumption.AllBusDataConsumer;
+import net.wbz.selectrix4java.data.WriteResult;
+import net.wbz.selectrix4java.device.Device;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.device.DeviceConnectionListener;
+import net.wbz.selectrix4java.executor.ExecutorProvider;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Server to share the connected {@link Device} with several clients, e.g. a control panel, a logger and an automation
+ * which run in different processes. Only one process can open the serial port of the interface, so the server owns the
+ * device and the clients connect by the {@link RemoteDevice}.
+ * <p>
+ * The server listens only on the loopback address. All clients are served by one thread with a {@link Selector}. A
+ * client receives the values of all addresses after the connect and afterwards the changes of the addresses are pushed,
+ * so the clients don't poll the server. The writes of all clients are executed by the channel of the device in the
+ * received order.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public class BusServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BusServer.class);
+
+    /**
+     * Maximum number of bytes waiting to be sent to a client. A client which doesn't read the pushed changes is
+     * disconnected.
+     */
+    private static final int MAX_PENDING_BYTES = 1024 * 1024;
+
+    private final Device device;
+    private final int port;
+    private final ExecutorProvider executorProvider;
+
+    /**
+     * Latest values of the addresses as sent to the clients. Guarded by the image itself, so a new client receives the
+     * image and afterwards all changes in order.
+     */
+    private final byte[] image = new byte[RemoteProtocol.IMAGE_LENGTH];
+    private final Map<SocketChannel, Client> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Clients with new frames to send; the interest of the keys is changed by the selector thread.
+     */
+    private final Queue<Client> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    private final AllBusDataConsumer consumer = new AllBusDataConsumer() {
+        @Override
+        public void valueChanged(int bus, int address, int oldValue, int newValue) {
+            changed(bus, address, newValue);
+        }
+    };
+
+    private final DeviceConnectionListener connectionListener = new DeviceConnectionListener() {
+        @Override
+        public void connected(Device device) {
+            device.getBusDataDispatcher().registerConsumerIfAbsent(consumer);
+        }
+
+        @Override
+        public void disconnected(Device device) {
+        }
+    };
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean running = false;
+
+    /**
+     * Create server for the given device.
+     *
+     * @param device {@link Device} to share
+     * @param port port to listen on the loopback address or {@code 0} for any free port
+     */
+    public BusServer(Device device, int port) {
+        this(device, port, ExecutorProviders.getDefault());
+    }
+
+    /**
+     * Create server for the given device, which serves the clients by a thread of the given provider.
+     *
+     * @param device {@link Device} to share
+     * @param port port to listen on the loopback address or {@code 0} for any free port
+     * @param executorProvider {@link ExecutorProvider} of the selector thread
+     */
+    public BusServer(Device device, int port, ExecutorProvider executorProvider) {
+        this.device = device;
+        this.port = port;
+        this.executorProvider = executorProvider;
+    }
+
+    /**
+     * Start to accept the clients.
+     *
+     * @throws IOException can't open the server socket
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            throw new IllegalStateException("server already started");
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        device.addDeviceConnectionListener(connectionListener);
+
+        running = true;
+        selectorThread = executorProvider.newThreadFactory("bus-server").newThread(this::select);
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("bus server started on port {} for device {}", getPort(), device.getDeviceId());
+    }
+
+    /**
+     * Port of the running server.
+     *
+     * @return port or {@code -1} if the server isn't started
+     */
+    public int getPort() {
+        if (serverChannel == null || !serverChannel.isOpen()) {
+            return -1;
+        }
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Number of the connected clients.
+     *
+     * @return count of clients
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop the server and disconnect all clients. The device stays connected.
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        device.removeDeviceConnectionListener(connectionListener);
+        if (device.isConnected()) {
+            device.getBusDataDispatcher().unregisterConsumer(consumer);
+        }
+        selector.wakeup();
+        try {
+            selectorThread.join(1000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Client client : clients.values()) {
+            client.close();
+        }
+        clients.clear();
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            log.error("can't close server socket", e);
+        }
+        log.info("bus server stopped for device {}", device.getDeviceId());
+    }
+
+    private void select() {
+        try {
+            while (running) {
+                selector.select();
+                Client client;
+                while ((client = pendingWrites.poll()) != null) {
+                    if (client.key.isValid()) {
+                        client.key.interestOps(client.key.interestOps() | SelectionKey.OP_WRITE);
+                    }
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Client selected = (Client) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                selected.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                selected.write();
+                            }
+                        } catch (IOException e) {
+                            log.debug("client disconnected: {}", e.getMessage());
+                            selected.close();
+                        }
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                log.error("bus server stopped by error", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Client client = new Client(channel);
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        clients.put(channel, client);
+        synchronized (image) {
+            ByteBuffer frame = ByteBuffer.allocate(RemoteProtocol.IMAGE_FRAME_LENGTH);
+            frame.put(RemoteProtocol.IMAGE).put(image);
+            frame.flip();
+            client.enqueue(frame);
+        }
+        log.debug("client connected: {}", channel.getRemoteAddress());
+    }
+
+    /**
+     * Store the changed value and push the change to all clients.
+     *
+     * @param bus number of bus
+     * @param address address
+     * @param value new value
+     */
+    private void changed(int bus, int address, int value) {
+        int index = RemoteProtocol.index(bus, address);
+        if (index < 0) {
+            return;
+        }
+        synchronized (image) {
+            if (image[index] == (byte) value) {
+                return;
+            }
+            image[index] = (byte) value;
+            for (Client client : clients.values()) {
+                ByteBuffer frame = ByteBuffer.allocate(RemoteProtocol.DELTA_FRAME_LENGTH);
+                frame.put(RemoteProtocol.DELTA).put((byte) bus).put((byte) address).put((byte) value);
+                frame.flip();
+                client.enqueue(frame);
+            }
+        }
+    }
+
+    /**
+     * Execute the write of a client by the device and reply the result.
+     *
+     * @param client client of the write
+     * @param id id of the write, sent back by the reply
+     * @param bus number of bus
+     * @param address address
+     * @param value value to write
+     */
+    private void write(final Client client, final int id, final int bus, final int address, final int value) {
+        try {
+            device.getBusAddress(bus, address).sendData((byte) value).whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    log.warn("write of client failed: {}", throwable.getMessage());
+                    client.enqueue(ack(id, RemoteProtocol.REPLY_FAILED, bus, address, value));
+                } else {
+                    client.enqueue(ack(id, result.getReply(), bus, address, result.hasReadBack()
+                            ? result.getReadBackValue() : value));
+                }
+            });
+        } catch (DeviceAccessException e) {
+            log.warn("write of client failed: {}", e.getMessage());
+            client.enqueue(ack(id, RemoteProtocol.REPLY_FAILED, bus, address, value));
+        }
+    }
+
+    private static ByteBuffer ack(int id, int reply, int bus, int address, int value) {
+        ByteBuffer frame = ByteBuffer.allocate(RemoteProtocol.ACK_FRAME_LENGTH);
+        frame.put(RemoteProtocol.ACK).put((byte) id).put((byte) reply).put((byte) bus).put((byte) address)
+                .put((byte) value);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Connected client with the buffers to read the writes and to send the frames.
+     */
+    private class Client {
+
+        private final SocketChannel channel;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(RemoteProtocol.WRITE_FRAME_LENGTH * 64);
+        /**
+         * Frames to send. Guarded by the queue itself.
+         */
+        private final Queue<ByteBuffer> frames = new ArrayDeque<>();
+        private int pendingBytes = 0;
+        private SelectionKey key;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                throw new IOException("end of stream");
+            }
+            readBuffer.flip();
+            while (readBuffer.remaining() >= RemoteProtocol.WRITE_FRAME_LENGTH) {
+                byte type = readBuffer.get();
+                if (type != RemoteProtocol.WRITE) {
+                    throw new IOException("invalid frame type: " + type);
+                }
+                int id = readBuffer.get() & 0xff;
+                int bus = readBuffer.get() & 0xff;
+                int address = readBuffer.get() & 0xff;
+                int value = readBuffer.get() & 0xff;
+                BusServer.this.write(this, id, bus, address, value);
+            }
+            readBuffer.compact();
+        }
+
+        void enqueue(ByteBuffer frame) {
+            synchronized (frames) {
+                if (pendingBytes + frame.remaining() > MAX_PENDING_BYTES) {
+                    log.warn("client doesn't read the changes, disconnect");
+                    close();
+                    return;
+                }
+                frames.add(frame);
+                pendingBytes += frame.remaining();
+            }
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        void write() throws IOException {
+            synchronized (frames) {
+                ByteBuffer frame;
+                while ((frame = frames.peek()) != null) {
+                    int written = channel.write(frame);
+                    pendingBytes -= written;
+                    if (frame.hasRemaining()) {
+                        // socket buffer full, continue by the next select
+                        return;
+                    }
+                    frames.poll();
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        void close() {
+            clients.remove(channel);
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.error("can't close client", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package net.wbz.selectrix4java.device.remote;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import net.wbz.selectrix4java.data.BusDataChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connection of the {@link BusServer} for the {@link RemoteDevice}. The frames pushed by the server are delivered to
+ * the {@link BusDataChannel} of the device, which doesn't read the bus, see {@link RemoteInterfaceProtocol}. The
+ * streams of the channel send the writes to the server and read the replies of the writes.
+ * <p>
+ * Each write gets an id, which is sent back by the reply of the server. The server replies after the read-back of the
+ * write, which can take longer than the channel waits for the reply. A late reply is discarded, so it's never taken as
+ * the reply of the next write.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+class RemoteBus {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteBus.class);
+
+    /**
+     * Time to wait for the reply of a write by a single read of the input stream.
+     */
+    private static final long REPLY_WAIT_IN_MILLIS = 50L;
+
+    private final SocketChannel socketChannel;
+    /**
+     * Replies of the outstanding write. Guarded by the queue itself to match the replies with the outstanding write.
+     */
+    private final BlockingQueue<Integer> replies = new LinkedBlockingQueue<>();
+    /**
+     * Frame of the write which is assembled from the written bytes. Guarded by the socket channel.
+     */
+    private final byte[] writeFrame = new byte[RemoteProtocol.WRITE_FRAME_LENGTH];
+    private int writeFramePosition = 0;
+    private int lastWriteId = 0;
+    /**
+     * Id of the write which waits for the reply or {@code -1} if no write was sent.
+     */
+    private volatile int outstandingWriteId = -1;
+    private final CountDownLatch imageReceived = new CountDownLatch(1);
+    private final InputStream inputStream;
+    private final OutputStream outputStream;
+    private volatile boolean closed = false;
+
+    /**
+     * Create connection for the connected server.
+     *
+     * @param socketChannel blocking channel of the connected server
+     */
+    RemoteBus(SocketChannel socketChannel) {
+        this.socketChannel = socketChannel;
+        inputStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                checkConnection();
+                try {
+                    Integer reply = replies.poll(REPLY_WAIT_IN_MILLIS, TimeUnit.MILLISECONDS);
+                    return reply != null ? reply : -1;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted to wait for the write reply");
+                }
+            }
+
+            @Override
+            public int available() {
+                return replies.size();
+            }
+        };
+        outputStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                checkConnection();
+                synchronized (socketChannel) {
+                    for (int i = off; i < off + len; i++) {
+                        writeFrame[writeFramePosition++] = b[i];
+                        if (writeFramePosition == writeFrame.length) {
+                            writeFramePosition = 0;
+                            sendWrite();
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Send the assembled write frame with the next id. Replies of previous writes aren't taken by this write anymore.
+     *
+     * @throws IOException error to write the socket
+     */
+    private void sendWrite() throws IOException {
+        if (writeFrame[0] != RemoteProtocol.WRITE) {
+            throw new IOException("invalid frame type: " + writeFrame[0]);
+        }
+        lastWriteId = (lastWriteId + 1) & 0xff;
+        writeFrame[1] = (byte) lastWriteId;
+        synchronized (replies) {
+            outstandingWriteId = lastWriteId;
+            replies.clear();
+        }
+        ByteBuffer frame = ByteBuffer.wrap(writeFrame);
+        while (frame.hasRemaining()) {
+            socketChannel.write(frame);
+        }
+    }
+
+    /**
+     * Read the frames of the server until the connection is closed and deliver the data to the given channel. Called by
+     * the reader thread of the device. A lost connection closes the channel.
+     *
+     * @param channel {@link BusDataChannel} of the device
+     */
+    void receive(BusDataChannel channel) {
+        try {
+            DataInputStream input = new DataInputStream(Channels.newInputStream(socketChannel));
+            byte[] frame = new byte[RemoteProtocol.IMAGE_FRAME_LENGTH];
+            while (!closed) {
+                byte type = input.readByte();
+                int length = RemoteProtocol.frameLength(type);
+                if (length < 0) {
+                    throw new IOException("invalid frame type: " + type);
+                }
+                input.readFully(frame, 1, length - 1);
+                switch (type) {
+                    case RemoteProtocol.IMAGE:
+                        channel.pushed(Arrays.copyOfRange(frame, 1, RemoteProtocol.IMAGE_FRAME_LENGTH));
+                        imageReceived.countDown();
+                        break;
+                    case RemoteProtocol.DELTA:
+                        channel.pushed(frame[1] & 0xff, frame[2] & 0xff, frame[3] & 0xff, false);
+                        break;
+                    case RemoteProtocol.ACK:
+                        synchronized (replies) {
+                            if ((frame[1] & 0xff) != outstandingWriteId) {
+                                log.warn("discard late reply of write {}", frame[1] & 0xff);
+                                break;
+                            }
+                            if (frame[2] == 0) {
+                                // read back value is delivered before the reply, so the write is confirmed by it
+                                channel.pushed(frame[3] & 0xff, frame[4] & 0xff, frame[5] & 0xff, true);
+                            }
+                            replies.add(frame[2] & 0xff);
+                        }
+                        break;
+                    default:
+                        throw new IOException("unexpected frame type: " + type);
+                }
+            }
+        } catch (EOFException e) {
+            log.warn("connection closed by the server");
+        } catch (IOException e) {
+            if (!closed) {
+                log.error("connection of server lost", e);
+            }
+        } finally {
+            if (!closed) {
+                closed = true;
+                channel.connectionLost();
+            }
+        }
+    }
+
+    /**
+     * Wait for the values of all addresses, which are sent by the server after the connect.
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return {@code true} if the values are received
+     * @throws InterruptedException interrupted to wait
+     */
+    boolean awaitImage(long timeout, TimeUnit unit) throws InterruptedException {
+        return imageReceived.await(timeout, unit);
+    }
+
+    private void checkConnection() throws IOException {
+        if (closed) {
+            throw new IOException("connection of server closed");
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Close the connection of the server.
+     */
+    void close() {
+        closed = true;
+        try {
+            socketChannel.close();
+        } catch (IOException e) {
+            log.error("can't close connection", e);
+        }
+    }
+
+    InputStream getInputStream() {
+        return inputStream;
+    }
+
+    OutputStream getOutputStream() {
+        return outputStream;
+    }
+}
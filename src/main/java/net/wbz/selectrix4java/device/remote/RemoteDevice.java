@@ -0,0 +1,133 @@
+package net.wbz.selectrix4java.device.remote;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import net.wbz.selectrix4java.bus.BusDataDispatcher;
+import net.wbz.selectrix4java.data.BusDataChannel;
+import net.wbz.selectrix4java.data.InterfaceProtocol;
+import net.wbz.selectrix4java.device.AbstractDevice;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.executor.ExecutorProvider;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link net.wbz.selectrix4java.device.Device} implementation for the access of a device shared by a {@link BusServer}.
+ * <p>
+ * The values of all addresses and the changes pushed by the server are delivered directly to the dispatcher, the
+ * channel of the device doesn't read the bus. The connect waits for the values of all addresses, so the first data of
+ * the dispatcher is the complete bus. Writes are sent to the server and acknowledged with the reply of the shared
+ * device.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public class RemoteDevice extends AbstractDevice {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteDevice.class);
+
+    /**
+     * Timeout to connect the server.
+     */
+    private static final int CONNECT_TIMEOUT_IN_MILLIS = 3000;
+
+    private final String host;
+    private final int port;
+
+    /**
+     * Connection of the server.
+     */
+    private volatile RemoteBus remoteBus;
+
+    /**
+     * Create device to connect to a {@link BusServer}.
+     *
+     * @param host host of the server
+     * @param port port of the server
+     */
+    public RemoteDevice(String host, int port) {
+        this(host, port, ExecutorProviders.getDefault());
+    }
+
+    /**
+     * Create device to connect to a {@link BusServer}, which uses the threads of the given provider.
+     *
+     * @param host host of the server
+     * @param port port of the server
+     * @param executorProvider {@link ExecutorProvider}
+     */
+    public RemoteDevice(String host, int port, ExecutorProvider executorProvider) {
+        super(executorProvider);
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public String getDeviceId() {
+        return host + ":" + port;
+    }
+
+    @Override
+    protected BusDataChannel doConnect(BusDataDispatcher busDataDispatcher) throws DeviceAccessException {
+        SocketChannel socketChannel = null;
+        try {
+            socketChannel = SocketChannel.open();
+            socketChannel.socket().setTcpNoDelay(true);
+            socketChannel.socket().connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_IN_MILLIS);
+        } catch (IOException e) {
+            if (socketChannel != null) {
+                try {
+                    socketChannel.close();
+                } catch (IOException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            throw new DeviceAccessException(String.format("can't connect to server %s", getDeviceId()), e);
+        }
+        final RemoteBus bus = new RemoteBus(socketChannel);
+        final BusDataChannel channel = new BusDataChannel(bus.getInputStream(), bus.getOutputStream(),
+                busDataDispatcher, getProtocol(), getExecutorProvider());
+        Thread reader = getExecutorProvider().newThreadFactory("remote-device-reader").newThread(
+                () -> bus.receive(channel));
+        reader.setDaemon(true);
+        reader.start();
+        boolean imageReceived = false;
+        try {
+            // the image of the server is the first data of the dispatcher
+            imageReceived = bus.awaitImage(CONNECT_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!imageReceived) {
+            bus.close();
+            channel.shutdownNow();
+            throw new DeviceAccessException(String.format("no data of server %s", getDeviceId()));
+        }
+        remoteBus = bus;
+        log.info("connected to server {}", getDeviceId());
+        return channel;
+    }
+
+    @Override
+    protected InterfaceProtocol getProtocol() {
+        return RemoteInterfaceProtocol.INSTANCE;
+    }
+
+    @Override
+    public void doDisconnect() {
+        RemoteBus bus = remoteBus;
+        remoteBus = null;
+        if (bus != null) {
+            bus.close();
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        RemoteBus bus = remoteBus;
+        return bus != null && !bus.isClosed();
+    }
+}
@@ -0,0 +1,78 @@
+package net.wbz.selectrix4java.device.remote;
+
+import net.wbz.selectrix4java.data.BusData;
+import net.wbz.selectrix4java.data.InterfaceProtocol;
+
+/**
+ * Protocol of the {@link BusServer} from the view of the channel of the {@link RemoteDevice}. The server pushes the
+ * data of the buses, so the channel doesn't read the bus and only sends the {@link RemoteProtocol#WRITE} frames.
+ *
+ * @author Daniel Tuerk
+ */
+final class RemoteInterfaceProtocol implements InterfaceProtocol {
+
+    static final RemoteInterfaceProtocol INSTANCE = new RemoteInterfaceProtocol();
+
+    private RemoteInterfaceProtocol() {
+    }
+
+    @Override
+    public int getBusCount() {
+        return 2;
+    }
+
+    @Override
+    public boolean isReadBlockSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isReadAddressSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isDataPushed() {
+        return true;
+    }
+
+    @Override
+    public byte[] encodeReadBlock() {
+        throw new UnsupportedOperationException("data is pushed by the server");
+    }
+
+    @Override
+    public int getReadBlockLength() {
+        return RemoteProtocol.IMAGE_LENGTH;
+    }
+
+    @Override
+    public byte[] encodeReadAddress(int bus, int address) {
+        throw new UnsupportedOperationException("data is pushed by the server");
+    }
+
+    @Override
+    public byte[] encodeWrite(BusData busData) {
+        if (RemoteProtocol.index(busData.getBus(), busData.getAddress()) < 0) {
+            throw new IllegalArgumentException("invalid address for the server: " + busData);
+        }
+        // id of the write is set by the connection
+        return new byte[]{RemoteProtocol.WRITE, 0, (byte) busData.getBus(), (byte) busData.getAddress(),
+                (byte) busData.getData()};
+    }
+
+    @Override
+    public boolean isWriteAcknowledged() {
+        return true;
+    }
+
+    @Override
+    public boolean isIgnoredAddress(int bus, int address) {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "remote";
+    }
+}
@@ -0,0 +1,94 @@
+package net.wbz.selectrix4java.device.remote;
+
+/**
+ * Frames exchanged between the {@link BusServer} and the {@link RemoteDevice}. Each frame starts with the type and has
+ * a fixed length for the type.
+ * <ul>
+ * <li>{@link #IMAGE}: values of all addresses of the bus 0 and 1, sent by the server after the connect of a client</li>
+ * <li>{@link #DELTA}: changed value of an address, pushed by the server</li>
+ * <li>{@link #WRITE}: write of an address, sent by the client</li>
+ * <li>{@link #ACK}: reply of the device for a write and the value read back from the bus, sent by the server</li>
+ * </ul>
+ *
+ * @author Daniel Tuerk
+ */
+final class RemoteProtocol {
+
+    /**
+     * Number of addresses of each bus.
+     */
+    static final int ADDRESSES_PER_BUS = 113;
+
+    /**
+     * Length of the image of bus 0 and 1.
+     */
+    static final int IMAGE_LENGTH = 2 * ADDRESSES_PER_BUS;
+
+    /**
+     * {@code IMAGE, value[226]}
+     */
+    static final byte IMAGE = 'I';
+    static final int IMAGE_FRAME_LENGTH = 1 + IMAGE_LENGTH;
+
+    /**
+     * {@code DELTA, bus, address, value}
+     */
+    static final byte DELTA = 'D';
+    static final int DELTA_FRAME_LENGTH = 4;
+
+    /**
+     * {@code WRITE, id, bus, address, value}; the id is set by the connection of the client, see {@link RemoteBus}.
+     */
+    static final byte WRITE = 'W';
+    static final int WRITE_FRAME_LENGTH = 5;
+
+    /**
+     * {@code ACK, id, reply, bus, address, value}; the id of the write and the value is the read-back value of the
+     * address or the written value if the write wasn't read back.
+     */
+    static final byte ACK = 'A';
+    static final int ACK_FRAME_LENGTH = 6;
+
+    /**
+     * Reply of an {@link #ACK} for a write which failed on the server, e.g. device not connected.
+     */
+    static final int REPLY_FAILED = 0xff;
+
+    private RemoteProtocol() {
+    }
+
+    /**
+     * Index of the address in the image.
+     *
+     * @param bus number of the bus
+     * @param address address of the bus
+     * @return index or {@code -1} if the address isn't part of the image
+     */
+    static int index(int bus, int address) {
+        if (bus < 0 || bus > 1 || address < 0 || address >= ADDRESSES_PER_BUS) {
+            return -1;
+        }
+        return bus * ADDRESSES_PER_BUS + address;
+    }
+
+    /**
+     * Length of the frame for the given type.
+     *
+     * @param type type of the frame
+     * @return length including the type or {@code -1} for an unknown type
+     */
+    static int frameLength(byte type) {
+        switch (type) {
+            case IMAGE:
+                return IMAGE_FRAME_LENGTH;
+            case DELTA:
+                return DELTA_FRAME_LENGTH;
+            case WRITE:
+                return WRITE_FRAME_LENGTH;
+            case ACK:
+                return ACK_FRAME_LENGTH;
+            default:
+                return -1;
+        }
+    }
+}
@@ -10,6 +10,8 @@ import net.wbz.selectrix4java.bus.BusDataDispatcher;
 import net.wbz.selectrix4java.data.BusDataChannel;
 import net.wbz.selectrix4java.device.AbstractDevice;
 import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.executor.ExecutorProvider;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,6 +67,18 @@ public class SerialDevice extends AbstractDevice {
      * @param baudRate {@link int} baud rate of the device
      */
     public SerialDevice(String deviceId, int baudRate) {
+        this(deviceId, baudRate, ExecutorProviders.getDefault());
+    }
+
+    /**
+     * Create device to connect to an serial interface, which uses the threads of the given provider.
+     *
+     * @param deviceId {@link java.lang.String} OS device id
+     * @param baudRate {@link int} baud rate of the device
+     * @param executorProvider {@link ExecutorProvider}
+     */
+    public SerialDevice(String deviceId, int baudRate, ExecutorProvider executorProvider) {
+        super(executorProvider);
         this.deviceId = deviceId;
         this.baudRate = baudRate;
     }
@@ -96,7 +110,7 @@ public class SerialDevice extends AbstractDevice {
         } catch (Exception e) {
             throw new DeviceAccessException(String.format("can't connect to device for id %s", deviceId), e);
         }
-        return new BusDataChannel(inputStream, outputStream, busDataDispatcher);
+        return new BusDataChannel(inputStream, outputStream, busDataDispatcher, getProtocol(), getExecutorProvider());
     }
 
     /**
@@ -0,0 +1,134 @@
+package net.wbz.selectrix4java.device.socket;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import net.wbz.selectrix4java.bus.BusDataDispatcher;
+import net.wbz.selectrix4java.data.BusDataChannel;
+import net.wbz.selectrix4java.data.FccProtocol;
+import net.wbz.selectrix4java.data.InterfaceProtocol;
+import net.wbz.selectrix4java.device.AbstractDevice;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.executor.ExecutorProvider;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link net.wbz.selectrix4java.device.Device} implementation for interfaces which are reachable by TCP, e.g. a FCC
+ * bridged by ser2net. The interface uses the same protocol as by the serial access, the FCC by default.
+ * <p>
+ * The socket is accessed non-blocking. Received bytes are collected until the reply is complete and the channel waits
+ * by a selector for new bytes instead of polling the stream.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public class SocketDevice extends AbstractDevice {
+
+    private static final Logger log = LoggerFactory.getLogger(SocketDevice.class);
+
+    /**
+     * Timeout to connect the interface.
+     */
+    private static final int CONNECT_TIMEOUT_IN_MILLIS = 3000;
+
+    /**
+     * Maximum time to wait for bytes of the interface by a read, equal to the timeout of the serial access.
+     */
+    private static final long READ_TIMEOUT_IN_MILLIS = 200L;
+
+    private final String host;
+    private final int port;
+    private final InterfaceProtocol protocol;
+
+    /**
+     * Streams of the connected socket.
+     */
+    private volatile SocketStreams socketStreams;
+
+    /**
+     * Create device to connect to an interface by TCP.
+     *
+     * @param host host of the interface
+     * @param port port of the interface
+     */
+    public SocketDevice(String host, int port) {
+        this(host, port, FccProtocol.INSTANCE);
+    }
+
+    /**
+     * Create device to connect to an interface by TCP.
+     *
+     * @param host host of the interface
+     * @param port port of the interface
+     * @param protocol {@link InterfaceProtocol} of the interface
+     */
+    public SocketDevice(String host, int port, InterfaceProtocol protocol) {
+        this(host, port, protocol, ExecutorProviders.getDefault());
+    }
+
+    /**
+     * Create device to connect to an interface by TCP, which uses the threads of the given provider.
+     *
+     * @param host host of the interface
+     * @param port port of the interface
+     * @param protocol {@link InterfaceProtocol} of the interface
+     * @param executorProvider {@link ExecutorProvider}
+     */
+    public SocketDevice(String host, int port, InterfaceProtocol protocol, ExecutorProvider executorProvider) {
+        super(executorProvider);
+        this.host = host;
+        this.port = port;
+        this.protocol = protocol;
+    }
+
+    @Override
+    protected InterfaceProtocol getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public String getDeviceId() {
+        return host + ":" + port;
+    }
+
+    @Override
+    protected BusDataChannel doConnect(BusDataDispatcher busDataDispatcher) throws DeviceAccessException {
+        SocketChannel socketChannel = null;
+        try {
+            socketChannel = SocketChannel.open();
+            socketChannel.socket().setTcpNoDelay(true);
+            socketChannel.socket().connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_IN_MILLIS);
+            socketChannel.configureBlocking(false);
+            socketStreams = new SocketStreams(socketChannel, READ_TIMEOUT_IN_MILLIS);
+        } catch (IOException e) {
+            if (socketChannel != null) {
+                try {
+                    socketChannel.close();
+                } catch (IOException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            throw new DeviceAccessException(String.format("can't connect to device %s", getDeviceId()), e);
+        }
+        log.info("connected to device {}", getDeviceId());
+        return new BusDataChannel(socketStreams.getInputStream(), socketStreams.getOutputStream(),
+                busDataDispatcher, protocol, getExecutorProvider());
+    }
+
+    @Override
+    public void doDisconnect() {
+        SocketStreams streams = socketStreams;
+        socketStreams = null;
+        if (streams != null) {
+            streams.close();
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        SocketStreams streams = socketStreams;
+        return streams != null && streams.isOpen();
+    }
+}
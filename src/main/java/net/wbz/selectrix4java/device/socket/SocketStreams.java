@@ -0,0 +1,207 @@
+package net.wbz.selectrix4java.device.socket;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams of the {@link net.wbz.selectrix4java.data.BusDataChannel} for a non-blocking {@link SocketChannel}.
+ * <p>
+ * The received bytes are collected in a direct buffer. A read waits on a {@link Selector} until bytes are received or
+ * the read timeout is reached, like the read of the serial port, and returns the received bytes. The reply of a request
+ * is assembled from the partial reads by the tasks of the channel, as for the serial access. The streams are used by
+ * the task thread of the channel only.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+class SocketStreams {
+
+    /**
+     * Size of the receive buffer, enough for several read blocks of the bus.
+     */
+    private static final int RECEIVE_BUFFER_SIZE = 4096;
+
+    private final SocketChannel socketChannel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final long readTimeoutMillis;
+
+    /**
+     * Received bytes, in read mode between the calls.
+     */
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(RECEIVE_BUFFER_SIZE);
+    private final InputStream inputStream;
+    private final OutputStream outputStream;
+
+    /**
+     * Create streams for the connected channel.
+     *
+     * @param socketChannel connected channel, configured as non-blocking
+     * @param readTimeoutMillis maximum time to wait for bytes by a read
+     * @throws IOException can't register the channel
+     */
+    SocketStreams(SocketChannel socketChannel, long readTimeoutMillis) throws IOException {
+        this.socketChannel = socketChannel;
+        this.readTimeoutMillis = readTimeoutMillis;
+        selector = Selector.open();
+        key = socketChannel.register(selector, SelectionKey.OP_READ);
+        receiveBuffer.flip();
+
+        inputStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                if (!await()) {
+                    return -1;
+                }
+                return receiveBuffer.get() & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!await()) {
+                    return -1;
+                }
+                int length = Math.min(len, receiveBuffer.remaining());
+                receiveBuffer.get(b, off, length);
+                return length;
+            }
+
+            @Override
+            public int available() throws IOException {
+                receive();
+                return receiveBuffer.remaining();
+            }
+
+            @Override
+            public void close() {
+                SocketStreams.this.close();
+            }
+        };
+        outputStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                send(ByteBuffer.wrap(b, off, len));
+            }
+
+            @Override
+            public void close() {
+                SocketStreams.this.close();
+            }
+        };
+    }
+
+    /**
+     * Read the available bytes of the socket into the receive buffer without blocking.
+     *
+     * @throws IOException connection closed
+     */
+    private synchronized void receive() throws IOException {
+        receiveBuffer.compact();
+        try {
+            if (socketChannel.read(receiveBuffer) < 0) {
+                throw new EOFException("connection closed by the device");
+            }
+        } finally {
+            receiveBuffer.flip();
+        }
+    }
+
+    /**
+     * Wait until bytes are received or the read timeout is reached.
+     *
+     * @return {@code true} if bytes are available
+     * @throws IOException connection closed
+     */
+    private synchronized boolean await() throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeoutMillis);
+        receive();
+        while (!receiveBuffer.hasRemaining()) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            select(SelectionKey.OP_READ, remaining);
+            receive();
+        }
+        return true;
+    }
+
+    /**
+     * Write the bytes of the given buffer. Waits for the socket if the send buffer of the socket is full.
+     *
+     * @param buffer bytes to write
+     * @throws IOException connection closed or timeout
+     */
+    private synchronized void send(ByteBuffer buffer) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeoutMillis);
+        while (buffer.hasRemaining()) {
+            if (socketChannel.write(buffer) == 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    throw new InterruptedIOException("write timeout");
+                }
+                select(SelectionKey.OP_WRITE, remaining);
+            }
+        }
+    }
+
+    private void select(int interestOps, long timeoutMillis) throws IOException {
+        try {
+            key.interestOps(interestOps);
+            selector.select(timeoutMillis);
+            selector.selectedKeys().clear();
+        } catch (ClosedSelectorException | CancelledKeyException e) {
+            throw new IOException("connection closed", e);
+        }
+        if (Thread.interrupted()) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted to wait for the socket");
+        }
+    }
+
+    InputStream getInputStream() {
+        return inputStream;
+    }
+
+    OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    boolean isOpen() {
+        return socketChannel.isOpen();
+    }
+
+    /**
+     * Close the socket.
+     */
+    void close() {
+        try {
+            selector.close();
+        } catch (IOException ignore) {
+            // closed anyway
+        }
+        try {
+            socketChannel.close();
+        } catch (IOException ignore) {
+            // closed anyway
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package net.wbz.selectrix4java.device.station;
 
+import net.wbz.selectrix4java.data.InterfaceProtocol;
+import net.wbz.selectrix4java.data.StaerzProtocol;
 import net.wbz.selectrix4java.device.serial.SerialDevice;
 
 /**
+ * Serial device for the Stärz interface. The interface reads single addresses, so only the addresses in use are read
+ * instead of the full block of the FCC.
+ *
  * @author Daniel Tuerk
  */
 public class StaerzInterfaceStation extends SerialDevice {
@@ -16,4 +21,9 @@ public class StaerzInterfaceStation extends SerialDevice {
     public StaerzInterfaceStation(String deviceId, int baudRate) {
         super(deviceId, baudRate);
     }
+
+    @Override
+    protected InterfaceProtocol getProtocol() {
+        return StaerzProtocol.INSTANCE;
+    }
 }
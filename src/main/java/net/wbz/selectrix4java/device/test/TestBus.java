@@ -1,5 +1,6 @@
 package net.wbz.selectrix4java.device.test;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import org.slf4j.Logger;
@@ -19,23 +20,45 @@ class TestBus {
      * Container for the bus 0 and bus 1 for 113 addresses.
      */
     private final transient byte[] busData = new byte[226];
+    /**
+     * Replies of the requests which aren't read yet. Guarded by the bus.
+     */
+    private byte[] reply = new byte[0];
+    private int replyPosition = 0;
+    /**
+     * Flag to simulate a lost connection of the device. Each read and write fails.
+     */
+    private volatile boolean connectionLost = false;
 
     TestBus() {
         inputStream = new InputStream() {
             @Override
-            public int read() {
-                return 0;
+            public int read() throws IOException {
+                checkConnection();
+                synchronized (TestBus.this) {
+                    return replyPosition < reply.length ? reply[replyPosition++] & 0xff : -1;
+                }
             }
 
             @Override
-            public int read(byte[] b) {
-                System.arraycopy(busData, 0, b, 0, busData.length);
-                return b.length;
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkConnection();
+                synchronized (TestBus.this) {
+                    int length = Math.min(len, reply.length - replyPosition);
+                    if (length <= 0) {
+                        return len == 0 ? 0 : -1;
+                    }
+                    System.arraycopy(reply, replyPosition, b, off, length);
+                    replyPosition += length;
+                    return length;
+                }
             }
 
             @Override
             public int available() {
-                return busData.length;
+                synchronized (TestBus.this) {
+                    return reply.length - replyPosition;
+                }
             }
         };
         outputStream = new OutputStream() {
@@ -45,7 +68,8 @@ class TestBus {
             }
 
             @Override
-            public void write(byte[] b) {
+            public void write(byte[] b) throws IOException {
+                checkConnection();
                 if (b.length == 3) {
                     // write address value
                     int address = (toUnsignedInt(b[0]) * 113) + (b[1] < 0 ? b[1] + 128 : b[1]);
@@ -54,12 +78,43 @@ class TestBus {
                     } else {
                         busData[address] = b[2];
                     }
+                    reply(new byte[]{0});
+                } else if (b.length == 2) {
+                    // read bus 0 and 1
+                    reply(busData.clone());
                 }
             }
         };
 
     }
 
+    /**
+     * Append the reply of a request to the bytes which aren't read yet.
+     *
+     * @param bytes reply
+     */
+    private synchronized void reply(byte[] bytes) {
+        byte[] pending = new byte[reply.length - replyPosition + bytes.length];
+        System.arraycopy(reply, replyPosition, pending, 0, reply.length - replyPosition);
+        System.arraycopy(bytes, 0, pending, reply.length - replyPosition, bytes.length);
+        reply = pending;
+        replyPosition = 0;
+    }
+
+    private void checkConnection() throws IOException {
+        if (connectionLost) {
+            throw new IOException("connection of test bus lost");
+        }
+    }
+
+    boolean isConnectionLost() {
+        return connectionLost;
+    }
+
+    void setConnectionLost(boolean connectionLost) {
+        this.connectionLost = connectionLost;
+    }
+
     InputStream getInputStream() {
         return inputStream;
     }
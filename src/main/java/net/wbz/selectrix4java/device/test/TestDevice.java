@@ -4,6 +4,8 @@ import net.wbz.selectrix4java.bus.BusDataDispatcher;
 import net.wbz.selectrix4java.data.BusDataChannel;
 import net.wbz.selectrix4java.device.AbstractDevice;
 import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.executor.ExecutorProvider;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
 
 /**
  * Simple test device which mock an connection. The bus is simulated by the {@link
@@ -13,7 +15,40 @@ import net.wbz.selectrix4java.device.DeviceAccessException;
  */
 public class TestDevice extends AbstractDevice {
 
-    private boolean connected = false;
+    /**
+     * Simulated bus of the device. The data of the bus is kept by the reconnect of a lost connection and cleared by the
+     * disconnect of the device.
+     */
+    private volatile TestBus testBus = new TestBus();
+    private volatile boolean connected = false;
+    private final String deviceId;
+
+    /**
+     * Create test device with the id {@code test}.
+     */
+    public TestDevice() {
+        this("test");
+    }
+
+    /**
+     * Create test device.
+     *
+     * @param deviceId id of the device
+     */
+    public TestDevice(String deviceId) {
+        this(deviceId, ExecutorProviders.getDefault());
+    }
+
+    /**
+     * Create test device which uses the threads of the given provider.
+     *
+     * @param deviceId id of the device
+     * @param executorProvider {@link ExecutorProvider}
+     */
+    public TestDevice(String deviceId, ExecutorProvider executorProvider) {
+        super(executorProvider);
+        this.deviceId = deviceId;
+    }
 
     @Override
     public boolean isConnected() {
@@ -22,7 +57,7 @@ public class TestDevice extends AbstractDevice {
 
     @Override
     public String getDeviceId() {
-        return "test";
+        return deviceId;
     }
 
     @Override
@@ -30,9 +65,12 @@ public class TestDevice extends AbstractDevice {
         if (isConnected()) {
             throw new DeviceAccessException("already connected");
         }
+        if (testBus.isConnectionLost()) {
+            throw new DeviceAccessException("test bus not reachable");
+        }
         connected = true;
-        TestBus testBus = new TestBus();
-        return new BusDataChannel(testBus.getInputStream(), testBus.getOutputStream(), busDataDispatcher);
+        return new BusDataChannel(testBus.getInputStream(), testBus.getOutputStream(), busDataDispatcher,
+                getProtocol(), getExecutorProvider());
     }
 
     @Override
@@ -40,5 +78,23 @@ public class TestDevice extends AbstractDevice {
         connected = false;
     }
 
+    @Override
+    public void disconnect() throws DeviceAccessException {
+        try {
+            super.disconnect();
+        } finally {
+            testBus = new TestBus();
+        }
+    }
+
+    /**
+     * Simulate the loss of the connection, e.g. an unplugged USB cable. Each access of the bus fails until the
+     * connection is restored.
+     *
+     * @param connectionLost {@code true} to lose the connection, {@code false} to restore the connection
+     */
+    public void setConnectionLost(boolean connectionLost) {
+        testBus.setConnectionLost(connectionLost);
+    }
 
 }
@@ -0,0 +1,55 @@
+package net.wbz.selectrix4java.executor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Provider of the threads and executors which are used internally, e.g. by the channel to access the device and by the
+ * dispatcher to call the consumers.
+ * <p>
+ * The implementations are available by {@link ExecutorProviders}.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public interface ExecutorProvider {
+
+    /**
+     * Create factory for the threads with the given name. The name of each thread is suffixed by a sequence number.
+     *
+     * @param name name of the threads, e.g. {@code bus-data-dispatcher}
+     * @return {@link ThreadFactory}
+     */
+    ThreadFactory newThreadFactory(String name);
+
+    /**
+     * Create executor to run the given tasks in parallel. The tasks can block, e.g. the consumers which write to a
+     * database.
+     *
+     * @param name name of the threads
+     * @return {@link ExecutorService}
+     */
+    ExecutorService newExecutor(String name);
+
+    /**
+     * Create executor to run the given tasks sequentially by one thread.
+     *
+     * @param name name of the thread
+     * @return {@link ExecutorService}
+     */
+    default ExecutorService newSingleThreadExecutor(String name) {
+        return Executors.newSingleThreadExecutor(newThreadFactory(name));
+    }
+
+    /**
+     * Create executor to schedule the tasks by one thread.
+     *
+     * @param name name of the thread
+     * @return {@link ScheduledExecutorService}
+     */
+    default ScheduledExecutorService newSingleThreadScheduledExecutor(String name) {
+        return Executors.newSingleThreadScheduledExecutor(newThreadFactory(name));
+    }
+}
@@ -0,0 +1,94 @@
+package net.wbz.selectrix4java.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Access of the default {@link ExecutorProvider}, which is used by the channels, dispatchers and players if no provider
+ * is given.
+ * <p>
+ * The default is configured by the system property {@value #PROPERTY}:
+ * </p>
+ * <ul>
+ * <li>{@code platform}: unbounded platform threads (default)</li>
+ * <li>{@code platform:<max>}: platform threads with the given maximum of threads for each parallel executor</li>
+ * <li>{@code virtual}: virtual threads if supported by the JVM, otherwise the platform threads</li>
+ * </ul>
+ * <p>
+ * Or set the default by {@link #setDefault(ExecutorProvider)} before the devices are created.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public final class ExecutorProviders {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutorProviders.class);
+
+    /**
+     * System property to configure the default provider.
+     */
+    public static final String PROPERTY = "selectrix4java.executor";
+
+    private static volatile ExecutorProvider defaultProvider = fromProperty(System.getProperty(PROPERTY));
+
+    private ExecutorProviders() {
+    }
+
+    public static ExecutorProvider getDefault() {
+        return defaultProvider;
+    }
+
+    /**
+     * Set the default provider. Only used by the executors which are created afterwards.
+     *
+     * @param provider {@link ExecutorProvider}
+     */
+    public static void setDefault(ExecutorProvider provider) {
+        if (provider == null) {
+            throw new IllegalArgumentException("provider must not be null");
+        }
+        defaultProvider = provider;
+    }
+
+    /**
+     * Provider of virtual threads if supported by the running JVM, otherwise of unbounded platform threads.
+     *
+     * @return {@link ExecutorProvider}
+     */
+    public static ExecutorProvider virtualIfSupported() {
+        if (VirtualExecutorProvider.isSupported()) {
+            return new VirtualExecutorProvider();
+        }
+        return new PlatformExecutorProvider();
+    }
+
+    /**
+     * Create the provider for the value of the system property.
+     *
+     * @param value value of {@link #PROPERTY} or {@code null}
+     * @return {@link ExecutorProvider}
+     */
+    static ExecutorProvider fromProperty(String value) {
+        if (value == null || value.trim().isEmpty() || "platform".equals(value.trim())) {
+            return new PlatformExecutorProvider();
+        }
+        String trimmed = value.trim();
+        if ("virtual".equals(trimmed)) {
+            if (!VirtualExecutorProvider.isSupported()) {
+                log.warn("virtual threads not supported by Java {}, use platform threads",
+                        System.getProperty("java.version"));
+            }
+            return virtualIfSupported();
+        }
+        if (trimmed.startsWith("platform:")) {
+            try {
+                return new PlatformExecutorProvider(Integer.parseInt(trimmed.substring("platform:".length())));
+            } catch (IllegalArgumentException e) {
+                log.warn("invalid maximum of threads '{}', use unbounded platform threads", trimmed);
+                return new PlatformExecutorProvider();
+            }
+        }
+        log.warn("unknown executor provider '{}', use platform threads", trimmed);
+        return new PlatformExecutorProvider();
+    }
+}
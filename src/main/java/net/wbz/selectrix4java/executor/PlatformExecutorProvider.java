@@ -0,0 +1,69 @@
+package net.wbz.selectrix4java.executor;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ExecutorProvider} of platform threads. The parallel executors can be bounded to limit the number of threads;
+ * further tasks wait in the queue for a free thread.
+ *
+ * @author Daniel Tuerk
+ */
+public class PlatformExecutorProvider implements ExecutorProvider {
+
+    /**
+     * Time to keep an idle thread of a parallel executor.
+     */
+    private static final long KEEP_ALIVE_IN_SECONDS = 60L;
+
+    private final int maxThreads;
+
+    /**
+     * Create provider with unbounded parallel executors, which create a new thread if all threads are busy.
+     */
+    public PlatformExecutorProvider() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create provider with bounded parallel executors.
+     *
+     * @param maxThreads maximum number of threads of each parallel executor
+     */
+    public PlatformExecutorProvider(int maxThreads) {
+        Preconditions.checkArgument(maxThreads > 0, "maximum number of threads must be positive: %s", maxThreads);
+        this.maxThreads = maxThreads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    @Override
+    public ThreadFactory newThreadFactory(String name) {
+        return new ThreadFactoryBuilder().setNameFormat(name + "-%d").build();
+    }
+
+    @Override
+    public ExecutorService newExecutor(String name) {
+        if (maxThreads == Integer.MAX_VALUE) {
+            return Executors.newCachedThreadPool(newThreadFactory(name));
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_IN_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), newThreadFactory(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("maxThreads", maxThreads).toString();
+    }
+}
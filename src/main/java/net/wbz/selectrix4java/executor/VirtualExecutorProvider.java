@@ -0,0 +1,92 @@
+package net.wbz.selectrix4java.executor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link ExecutorProvider} of virtual threads, which are available since Java 21. A blocking task doesn't block an OS
+ * thread, so the parallel executor starts a new virtual thread for each task without a pool.
+ * <p>
+ * The library is compiled for Java 8, so the virtual threads are created by reflection. Use {@link #isSupported()} to
+ * check the running JVM.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public class VirtualExecutorProvider implements ExecutorProvider {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            // preview of older versions throws an exception if the preview isn't enabled
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    /**
+     * Create provider of virtual threads.
+     *
+     * @throws UnsupportedOperationException virtual threads aren't supported by the running JVM
+     */
+    public VirtualExecutorProvider() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException(
+                    "virtual threads not supported by Java " + System.getProperty("java.version"));
+        }
+    }
+
+    /**
+     * Check if the running JVM supports virtual threads.
+     *
+     * @return {@code true} if supported
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    @Override
+    public ThreadFactory newThreadFactory(String name) {
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            BUILDER_NAME.invoke(builder, name + "-", 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("can't create factory of virtual threads", e);
+        }
+    }
+
+    @Override
+    public ExecutorService newExecutor(String name) {
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, newThreadFactory(name));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("can't create executor of virtual threads", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualExecutorProvider";
+    }
+}
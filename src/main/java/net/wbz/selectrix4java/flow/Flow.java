@@ -0,0 +1,65 @@
+package net.wbz.selectrix4java.flow;
+
+/**
+ * Interfaces of the reactive streams as defined by {@code java.util.concurrent.Flow} since Java 9. The library runs on
+ * Java 8, so the interfaces are declared here with the same methods and contract. A subscriber for the JDK or another
+ * reactive library is adapted by delegating the methods one by one.
+ *
+ * @author Daniel Tuerk
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * Producer of the items which are received by the subscribers.
+     *
+     * @param <T> type of the items
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+
+        /**
+         * Add the given subscriber. The subscriber receives {@link Subscriber#onSubscribe(Subscription)} first and
+         * afterwards only the number of items which are requested by the subscription.
+         *
+         * @param subscriber {@link Subscriber}
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receiver of the items. The methods of one subscriber are called one after another, never concurrently.
+     *
+     * @param <T> type of the items
+     */
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * Link of a publisher and a subscriber to request the items.
+     */
+    public interface Subscription {
+
+        /**
+         * Request the given number of further items.
+         *
+         * @param n number of items, must be positive
+         */
+        void request(long n);
+
+        /**
+         * Stop to receive items.
+         */
+        void cancel();
+    }
+}
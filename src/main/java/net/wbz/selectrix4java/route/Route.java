@@ -0,0 +1,162 @@
+package net.wbz.selectrix4java.route;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.wbz.selectrix4java.block.BlockSet;
+import net.wbz.selectrix4java.bus.BitDiff;
+
+/**
+ * Immutable route over the blocks of the {@link net.wbz.selectrix4java.block.BlockModule}s with the positions of the
+ * turnouts.
+ * <p>
+ * The blocks and the turnout bits of the route are precomputed as one mask of words, so the {@link RouteEngine} checks
+ * and reserves the route by a few word operations. Two routes conflict if they share a block or a turnout.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public final class Route {
+
+    static final int ADDRESSES_PER_BUS = 113;
+    static final int BUS_COUNT = 2;
+    /**
+     * Words of the blocks and of the turnout bits; each part has one bit for each bit of all addresses.
+     */
+    private static final int PART_WORDS = (BUS_COUNT * ADDRESSES_PER_BUS * 8 + 63) / 64;
+    static final int WORDS = PART_WORDS * 2;
+
+    private final String name;
+    private final BlockSet blocks;
+    private final List<TurnoutPosition> turnouts;
+    /**
+     * Reservation mask: the words of the blocks followed by the words of the turnout bits.
+     */
+    private final long[] mask;
+    /**
+     * Masks and values of the turnout bits by the index of the decoder address.
+     */
+    private final int[] turnoutAddresses;
+    private final int[] turnoutMasks;
+    private final int[] turnoutValues;
+
+    /**
+     * Create route.
+     *
+     * @param name name of the route
+     * @param blocks {@link BlockSet} of the route
+     * @param turnouts {@link TurnoutPosition}s of the route, at most one position for each turnout
+     */
+    public Route(String name, BlockSet blocks, List<TurnoutPosition> turnouts) {
+        this.name = name;
+        this.blocks = blocks;
+        this.turnouts = ImmutableList.copyOf(turnouts);
+
+        mask = new long[WORDS];
+        System.arraycopy(blocks.toLongArray(), 0, mask, 0, PART_WORDS);
+        Map<Integer, int[]> addresses = new LinkedHashMap<>();
+        for (TurnoutPosition turnout : turnouts) {
+            Preconditions.checkArgument(turnout.getBus() >= 0 && turnout.getBus() < BUS_COUNT, "invalid bus: %s",
+                    turnout.getBus());
+            Preconditions.checkArgument(turnout.getAddress() >= 0 && turnout.getAddress() < ADDRESSES_PER_BUS,
+                    "invalid address: %s", turnout.getAddress());
+            int addressIndex = turnout.getBus() * ADDRESSES_PER_BUS + turnout.getAddress();
+            int index = addressIndex * 8 + turnout.getBit() - 1;
+            long bit = 1L << index;
+            Preconditions.checkArgument((mask[PART_WORDS + (index >>> 6)] & bit) == 0,
+                    "several positions for turnout: %s", turnout);
+            mask[PART_WORDS + (index >>> 6)] |= bit;
+
+            int[] maskAndValue = addresses.computeIfAbsent(addressIndex, key -> new int[2]);
+            maskAndValue[0] |= BitDiff.mask(turnout.getBit());
+            if (turnout.getState()) {
+                maskAndValue[1] |= BitDiff.mask(turnout.getBit());
+            }
+        }
+        turnoutAddresses = new int[addresses.size()];
+        turnoutMasks = new int[addresses.size()];
+        turnoutValues = new int[addresses.size()];
+        int i = 0;
+        for (Map.Entry<Integer, int[]> entry : addresses.entrySet()) {
+            turnoutAddresses[i] = entry.getKey();
+            turnoutMasks[i] = entry.getValue()[0];
+            turnoutValues[i] = entry.getValue()[1];
+            i++;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BlockSet getBlocks() {
+        return blocks;
+    }
+
+    public List<TurnoutPosition> getTurnouts() {
+        return turnouts;
+    }
+
+    /**
+     * Check if the route shares a block or a turnout with the given route.
+     *
+     * @param other {@link Route}
+     * @return {@code true} if both routes can't be reserved at the same time
+     */
+    public boolean conflictsWith(Route other) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((mask[i] & other.mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reservation mask of the route, not copied for the engine.
+     *
+     * @return words of the blocks and the turnout bits
+     */
+    long[] mask() {
+        return mask;
+    }
+
+    /**
+     * Number of the decoder addresses of the turnouts.
+     *
+     * @return count of addresses
+     */
+    int getTurnoutAddressCount() {
+        return turnoutAddresses.length;
+    }
+
+    /**
+     * Index of the decoder address.
+     *
+     * @param i index of the decoder address in the route
+     * @return {@code bus * 113 + address}
+     */
+    int getTurnoutAddress(int i) {
+        return turnoutAddresses[i];
+    }
+
+    /**
+     * Merge the turnout bits of the route into the given value of the decoder address.
+     *
+     * @param i index of the decoder address in the route
+     * @param value current value of the address
+     * @return new value of the address
+     */
+    int mergeTurnouts(int i, int value) {
+        return (value & ~turnoutMasks[i]) | turnoutValues[i];
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("name", name).add("blocks", blocks).add("turnouts", turnouts)
+                .toString();
+    }
+}
@@ -0,0 +1,13 @@
+package net.wbz.selectrix4java.route;
+
+/**
+ * Route can't be reserved, because a block or a turnout is reserved by another route or a block is occupied.
+ *
+ * @author Daniel Tuerk
+ */
+public class RouteConflictException extends Exception {
+
+    public RouteConflictException(String s) {
+        super(s);
+    }
+}
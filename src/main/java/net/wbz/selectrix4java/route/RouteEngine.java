@@ -0,0 +1,181 @@
+package net.wbz.selectrix4java.route;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import net.wbz.selectrix4java.data.BusUpdate;
+import net.wbz.selectrix4java.data.WriteResult;
+import net.wbz.selectrix4java.device.Device;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reserve the {@link Route}s of the device and switch the turnouts of the reserved routes.
+ * <p>
+ * The blocks and turnouts of all reserved routes are held as one bitset. A route is reserved by a compare-and-set of
+ * each word of its mask, without a lock: if a bit of the route is already reserved, the words taken so far are released
+ * and the reservation fails. So conflicting requests never wait for each other and the check of a route costs a few
+ * word operations, independent of the number of routes. A request can fail by a concurrent request which is released
+ * afterwards by its own conflict; the caller retries the route later like any other conflict.
+ * </p>
+ * <p>
+ * The turnouts of a route are sent as one group by {@link Device#updateGroup(List)}. Several turnouts can share a
+ * decoder address, so the bits of the route are merged into the latest known value of the address during the execution
+ * of the group. The groups of several routes are executed one after another by the channel, so each group is merged
+ * into the result of the previous one without a lock of the engine.
+ * </p>
+ *
+ * @author Daniel Tuerk
+ */
+public class RouteEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteEngine.class);
+
+    private final Device device;
+    private final AtomicLongArray reserved = new AtomicLongArray(Route.WORDS);
+    private final Set<Route> reservedRoutes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create engine for the routes of the given device.
+     *
+     * @param device {@link Device} to check the occupied blocks and to switch the turnouts
+     */
+    public RouteEngine(Device device) {
+        this.device = device;
+    }
+
+    /**
+     * Check if the route can be reserved, i.e. no block or turnout is reserved by another route.
+     *
+     * @param route {@link Route}
+     * @return {@code true} if the route doesn't conflict with the reserved routes
+     */
+    public boolean isAvailable(Route route) {
+        long[] mask = route.mask();
+        for (int i = 0; i < Route.WORDS; i++) {
+            if (mask[i] != 0 && (reserved.get(i) & mask[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isReserved(Route route) {
+        return reservedRoutes.contains(route);
+    }
+
+    /**
+     * Reserve the blocks and turnouts of the route, if all blocks are free and no other route has reserved a block or
+     * turnout of the route.
+     *
+     * @param route {@link Route}
+     * @return {@code true} if the route is reserved
+     */
+    public boolean tryReserve(Route route) {
+        if (!device.getOccupancyMap().isAllFree(route.getBlocks())) {
+            log.debug("route {} has occupied blocks", route.getName());
+            return false;
+        }
+        long[] mask = route.mask();
+        for (int i = 0; i < Route.WORDS; i++) {
+            if (mask[i] == 0) {
+                continue;
+            }
+            long current;
+            do {
+                current = reserved.get(i);
+                if ((current & mask[i]) != 0) {
+                    releaseWords(mask, i);
+                    log.debug("route {} conflicts with a reserved route", route.getName());
+                    return false;
+                }
+            } while (!reserved.compareAndSet(i, current, current | mask[i]));
+        }
+        reservedRoutes.add(route);
+        return true;
+    }
+
+    /**
+     * Release the blocks and turnouts of the reserved route. Ignored if the route isn't reserved.
+     *
+     * @param route {@link Route}
+     */
+    public void release(Route route) {
+        if (reservedRoutes.remove(route)) {
+            releaseWords(route.mask(), Route.WORDS);
+        }
+    }
+
+    /**
+     * Reserve the route and switch the turnouts of the route as one group. The route is released if the turnouts can't
+     * be switched.
+     *
+     * @param route {@link Route}
+     * @return future completed with the {@link WriteResult} of each decoder address or completed exceptionally by a
+     *         {@link RouteConflictException} if the route can't be reserved
+     */
+    public CompletableFuture<List<WriteResult>> setRoute(Route route) {
+        CompletableFuture<List<WriteResult>> future = new CompletableFuture<>();
+        if (!tryReserve(route)) {
+            future.completeExceptionally(new RouteConflictException("can't reserve route " + route.getName()));
+            return future;
+        }
+        try {
+            sendTurnouts(route).whenComplete((results, throwable) -> {
+                if (throwable != null) {
+                    release(route);
+                    future.completeExceptionally(throwable);
+                } else {
+                    future.complete(results);
+                }
+            });
+        } catch (DeviceAccessException e) {
+            release(route);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Switch the turnouts of the reserved route as one group, e.g. to set the route again after a reconnect.
+     *
+     * @param route reserved {@link Route}
+     * @return future completed with the {@link WriteResult} of each decoder address
+     * @throws DeviceAccessException no access
+     */
+    public CompletableFuture<List<WriteResult>> sendTurnouts(Route route) throws DeviceAccessException {
+        if (!isReserved(route)) {
+            throw new IllegalStateException("route not reserved: " + route.getName());
+        }
+        List<BusUpdate> group = new ArrayList<>(route.getTurnoutAddressCount());
+        for (int i = 0; i < route.getTurnoutAddressCount(); i++) {
+            final int turnoutIndex = i;
+            int addressIndex = route.getTurnoutAddress(i);
+            group.add(new BusUpdate(addressIndex / Route.ADDRESSES_PER_BUS, addressIndex % Route.ADDRESSES_PER_BUS,
+                    value -> route.mergeTurnouts(turnoutIndex, value)));
+        }
+        return device.updateGroup(group);
+    }
+
+    /**
+     * Release the bits of the mask for the words before the given index.
+     *
+     * @param mask mask of the route
+     * @param toIndex index of the first word to keep
+     */
+    private void releaseWords(long[] mask, int toIndex) {
+        for (int i = 0; i < toIndex; i++) {
+            if (mask[i] == 0) {
+                continue;
+            }
+            long current;
+            do {
+                current = reserved.get(i);
+            } while (!reserved.compareAndSet(i, current, current & ~mask[i]));
+        }
+    }
+}
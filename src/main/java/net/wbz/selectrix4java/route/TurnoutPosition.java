@@ -0,0 +1,73 @@
+package net.wbz.selectrix4java.route;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Position of a turnout which is switched by a single bit of a decoder address.
+ *
+ * @author Daniel Tuerk
+ */
+public final class TurnoutPosition {
+
+    private final int bus;
+    private final int address;
+    private final int bit;
+    private final boolean state;
+
+    /**
+     * Create position of the turnout.
+     *
+     * @param bus number of bus
+     * @param address address of the decoder
+     * @param bit number of the bit (1-8)
+     * @param state state of the bit for the position of the route
+     */
+    public TurnoutPosition(int bus, int address, int bit, boolean state) {
+        Preconditions.checkArgument(bit >= 1 && bit <= 8, "invalid bit: %s", bit);
+        this.bus = bus;
+        this.address = address;
+        this.bit = bit;
+        this.state = state;
+    }
+
+    public int getBus() {
+        return bus;
+    }
+
+    public int getAddress() {
+        return address;
+    }
+
+    public int getBit() {
+        return bit;
+    }
+
+    public boolean getState() {
+        return state;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TurnoutPosition that = (TurnoutPosition) o;
+        return bus == that.bus && address == that.address && bit == that.bit && state == that.state;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(bus, address, bit, state);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("bus", bus).add("address", address).add("bit", bit)
+                .add("state", state).toString();
+    }
+}
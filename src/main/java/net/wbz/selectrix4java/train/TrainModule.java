@@ -1,12 +1,15 @@
 package net.wbz.selectrix4java.train;
 
-import com.google.common.collect.Lists;
-import java.math.BigInteger;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import net.wbz.selectrix4java.Module;
+import net.wbz.selectrix4java.bus.BitDiff;
 import net.wbz.selectrix4java.bus.BusAddress;
 import net.wbz.selectrix4java.bus.BusAddressListener;
 import net.wbz.selectrix4java.bus.consumption.AbstractBusDataConsumer;
+import net.wbz.selectrix4java.data.WriteResult;
 
 /**
  * This module is an wrapper for {@link net.wbz.selectrix4java.bus.BusAddress}s from an function decoder of an train.
@@ -34,6 +37,10 @@ public class TrainModule implements Module {
      * Horn of the train: bit 8
      */
     private static final int BIT_HORN = 8;
+    /**
+     * Driving level of the train: bit 1-5
+     */
+    private static final int DRIVING_LEVEL_MASK = 0x1f;
     /**
      * Main address of the train.
      */
@@ -41,7 +48,7 @@ public class TrainModule implements Module {
     /**
      * Additional function addresses of the train or even an second decoder.
      */
-    private final List<BusAddress> additionalAddresses;
+    private final List<BusAddress> additionalAddresses = new CopyOnWriteArrayList<>();
     /**
      * Dispatcher to fire asynchronous the train events to the listeners.
      */
@@ -64,26 +71,23 @@ public class TrainModule implements Module {
 
             @Override
             public void dataChanged(byte oldValue, byte newValue) {
-                BigInteger wrappedOldValue = BigInteger.valueOf(oldValue);
-                BigInteger wrappedNewValue = BigInteger.valueOf(newValue);
+                int changed = initialCall ? BitDiff.ALL_BITS : BitDiff.changed(oldValue, newValue);
 
                 // direction
-                if (initialCall || wrappedOldValue.testBit(BIT_DRIVING_DIRECTION - 1) != wrappedNewValue
-                        .testBit(BIT_DRIVING_DIRECTION - 1)) {
-                    dispatcher.fireDrivingDirectionChanged(
-                            wrappedNewValue.testBit(BIT_DRIVING_DIRECTION - 1) ? DRIVING_DIRECTION.FORWARD
-                                    : DRIVING_DIRECTION.BACKWARD);
+                if ((changed & BitDiff.mask(BIT_DRIVING_DIRECTION)) != 0) {
+                    dispatcher.fireDrivingDirectionChanged(BitDiff.isSet(newValue, BIT_DRIVING_DIRECTION)
+                            ? DRIVING_DIRECTION.FORWARD : DRIVING_DIRECTION.BACKWARD);
                 }
                 // light
-                if (initialCall || wrappedOldValue.testBit(BIT_LIGHT - 1) != wrappedNewValue.testBit(BIT_LIGHT - 1)) {
-                    dispatcher.fireLightStateChanged(wrappedNewValue.testBit(BIT_LIGHT - 1));
+                if ((changed & BitDiff.mask(BIT_LIGHT)) != 0) {
+                    dispatcher.fireLightStateChanged(BitDiff.isSet(newValue, BIT_LIGHT));
                 }
                 // horn
-                if (initialCall || wrappedOldValue.testBit(BIT_HORN - 1) != wrappedNewValue.testBit(BIT_HORN - 1)) {
-                    dispatcher.fireHornStateChanged(wrappedNewValue.testBit(BIT_HORN - 1));
+                if ((changed & BitDiff.mask(BIT_HORN)) != 0) {
+                    dispatcher.fireHornStateChanged(BitDiff.isSet(newValue, BIT_HORN));
                 }
                 // speed: check for changes in bit 1-5
-                int newDrivingLevel = wrappedNewValue.clearBit(5).clearBit(6).clearBit(7).intValue() & 0xff;
+                int newDrivingLevel = newValue & DRIVING_LEVEL_MASK;
                 if (initialCall || lastDrivingLevel != newDrivingLevel) {
                     dispatcher.fireDrivingLevelChanged(newDrivingLevel);
                 }
@@ -91,40 +95,55 @@ public class TrainModule implements Module {
                 initialCall = false;
             }
         });
-        this.additionalAddresses = Lists.newArrayList(additionalAddresses);
         for (final BusAddress additionalAddress : additionalAddresses) {
-            registerAdditionalAddress(additionalAddress);
+            addAdditionalAddress(additionalAddress);
         }
     }
 
     private void registerAdditionalAddress(final BusAddress additionalAddress) {
         additionalAddress.addListener(new BusAddressListener() {
+            private final BitDiff.BitChangeHandler functionHandler = (bit, state) -> dispatcher
+                    .fireFunctionStateChanged(additionalAddress.getAddress(), bit, state);
             private boolean initialCall = true;
 
             @Override
             public void dataChanged(byte oldValue, byte newValue) {
-                for (int i = 1; i < 9; i++) {
-                    boolean newBitState = BigInteger.valueOf(newValue).testBit(i);
-                    if (initialCall || BigInteger.valueOf(oldValue).testBit(i) != newBitState) {
-                        dispatcher.fireFunctionStateChanged(additionalAddress.getAddress(), i, newBitState);
-                    }
-                }
+                // function bits 1-8 like the bits of the address
+                BitDiff.forEach(initialCall ? BitDiff.ALL_BITS : BitDiff.changed(oldValue, newValue), newValue,
+                        functionHandler);
                 initialCall = false;
             }
         });
     }
 
-    public void setFunctionState(BusAddress address, int bit, boolean state) {
-        if (!additionalAddresses.contains(address)) {
-            additionalAddresses.add(address);
-            registerAdditionalAddress(address);
+    /**
+     * Add the given function address to the train. Ignored if the address is already known by the train.
+     *
+     * @param additionalAddress {@link BusAddress} of the function decoder
+     */
+    public synchronized void addAdditionalAddress(BusAddress additionalAddress) {
+        if (!additionalAddresses.contains(additionalAddress)) {
+            additionalAddresses.add(additionalAddress);
+            registerAdditionalAddress(additionalAddress);
         }
+    }
+
+    /**
+     * Change the state of a function bit of the given function decoder address.
+     *
+     * @param address {@link BusAddress} of the function decoder
+     * @param bit number of bit (1-8)
+     * @param state function state
+     * @return future completed with the {@link WriteResult} of the write
+     */
+    public CompletableFuture<WriteResult> setFunctionState(BusAddress address, int bit, boolean state) {
+        addAdditionalAddress(address);
         if (state) {
             address.setBit(bit);
         } else {
             address.clearBit(bit);
         }
-        address.send();
+        return address.send();
     }
 
     /**
@@ -132,24 +151,37 @@ public class TrainModule implements Module {
      *
      * @param level target
      * @return {@link net.wbz.selectrix4java.train.TrainModule}
+     * @see #sendDrivingLevel(int)
      */
     public TrainModule setDrivingLevel(int level) {
+        sendDrivingLevel(level);
+        return this;
+    }
+
+    /**
+     * Change the driving level. Use the future to check that the level, e.g. the stop of the train, is taken over by
+     * the bus.
+     *
+     * @param level target (0-31)
+     * @return future completed with the {@link WriteResult} of the write or {@code null} if nothing was send for an
+     *         invalid level or the actual level
+     */
+    public CompletableFuture<WriteResult> sendDrivingLevel(int level) {
         // avoid duplicate sending
         if (level != lastDrivingLevel) {
             if (level >= 0 && level <= 31) {
                 // bit 1-5
-                BigInteger wrappedLevel = BigInteger.valueOf(level);
-                for (int i = 0; i < 5; i++) {
-                    if (wrappedLevel.testBit(i)) {
-                        address.setBit(i + 1);
+                for (int bit = 1; bit <= 5; bit++) {
+                    if (BitDiff.isSet(level, bit)) {
+                        address.setBit(bit);
                     } else {
-                        address.clearBit(i + 1);
+                        address.clearBit(bit);
                     }
                 }
-                address.send();
+                return address.send();
             }
         }
-        return this;
+        return CompletableFuture.completedFuture(null);
     }
 
     /**
@@ -157,8 +189,20 @@ public class TrainModule implements Module {
      *
      * @param direction {@link net.wbz.selectrix4java.train.TrainModule.DRIVING_DIRECTION}
      * @return {@link net.wbz.selectrix4java.train.TrainModule}
+     * @see #sendDirection(DRIVING_DIRECTION)
      */
     public TrainModule setDirection(DRIVING_DIRECTION direction) {
+        sendDirection(direction);
+        return this;
+    }
+
+    /**
+     * Change the driving direction.
+     *
+     * @param direction {@link net.wbz.selectrix4java.train.TrainModule.DRIVING_DIRECTION}
+     * @return future completed with the {@link WriteResult} of the write
+     */
+    public CompletableFuture<WriteResult> sendDirection(DRIVING_DIRECTION direction) {
         switch (direction) {
             case FORWARD:
                 address.setBit(BIT_DRIVING_DIRECTION);
@@ -167,8 +211,7 @@ public class TrainModule implements Module {
                 address.clearBit(BIT_DRIVING_DIRECTION);
                 break;
         }
-        address.send();
-        return this;
+        return address.send();
     }
 
     /**
@@ -176,15 +219,26 @@ public class TrainModule implements Module {
      *
      * @param state light state
      * @return {@link net.wbz.selectrix4java.train.TrainModule}
+     * @see #sendLight(boolean)
      */
     public TrainModule setLight(boolean state) {
+        sendLight(state);
+        return this;
+    }
+
+    /**
+     * Turn light on or off.
+     *
+     * @param state light state
+     * @return future completed with the {@link WriteResult} of the write
+     */
+    public CompletableFuture<WriteResult> sendLight(boolean state) {
         if (state) {
             address.setBit(BIT_LIGHT);
         } else {
             address.clearBit(BIT_LIGHT);
         }
-        address.send();
-        return this;
+        return address.send();
     }
 
     /**
@@ -192,15 +246,55 @@ public class TrainModule implements Module {
      *
      * @param state horn state
      * @return {@link net.wbz.selectrix4java.train.TrainModule}
+     * @see #sendHorn(boolean)
      */
     public TrainModule setHorn(boolean state) {
+        sendHorn(state);
+        return this;
+    }
+
+    /**
+     * Turn horn on or off.
+     *
+     * @param state horn state
+     * @return future completed with the {@link WriteResult} of the write
+     */
+    public CompletableFuture<WriteResult> sendHorn(boolean state) {
         if (state) {
             address.setBit(BIT_HORN);
         } else {
             address.clearBit(BIT_HORN);
         }
-        address.send();
-        return this;
+        return address.send();
+    }
+
+    /**
+     * Wait for the given driving level of the train. The level is evaluated for the received data of the bus without
+     * polling.
+     *
+     * @param level driving level (0-31)
+     * @param timeout timeout to wait or {@code 0} to wait without timeout
+     * @param unit unit of the timeout
+     * @return future which is completed by the driving level or completed exceptionally by an {@link
+     *         java.util.concurrent.TimeoutException}
+     */
+    public CompletableFuture<Void> waitForDrivingLevel(int level, long timeout, TimeUnit unit) {
+        // bit 1-5
+        return address.waitFor(data -> (data & 0x1f) == level, timeout, unit).thenApply(data -> null);
+    }
+
+    /**
+     * Wait for the given driving direction of the train.
+     *
+     * @param direction {@link net.wbz.selectrix4java.train.TrainModule.DRIVING_DIRECTION}
+     * @param timeout timeout to wait or {@code 0} to wait without timeout
+     * @param unit unit of the timeout
+     * @return future which is completed by the driving direction or completed exceptionally by an {@link
+     *         java.util.concurrent.TimeoutException}
+     */
+    public CompletableFuture<Void> waitForDirection(DRIVING_DIRECTION direction, long timeout, TimeUnit unit) {
+        return address.waitForBit(BIT_DRIVING_DIRECTION, direction == DRIVING_DIRECTION.FORWARD, timeout, unit)
+                .thenApply(data -> null);
     }
 
     /**
@@ -0,0 +1,63 @@
+package net.wbz.selectrix4java.block;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the snapshots of the {@link OccupancyMap} and the checks of a {@link BlockSet}.
+ *
+ * @author Daniel Tuerk
+ */
+public class OccupancyMapTest {
+
+    @Test
+    public void testRouteFree() {
+        OccupancyMap map = new OccupancyMap();
+        map.register(1, 10);
+        map.register(1, 11);
+        map.register(0, 112);
+        // route over blocks of several modules on both buses
+        BlockSet route = BlockSet.of(1, 10, 2, 3).with(1, 11, 8).with(0, 112, 1);
+        Assert.assertEquals(4, route.size());
+        Assert.assertTrue(map.isAllFree(route));
+
+        byte[][] busData = new byte[2][113];
+        busData[1][10] = 0b0001;
+        busData[1][11] = 0b0100_0000;
+        map.receivedAll(busData);
+        OccupancySnapshot before = map.snapshot();
+        Assert.assertTrue(before.isAllFree(route));
+        Assert.assertTrue(before.isOccupied(1, 10, 1));
+        Assert.assertTrue(before.isOccupied(1, 11, 7));
+        // both modules of the read are published by one snapshot
+        Assert.assertEquals(1, before.getVersion());
+
+        busData[0][112] = 0b0001;
+        map.received(0, busData[0]);
+        Assert.assertFalse(map.isAllFree(route));
+        Assert.assertEquals(BlockSet.of(0, 112, 1), map.snapshot().getOccupied(route));
+        Assert.assertEquals(BlockSet.of(1, 10, 1).with(1, 11, 7).with(0, 112, 1), map.snapshot().asBlockSet());
+        // snapshot isn't changed by the later update
+        Assert.assertTrue(before.isAllFree(route));
+        Assert.assertEquals(before.getVersion() + 1, map.snapshot().getVersion());
+
+        // same value doesn't create a new snapshot
+        OccupancySnapshot current = map.snapshot();
+        map.receivedAll(busData);
+        Assert.assertSame(current, map.snapshot());
+
+        // addresses without registered module are ignored
+        busData[0][50] = (byte) 0xff;
+        map.receivedAll(busData);
+        Assert.assertSame(current, map.snapshot());
+        Assert.assertFalse(map.isOccupied(0, 50, 1));
+
+        busData[1][10] = 0b0111;
+        busData[1][11] = (byte) 0xff;
+        map.receivedAll(busData);
+        Assert.assertTrue(map.snapshot().isAllOccupied(route));
+
+        map.clear();
+        Assert.assertTrue(map.isAllFree(BlockSet.ofModule(1, 10).union(route)));
+    }
+}
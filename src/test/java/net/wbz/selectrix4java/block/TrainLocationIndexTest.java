@@ -0,0 +1,47 @@
+package net.wbz.selectrix4java.block;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the lookups and the listeners of the {@link TrainLocationIndex}.
+ *
+ * @author Daniel Tuerk
+ */
+public class TrainLocationIndexTest {
+
+    @Test
+    public void testTrainMovesAcrossModules() {
+        TrainLocationIndex index = new TrainLocationIndex();
+        final List<TrainLocation> changes = new ArrayList<>();
+        index.addListener((trainAddress, oldLocation, newLocation) -> changes.add(newLocation));
+
+        index.trainEntered(1, 10, 3, 7, true);
+        index.trainEntered(1, 10, 3, 120, false);
+        Assert.assertEquals(Arrays.asList(7, 120), index.getTrains(1, 10, 3));
+        Assert.assertTrue(index.getLocation(7).isBlock(1, 10, 3));
+        Assert.assertFalse(index.getLocation(120).isForward());
+
+        // enter the next block of another module before leaving the previous block
+        index.trainEntered(1, 20, 1, 7, true);
+        Assert.assertTrue(index.getLocation(7).isBlock(1, 20, 1));
+        Assert.assertTrue(index.isInBlock(7, 1, 10, 3));
+        index.trainLeft(1, 10, 3, 7);
+        Assert.assertFalse(index.isInBlock(7, 1, 10, 3));
+        Assert.assertTrue(index.getLocation(7).isBlock(1, 20, 1));
+        Assert.assertEquals(3, changes.size());
+
+        index.trainLeft(1, 10, 3, 120);
+        Assert.assertNull(index.getLocation(120));
+        Assert.assertFalse(index.hasTrain(1, 10, 3));
+        Assert.assertNull(changes.get(3));
+
+        index.resetModule(1, 20);
+        Assert.assertNull(index.getLocation(7));
+        Assert.assertTrue(index.getTrains(1, 20, 1).isEmpty());
+        Assert.assertEquals(5, changes.size());
+    }
+}
@@ -0,0 +1,39 @@
+package net.wbz.selectrix4java.bus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the changed bits of the {@link BitDiff}.
+ *
+ * @author Daniel Tuerk
+ */
+public class BitDiffTest {
+
+    @Test
+    public void testChangedBits() {
+        final List<String> changes = new ArrayList<>();
+        BitDiff.BitChangeHandler handler = (bit, state) -> changes.add(bit + "=" + state);
+
+        // signed byte of the bus with bit 8
+        BitDiff.forEachChanged((byte) 0b1000_0001, (byte) 0b0000_0101, handler);
+        Assert.assertEquals(Arrays.asList("3=true", "8=false"), changes);
+
+        changes.clear();
+        BitDiff.forEachChanged(42, 42, handler);
+        Assert.assertTrue(changes.isEmpty());
+
+        BitDiff.forEach(BitDiff.ALL_BITS, 0b0000_0001, handler);
+        Assert.assertEquals(8, changes.size());
+        Assert.assertEquals("1=true", changes.get(0));
+        Assert.assertEquals("8=false", changes.get(7));
+
+        Assert.assertTrue(BitDiff.isSet((byte) 0x80, 8));
+        Assert.assertFalse(BitDiff.isSet(0x7f, 8));
+        Assert.assertTrue(BitDiff.isChanged(0, 1, 1));
+        Assert.assertFalse(BitDiff.isChanged(0, 1, 2));
+    }
+}
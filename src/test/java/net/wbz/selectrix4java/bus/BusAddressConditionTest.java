@@ -0,0 +1,70 @@
+package net.wbz.selectrix4java.bus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.wbz.selectrix4java.block.BlockModule;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.device.serial.BaseTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test to wait for conditions of the {@link BusAddress} and modules.
+ *
+ * @author Daniel Tuerk
+ */
+public class BusAddressConditionTest extends BaseTest {
+
+    @Test
+    public void testWaitForData() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        BusAddress busAddress = getDevice().getBusAddress(1, 7);
+        CompletableFuture<Byte> future = busAddress.waitForData((byte) 12, 2, TimeUnit.SECONDS);
+        Assert.assertFalse(future.isDone());
+
+        busAddress.sendData((byte) 12);
+        Assert.assertEquals(12, (byte) future.get(3, TimeUnit.SECONDS));
+
+        // already matching value completes immediately
+        Assert.assertTrue(busAddress.waitForBit(3, true, 1, TimeUnit.SECONDS).isDone());
+    }
+
+    @Test
+    public void testCompletedWithoutLock() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        final BusAddress busAddress = getDevice().getBusAddress(1, 9);
+        // dependent action is executed by the thread of the consumer
+        CompletableFuture<Boolean> holdsLock = busAddress.waitForData((byte) 21, 2, TimeUnit.SECONDS).thenApply(
+                data -> Thread.holdsLock(busAddress));
+
+        busAddress.sendData((byte) 21);
+        Assert.assertFalse(holdsLock.get(3, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTimeout() throws DeviceAccessException, InterruptedException {
+        CompletableFuture<Byte> future = getDevice().getBusAddress(1, 8).waitForData((byte) 99, 300,
+                TimeUnit.MILLISECONDS);
+        try {
+            future.get(2, TimeUnit.SECONDS);
+            Assert.fail("condition should time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        } catch (TimeoutException e) {
+            Assert.fail("future not completed by the timeout");
+        }
+    }
+
+    @Test
+    public void testWaitForBlockState() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        BlockModule blockModule = getDevice().getBlockModule(20);
+        CompletableFuture<Void> future = blockModule.waitForBlockState(3, true, 2, TimeUnit.SECONDS);
+
+        getDevice().getBusAddress(1, 20).sendData((byte) 4);
+        future.get(3, TimeUnit.SECONDS);
+        Assert.assertTrue(blockModule.getBusAddress().getBitState(3));
+    }
+}
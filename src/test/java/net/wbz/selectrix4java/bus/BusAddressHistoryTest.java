@@ -0,0 +1,60 @@
+package net.wbz.selectrix4java.bus;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link BusAddressHistory}.
+ *
+ * @author Daniel Tuerk
+ */
+public class BusAddressHistoryTest {
+
+    @Test
+    public void testRingBuffer() {
+        BusAddressHistory history = new BusAddressHistory(3);
+        for (int value = 1; value <= 5; value++) {
+            history.record(1, 58, value - 1, value, 1000L * value, BusChangeSource.READ);
+        }
+        List<BusChangeEvent> changes = history.getChanges(1, 58);
+        Assert.assertEquals(3, changes.size());
+        Assert.assertEquals(3, changes.get(0).getNewValue());
+        Assert.assertEquals(5, changes.get(2).getNewValue());
+        Assert.assertEquals(5, history.getChangeCount(1, 58));
+
+        Assert.assertEquals(2, history.getChangesSince(1, 58, 4000L).size());
+        Assert.assertTrue(history.getChanges(0, 58).isEmpty());
+        Assert.assertTrue(history.getChanges(1, 58, 30, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    public void testLastBitChange() {
+        BusAddressHistory history = new BusAddressHistory(10);
+        history.record(0, 7, 0, 4, 100L, BusChangeSource.READ);
+        history.record(0, 7, 4, 0, 200L, BusChangeSource.READ);
+        history.record(0, 7, 0, 5, 300L, BusChangeSource.READ);
+        history.record(0, 7, 5, 4, 400L, BusChangeSource.READ);
+        Assert.assertEquals(300L, history.getLastBitSet(0, 7, 3));
+        Assert.assertEquals(200L, history.getLastBitCleared(0, 7, 3));
+        Assert.assertEquals(-1L, history.getLastBitSet(0, 7, 8));
+    }
+
+    @Test
+    public void testRecordByDispatcher() {
+        BusDataDispatcher dispatcher = new BusDataDispatcher();
+        BusAddressHistory history = new BusAddressHistory(10);
+        dispatcher.setHistory(history);
+        byte[] bus1 = new byte[113];
+        dispatcher.receivedAll(new byte[][]{new byte[113], bus1.clone()});
+        bus1[58] = 8;
+        dispatcher.receivedAll(new byte[][]{new byte[113], bus1.clone()});
+
+        List<BusChangeEvent> changes = history.getChanges(1, 58, 30, TimeUnit.SECONDS);
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(0, changes.get(0).getOldValue());
+        Assert.assertEquals(8, changes.get(0).getNewValue());
+        Assert.assertTrue(history.getLastBitSet(1, 58, 4) > 0);
+    }
+}
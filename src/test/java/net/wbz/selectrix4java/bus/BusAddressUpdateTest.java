@@ -0,0 +1,58 @@
+package net.wbz.selectrix4java.bus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.wbz.selectrix4java.data.WriteResult;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.device.serial.BaseTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the read-modify-write operations and the results of writes of the {@link BusAddress}.
+ *
+ * @author Daniel Tuerk
+ */
+public class BusAddressUpdateTest extends BaseTest {
+
+    @Test
+    public void testConcurrentBitUpdates() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        final BusAddress busAddress = getDevice().getBusAddress(1, 30);
+        List<CompletableFuture<WriteResult>> futures = new ArrayList<>();
+        for (int bit = 0; bit < 8; bit++) {
+            final int mask = 1 << bit;
+            futures.add(busAddress.update(value -> (byte) (value | mask)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals((byte) 0xff, (byte) busAddress.waitForData((byte) 0xff, 2, TimeUnit.SECONDS)
+                .get(3, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCompareAndSend() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        BusAddress busAddress = getDevice().getBusAddress(1, 31);
+        Assert.assertTrue(busAddress.compareAndSend((byte) 0, (byte) 5).get(3, TimeUnit.SECONDS));
+        Assert.assertFalse(busAddress.compareAndSend((byte) 0, (byte) 6).get(3, TimeUnit.SECONDS));
+        Assert.assertTrue(busAddress.compareAndSend((byte) 5, (byte) 7).get(3, TimeUnit.SECONDS));
+        busAddress.waitForData((byte) 7, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testWriteResult() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        WriteResult result = getDevice().getBusAddress(1, 32).sendData((byte) 9).get(3, TimeUnit.SECONDS);
+        Assert.assertTrue(result.isAcknowledged());
+        Assert.assertTrue(result.hasReadBack());
+        Assert.assertTrue(result.isConfirmed());
+        Assert.assertEquals(9, result.getReadBackValue());
+        Assert.assertTrue(result.getReadBackTime(TimeUnit.NANOSECONDS) >= result.getRoundTripTime(
+                TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,107 @@
+package net.wbz.selectrix4java.bus;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import net.wbz.selectrix4java.flow.Flow;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the demand of the subscribers of the {@link BusChangePublisher}.
+ *
+ * @author Daniel Tuerk
+ */
+public class BusChangePublisherTest {
+
+    private BusDataDispatcher dispatcher;
+    private byte[] bus0;
+    private byte[] bus1;
+
+    @Before
+    public void setUp() {
+        dispatcher = new BusDataDispatcher();
+        bus0 = new byte[113];
+        bus1 = new byte[113];
+        receive();
+    }
+
+    @Test
+    public void testDemand() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        dispatcher.publisher(1).executeOn(MoreExecutors.directExecutor()).subscribe(subscriber);
+        Assert.assertNotNull(subscriber.subscription);
+
+        bus0[3] = 1;
+        bus1[10] = 1;
+        bus1[11] = 2;
+        receive();
+        Assert.assertTrue(subscriber.events.isEmpty());
+
+        subscriber.subscription.request(1);
+        Assert.assertEquals(1, subscriber.events.size());
+        Assert.assertEquals(10, subscriber.events.get(0).getAddress());
+        Assert.assertEquals(1, subscriber.events.get(0).getNewValue());
+
+        // missed changes of the same address are merged
+        bus1[11] = 3;
+        receive();
+        bus1[11] = 4;
+        receive();
+        subscriber.subscription.request(5);
+        Assert.assertEquals(2, subscriber.events.size());
+        BusChangeEvent merged = subscriber.events.get(1);
+        Assert.assertEquals(11, merged.getAddress());
+        Assert.assertEquals(0, merged.getOldValue());
+        Assert.assertEquals(4, merged.getNewValue());
+
+        // remaining demand
+        bus1[12] = 7;
+        receive();
+        Assert.assertEquals(3, subscriber.events.size());
+
+        subscriber.subscription.cancel();
+        bus1[12] = 8;
+        receive();
+        Assert.assertEquals(3, subscriber.events.size());
+    }
+
+    @Test
+    public void testInvalidRequest() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        dispatcher.publisher(0, 3).executeOn(MoreExecutors.directExecutor()).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    private void receive() {
+        dispatcher.receivedAll(new byte[][]{bus0.clone(), bus1.clone()});
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<BusChangeEvent> {
+
+        private final List<BusChangeEvent> events = new CopyOnWriteArrayList<>();
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(BusChangeEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package net.wbz.selectrix4java.bus;
+
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.device.serial.BaseTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link BusSnapshot} which is published by the {@link BusDataDispatcher} for each read cycle.
+ *
+ * @author Daniel Tuerk
+ */
+public class BusSnapshotTest extends BaseTest {
+
+    @Test
+    public void testSnapshot() throws DeviceAccessException, InterruptedException {
+        Thread.sleep(200L);
+        BusSnapshot oldSnapshot = getDevice().getBusSnapshot();
+        Assert.assertTrue(oldSnapshot.hasBus(0));
+        Assert.assertTrue(oldSnapshot.hasBus(1));
+        Assert.assertEquals(0, oldSnapshot.getData(1, 5));
+
+        getDevice().getBusAddress(1, 5).sendData((byte) 3);
+        Thread.sleep(400L);
+
+        BusSnapshot snapshot = getDevice().getBusSnapshot();
+        Assert.assertTrue("sequence not increased", snapshot.getSequence() > oldSnapshot.getSequence());
+        Assert.assertEquals(3, snapshot.getData(1, 5));
+        Assert.assertTrue(snapshot.getBitState(1, 5, 1));
+        Assert.assertTrue(snapshot.getBitState(1, 5, 2));
+        Assert.assertFalse(snapshot.getBitState(1, 5, 3));
+
+        // old snapshot is unchanged
+        Assert.assertEquals(0, oldSnapshot.getData(1, 5));
+        // copy of the bus data doesn't modify the snapshot
+        snapshot.getBusData(1)[5] = 0;
+        Assert.assertEquals(3, snapshot.getData(1, 5));
+    }
+}
@@ -0,0 +1,109 @@
+package net.wbz.selectrix4java.bus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.wbz.selectrix4java.data.BusDataChannel;
+import net.wbz.selectrix4java.data.PollingTier;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.device.test.TestDevice;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the inline evaluation of the {@link ReflexRule}s by the {@link BusDataDispatcher}.
+ *
+ * @author Daniel Tuerk
+ */
+public class ReflexRuleTest {
+
+    @Test
+    public void testPriorityOfTriggeredRules() {
+        BusDataDispatcher dispatcher = new BusDataDispatcher();
+        final List<String> writes = new ArrayList<>();
+        dispatcher.setReflexWriter((bus, address, update) -> writes.add(address + "=" + update.applyAsInt(0xff)));
+        dispatcher.addReflexRule(new ReflexRule("low", 1, 1, 20, 0x01, 0x01, 0, 5, 0x0f, 0x03));
+        dispatcher.addReflexRule(new ReflexRule("high", 9, 1, 21, 0x80, 0x80, 0, 6, 0xff, 0x00));
+        dispatcher.addReflexRule(new ReflexRule("freed", 5, 1, 20, 0x01, 0x00, 0, 7, 0x01, 0x00));
+
+        byte[][] data = new byte[][]{new byte[113], new byte[113]};
+        dispatcher.receivedAll(data);
+        Assert.assertTrue("initial data triggers nothing", writes.isEmpty());
+
+        data = new byte[][]{new byte[113], new byte[113]};
+        data[1][20] = 0x01;
+        data[1][21] = (byte) 0x80;
+        dispatcher.receivedAll(data);
+        // queued to the front, so the highest priority is written last to be executed first
+        Assert.assertEquals(2, writes.size());
+        Assert.assertEquals("5=243", writes.get(0));
+        Assert.assertEquals("6=0", writes.get(1));
+
+        // no edge of the trigger
+        writes.clear();
+        data = new byte[][]{new byte[113], new byte[113]};
+        data[1][20] = 0x03;
+        data[1][21] = (byte) 0x80;
+        dispatcher.receivedAll(data);
+        Assert.assertTrue(writes.isEmpty());
+
+        data = new byte[][]{new byte[113], new byte[113]};
+        dispatcher.receivedAll(data);
+        Assert.assertEquals(1, writes.size());
+        Assert.assertEquals("7=254", writes.get(0));
+    }
+
+    @Test
+    public void testStopTrainOnOccupiedBlock() throws DeviceAccessException, InterruptedException,
+            ExecutionException, TimeoutException {
+        TestDevice device = new TestDevice();
+        device.connect();
+        try {
+            device.addReflexRule(ReflexRule.stopTrainOnOccupiedBlock("stop", 1, 30, 2, 0, 10));
+            // forward with level 20
+            device.getBusAddress(0, 10).sendData((byte) (0b0010_0000 | 20)).get(3, TimeUnit.SECONDS);
+            device.getBusAddress(1, 30).sendData((byte) 0b0000_0010).get(3, TimeUnit.SECONDS);
+            // level 0, direction kept
+            device.getBusAddress(0, 10).waitForData((byte) 0b0010_0000, 2, TimeUnit.SECONDS).get(3,
+                    TimeUnit.SECONDS);
+        } finally {
+            device.disconnect();
+        }
+    }
+
+    @Test
+    public void testPollingTierOfRemovedRules() throws DeviceAccessException {
+        TestDevice device = new TestDevice();
+        device.connect();
+        try {
+            BusDataChannel channel = device.getBusDataChannel();
+            ReflexRule first = new ReflexRule("first", 1, 1, 40, 0x01, 0x01, 0, 5, 0x01, 0x01);
+            ReflexRule second = new ReflexRule("second", 1, 1, 40, 0x02, 0x02, 0, 6, 0x01, 0x01);
+            device.addReflexRule(first);
+            device.addReflexRule(second);
+            Assert.assertEquals(PollingTier.HOT, channel.getPollingTier(1, 40));
+
+            device.removeReflexRule(first);
+            Assert.assertEquals(PollingTier.HOT, channel.getPollingTier(1, 40));
+            device.removeReflexRule(second);
+            Assert.assertNull(channel.getPollingTier(1, 40));
+
+            // address which is used by the application
+            device.getBusAddress(1, 41);
+            ReflexRule used = new ReflexRule("used", 1, 1, 41, 0x01, 0x01, 0, 5, 0x01, 0x01);
+            device.addReflexRule(used);
+            Assert.assertEquals(PollingTier.HOT, channel.getPollingTier(1, 41));
+            device.removeReflexRule(used);
+            Assert.assertEquals(PollingTier.NORMAL, channel.getPollingTier(1, 41));
+        } finally {
+            device.disconnect();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTriggerValueOutsideOfBusData() {
+        new ReflexRule("wide", 1, 1, 20, 0x1ff, 0x101, 0, 5, 0x01, 0x01);
+    }
+}
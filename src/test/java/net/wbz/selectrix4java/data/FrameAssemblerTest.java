@@ -0,0 +1,90 @@
+package net.wbz.selectrix4java.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the assembly of replies by the {@link FrameAssembler}.
+ *
+ * @author Daniel Tuerk
+ */
+public class FrameAssemblerTest {
+
+    @Test
+    public void testPartialReads() throws IOException {
+        byte[] reply = new byte[ReadBlockTask.LENGTH_OF_DATA_REPLY];
+        Arrays.fill(reply, (byte) 7);
+        ChunkedInputStream inputStream = new ChunkedInputStream();
+        inputStream.add(Arrays.copyOfRange(reply, 0, 100));
+        inputStream.add(new byte[0]);
+        inputStream.add(Arrays.copyOfRange(reply, 100, 101));
+        inputStream.add(Arrays.copyOfRange(reply, 101, reply.length));
+
+        FrameAssembler assembler = new FrameAssembler(ReadBlockTask.LENGTH_OF_DATA_REPLY);
+        Assert.assertEquals(FrameAssembler.Result.COMPLETE, assembler.assemble(inputStream, 1000L));
+        Assert.assertArrayEquals(reply, assembler.getFrame());
+    }
+
+    @Test
+    public void testResynchronization() throws IOException {
+        FrameAssembler assembler = new FrameAssembler(4);
+
+        // late write reply before the request
+        ChunkedInputStream inputStream = new ChunkedInputStream();
+        inputStream.add(new byte[]{0});
+        Assert.assertEquals(1, assembler.discardStale(inputStream));
+        inputStream.add(new byte[]{1, 2, 3, 4});
+        Assert.assertEquals(FrameAssembler.Result.COMPLETE, assembler.assemble(inputStream, 1000L));
+
+        // reply followed by further bytes
+        inputStream.add(new byte[]{1, 2, 3});
+        inputStream.add(new byte[]{4, 0});
+        Assert.assertEquals(FrameAssembler.Result.MISALIGNED, assembler.assemble(inputStream, 1000L));
+        Assert.assertEquals(0, inputStream.available());
+
+        inputStream.add(new byte[]{1, 2});
+        Assert.assertEquals(FrameAssembler.Result.INCOMPLETE, assembler.assemble(inputStream, 50L));
+        Assert.assertEquals(2, assembler.getDiscardedBytes());
+    }
+
+    /**
+     * Stream which returns each added chunk by a separate read.
+     */
+    private static class ChunkedInputStream extends InputStream {
+
+        private final Queue<byte[]> chunks = new ArrayDeque<>();
+
+        void add(byte[] chunk) {
+            chunks.add(chunk);
+        }
+
+        @Override
+        public int read() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            byte[] chunk = chunks.poll();
+            if (chunk == null) {
+                return -1;
+            }
+            int length = Math.min(len, chunk.length);
+            System.arraycopy(chunk, 0, b, off, length);
+            if (length < chunk.length) {
+                ((ArrayDeque<byte[]>) chunks).addFirst(Arrays.copyOfRange(chunk, length, chunk.length));
+            }
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return chunks.stream().mapToInt(chunk -> chunk.length).sum();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package net.wbz.selectrix4java.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import net.wbz.selectrix4java.bus.BusDataReceiver;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the handling of misaligned replies by the {@link ReadBlockTask}.
+ *
+ * @author Daniel Tuerk
+ */
+public class ReadBlockTaskTest {
+
+    @Test
+    public void testConsecutiveMisalignedReplies() {
+        ReplyingStreams streams = new ReplyingStreams();
+        ReadBlockTask task = new ReadBlockTask(streams.inputStream, streams.outputStream);
+        task.setReceivers(Collections.<BusDataReceiver>emptyList());
+
+        // reply followed by a further byte
+        streams.reply = new byte[ReadBlockTask.LENGTH_OF_DATA_REPLY + 1];
+        for (int i = 1; i < ReadBlockTask.MAX_MISALIGNED_COUNT; i++) {
+            Assert.assertTrue(task.call());
+        }
+        Assert.assertFalse(task.call());
+
+        // complete reply resets the count
+        Assert.assertTrue(task.call());
+        streams.reply = new byte[ReadBlockTask.LENGTH_OF_DATA_REPLY];
+        Assert.assertTrue(task.call());
+        streams.reply = new byte[ReadBlockTask.LENGTH_OF_DATA_REPLY + 1];
+        for (int i = 1; i < ReadBlockTask.MAX_MISALIGNED_COUNT; i++) {
+            Assert.assertTrue(task.call());
+        }
+        Assert.assertFalse(task.call());
+    }
+
+    /**
+     * Streams which answer each request by the actual reply.
+     */
+    private static class ReplyingStreams {
+
+        private byte[] reply;
+        private ByteArrayInputStream replyStream = new ByteArrayInputStream(new byte[0]);
+
+        private final InputStream inputStream = new InputStream() {
+            @Override
+            public int read() {
+                return replyStream.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return replyStream.read(b, off, len);
+            }
+
+            @Override
+            public int available() {
+                return replyStream.available();
+            }
+        };
+
+        private final OutputStream outputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+                replyStream = new ByteArrayInputStream(reply);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                replyStream = new ByteArrayInputStream(reply);
+            }
+        };
+    }
+}
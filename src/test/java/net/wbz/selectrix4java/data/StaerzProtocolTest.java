@@ -0,0 +1,154 @@
+package net.wbz.selectrix4java.data;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.wbz.selectrix4java.bus.BusDataReceiver;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link BusDataChannel} with the {@link StaerzProtocol}, which reads single addresses.
+ *
+ * @author Daniel Tuerk
+ */
+public class StaerzProtocolTest {
+
+    private final byte[] busData = new byte[112];
+    private final ConcurrentLinkedQueue<Integer> replies = new ConcurrentLinkedQueue<>();
+    private final Set<Integer> readAddresses = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Integer> readCounts = new ConcurrentHashMap<>();
+    private final CountDownLatch received = new CountDownLatch(3);
+    private volatile byte[][] lastBus;
+    private volatile boolean writesLost = false;
+    private BusDataChannel channel;
+
+    @Before
+    public void setup() {
+        InputStream inputStream = new InputStream() {
+            @Override
+            public int read() {
+                Integer reply = replies.poll();
+                return reply != null ? reply : -1;
+            }
+
+            @Override
+            public int available() {
+                return replies.size();
+            }
+        };
+        OutputStream outputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new RuntimeException("not implemented");
+            }
+
+            @Override
+            public void write(byte[] b) {
+                int address = b[0] & 0x7f;
+                if ((b[0] & 0x80) != 0) {
+                    if (!writesLost) {
+                        busData[address] = b[1];
+                    }
+                } else {
+                    readAddresses.add(address);
+                    readCounts.merge(address, 1, Integer::sum);
+                    replies.add(busData[address] & 0xff);
+                }
+            }
+        };
+        channel = new BusDataChannel(inputStream, outputStream, new BusDataReceiverAdapter(), StaerzProtocol.INSTANCE);
+        channel.start();
+    }
+
+    @After
+    public void tearDown() {
+        channel.shutdownNow();
+    }
+
+    @Test
+    public void testReadWatchedAddresses() throws InterruptedException, ExecutionException, TimeoutException {
+        busData[5] = 9;
+        busData[6] = 4;
+        channel.watchAddress(0, 5);
+        WriteResult result = channel.send(new BusData(0, 20, 3)).get(3, TimeUnit.SECONDS);
+        Assert.assertTrue(result.isAcknowledged());
+        Assert.assertTrue(result.isConfirmed());
+
+        Assert.assertTrue(received.await(3, TimeUnit.SECONDS));
+        Assert.assertEquals(1, lastBus.length);
+        Assert.assertEquals(9, lastBus[0][5]);
+        Assert.assertEquals(3, lastBus[0][20]);
+        // not watched
+        Assert.assertEquals(0, lastBus[0][6]);
+        Assert.assertFalse(readAddresses.contains(6));
+    }
+
+    @Test
+    public void testPollingTiers() throws InterruptedException {
+        channel.setRefreshInterval(PollingTier.SLOW, 10, TimeUnit.SECONDS);
+        channel.watchAddress(0, 5, PollingTier.HOT);
+        channel.watchAddress(0, 7, PollingTier.SLOW);
+        // more urgent tier of a second watch is used
+        channel.watchAddress(0, 9, PollingTier.SLOW);
+        channel.watchAddress(0, 9, PollingTier.HOT);
+        Assert.assertEquals(PollingTier.HOT, channel.getPollingTier(0, 9));
+
+        Thread.sleep(1000L);
+        Assert.assertTrue(readCounts.get(5) >= 5);
+        Assert.assertTrue(readCounts.get(9) >= 5);
+        Assert.assertEquals(1, readCounts.get(7).intValue());
+
+        channel.unwatchAddress(0, 5);
+        Assert.assertNull(channel.getPollingTier(0, 5));
+    }
+
+    @Test
+    public void testLostWrite() throws InterruptedException, ExecutionException, TimeoutException {
+        channel.setRefreshInterval(PollingTier.NORMAL, 10, TimeUnit.SECONDS);
+        channel.watchAddress(0, 5, PollingTier.HOT);
+        channel.watchAddress(0, 20);
+        Thread.sleep(300L);
+        Assert.assertEquals(1, readCounts.get(20).intValue());
+
+        writesLost = true;
+        WriteResult result = channel.send(new BusData(0, 20, 3)).get(3, TimeUnit.SECONDS);
+        // written address is read again, the reads of the hot address don't complete the write
+        Assert.assertEquals(2, readCounts.get(20).intValue());
+        Assert.assertTrue(result.hasReadBack());
+        Assert.assertEquals(0, result.getReadBackValue());
+        Assert.assertFalse(result.isConfirmed());
+    }
+
+    @Test
+    public void testInvalidAddress() throws InterruptedException, TimeoutException {
+        try {
+            channel.send(new BusData(1, 20, 3)).get(3, TimeUnit.SECONDS);
+            Assert.fail("bus 1 isn't accessible");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    private class BusDataReceiverAdapter implements BusDataReceiver {
+
+        @Override
+        public void received(int busNr, byte[] data) {
+        }
+
+        @Override
+        public void receivedAll(byte[][] busData) {
+            lastBus = busData;
+            received.countDown();
+        }
+    }
+}
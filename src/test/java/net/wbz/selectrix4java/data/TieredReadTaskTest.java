@@ -0,0 +1,157 @@
+package net.wbz.selectrix4java.data;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.wbz.selectrix4java.bus.BusDataReceiver;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link BusDataChannel} with a protocol which reads all addresses and single addresses, see {@link
+ * TieredReadTask}.
+ *
+ * @author Daniel Tuerk
+ */
+public class TieredReadTaskTest {
+
+    private static final byte READ_BLOCK = (byte) 0xff;
+
+    private final byte[] busData = new byte[ReadBlockTask.LENGTH_OF_DATA_REPLY];
+    private final ConcurrentLinkedQueue<Integer> replies = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger blockReads = new AtomicInteger();
+    private final Map<Integer, Integer> addressReads = new ConcurrentHashMap<>();
+    private volatile byte[][] lastBus;
+    private BusDataChannel channel;
+
+    @Before
+    public void setup() {
+        InputStream inputStream = new InputStream() {
+            @Override
+            public int read() {
+                Integer reply = replies.poll();
+                return reply != null ? reply : -1;
+            }
+
+            @Override
+            public int available() {
+                return replies.size();
+            }
+        };
+        OutputStream outputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new RuntimeException("not implemented");
+            }
+
+            @Override
+            public void write(byte[] b) {
+                if (b[0] == READ_BLOCK) {
+                    blockReads.incrementAndGet();
+                    for (byte data : busData) {
+                        replies.add(data & 0xff);
+                    }
+                } else {
+                    int index = BusImage.index(b[0], b[1]);
+                    addressReads.merge(index, 1, Integer::sum);
+                    replies.add(busData[index] & 0xff);
+                }
+            }
+        };
+        channel = new BusDataChannel(inputStream, outputStream, new BusDataReceiverAdapter(), new TieredProtocol());
+        channel.start();
+    }
+
+    @After
+    public void tearDown() {
+        channel.shutdownNow();
+    }
+
+    @Test
+    public void testReadHotAddressesBetweenBlocks() throws InterruptedException {
+        busData[BusImage.index(1, 20)] = 4;
+        channel.watchAddress(1, 5, PollingTier.HOT);
+        channel.watchAddress(1, 7, PollingTier.NORMAL);
+        Thread.sleep(200L);
+        busData[BusImage.index(1, 5)] = 9;
+
+        Thread.sleep(1000L);
+        // block with the interval of the normal tier
+        Assert.assertTrue(blockReads.get() >= 2);
+        Assert.assertTrue(blockReads.get() <= 5);
+        // hot address in between
+        Assert.assertTrue(addressReads.get(BusImage.index(1, 5)) >= 5);
+        Assert.assertFalse(addressReads.containsKey(BusImage.index(1, 7)));
+
+        Assert.assertEquals(9, lastBus[1][5]);
+        Assert.assertEquals(4, lastBus[1][20]);
+    }
+
+    /**
+     * Protocol of an interface which can read all addresses by one request and single addresses.
+     */
+    private static class TieredProtocol implements InterfaceProtocol {
+
+        @Override
+        public int getBusCount() {
+            return 2;
+        }
+
+        @Override
+        public boolean isReadBlockSupported() {
+            return true;
+        }
+
+        @Override
+        public boolean isReadAddressSupported() {
+            return true;
+        }
+
+        @Override
+        public byte[] encodeReadBlock() {
+            return new byte[]{READ_BLOCK};
+        }
+
+        @Override
+        public int getReadBlockLength() {
+            return ReadBlockTask.LENGTH_OF_DATA_REPLY;
+        }
+
+        @Override
+        public byte[] encodeReadAddress(int bus, int address) {
+            return new byte[]{(byte) bus, (byte) address};
+        }
+
+        @Override
+        public byte[] encodeWrite(BusData busData) {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        @Override
+        public boolean isWriteAcknowledged() {
+            return false;
+        }
+
+        @Override
+        public boolean isIgnoredAddress(int bus, int address) {
+            return false;
+        }
+    }
+
+    private class BusDataReceiverAdapter implements BusDataReceiver {
+
+        @Override
+        public void received(int busNr, byte[] data) {
+        }
+
+        @Override
+        public void receivedAll(byte[][] busData) {
+            lastBus = busData;
+        }
+    }
+}
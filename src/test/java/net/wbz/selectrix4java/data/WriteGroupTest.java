@@ -0,0 +1,28 @@
+package net.wbz.selectrix4java.data;
+
+import com.google.common.collect.Lists;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.device.serial.BaseTest;
+import org.junit.Test;
+
+/**
+ * Test to write a group of {@link BusData} as one task of the {@link BusDataChannel}.
+ *
+ * @author Daniel Tuerk
+ */
+public class WriteGroupTest extends BaseTest {
+
+    @Test
+    public void testSendGroup() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        getDevice().sendGroup(Lists.newArrayList(new BusData(1, 40, 1), new BusData(1, 41, 2),
+                new BusData(1, 42, 3))).get(3, TimeUnit.SECONDS);
+
+        getDevice().getBusAddress(1, 40).waitForData((byte) 1, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+        getDevice().getBusAddress(1, 41).waitForData((byte) 2, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+        getDevice().getBusAddress(1, 42).waitForData((byte) 3, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+    }
+}
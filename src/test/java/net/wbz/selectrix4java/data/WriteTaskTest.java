@@ -0,0 +1,46 @@
+package net.wbz.selectrix4java.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the reply of the {@link WriteTask}.
+ *
+ * @author Daniel Tuerk
+ */
+public class WriteTaskTest {
+
+    @Test
+    public void testReply() throws InterruptedException, ExecutionException {
+        WriteTask writeTask = new WriteTask(new ByteArrayInputStream(new byte[]{0}), new ByteArrayOutputStream(),
+                new BusData(1, 3, 4));
+        Assert.assertTrue(writeTask.call());
+        Assert.assertTrue(writeTask.getFuture().get().isAcknowledged());
+    }
+
+    @Test
+    public void testReplyTimeout() throws InterruptedException {
+        // device without any reply
+        InputStream inputStream = new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+        };
+        WriteTask writeTask = new WriteTask(inputStream, new ByteArrayOutputStream(), new BusData(1, 3, 4));
+        long start = System.currentTimeMillis();
+        Assert.assertFalse(writeTask.call());
+        Assert.assertTrue(System.currentTimeMillis() - start >= WriteTask.REPLY_TIMEOUT_IN_MILLIS);
+        try {
+            writeTask.getFuture().get();
+            Assert.fail("write without reply should fail");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+}
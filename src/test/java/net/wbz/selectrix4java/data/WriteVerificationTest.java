@@ -0,0 +1,104 @@
+package net.wbz.selectrix4java.data;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the verification of writes by the read of the bus with a bus which loses writes.
+ *
+ * @author Daniel Tuerk
+ */
+public class WriteVerificationTest {
+
+    private final byte[] busData = new byte[ReadBlockTask.LENGTH_OF_DATA_REPLY];
+    /**
+     * Number of writes to lose by the bus.
+     */
+    private final AtomicInteger writesToLose = new AtomicInteger();
+    private final AtomicBoolean blockRequested = new AtomicBoolean();
+    private BusDataChannel channel;
+
+    @Before
+    public void setup() {
+        InputStream inputStream = new InputStream() {
+            @Override
+            public int read() {
+                // reply of the write
+                return 0;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!blockRequested.getAndSet(false)) {
+                    return -1;
+                }
+                System.arraycopy(busData, 0, b, off, busData.length);
+                return busData.length;
+            }
+        };
+        OutputStream outputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new RuntimeException("not implemented");
+            }
+
+            @Override
+            public void write(byte[] b) {
+                if (b.length == 2) {
+                    blockRequested.set(true);
+                } else if (b.length == 3 && writesToLose.getAndDecrement() <= 0) {
+                    busData[b[0] * 113 + (b[1] & 0x7f)] = b[2];
+                }
+            }
+        };
+        channel = new BusDataChannel(inputStream, outputStream, (busNr, data) -> {
+        });
+        channel.start();
+    }
+
+    @After
+    public void tearDown() {
+        channel.shutdownNow();
+    }
+
+    @Test
+    public void testNotConfirmedWithoutVerification() throws InterruptedException, ExecutionException,
+            TimeoutException {
+        writesToLose.set(1);
+        WriteResult result = channel.send(new BusData(1, 10, 5)).get(3, TimeUnit.SECONDS);
+        Assert.assertTrue(result.isAcknowledged());
+        Assert.assertFalse(result.isConfirmed());
+        Assert.assertEquals(0, result.getReadBackValue());
+    }
+
+    @Test
+    public void testRetry() throws InterruptedException, ExecutionException, TimeoutException {
+        channel.setWriteVerification(new WriteVerification(3, 10, 100, TimeUnit.MILLISECONDS));
+        writesToLose.set(2);
+        WriteResult result = channel.send(new BusData(1, 10, 5)).get(3, TimeUnit.SECONDS);
+        Assert.assertTrue(result.isConfirmed());
+        Assert.assertEquals(2, channel.getWriteVerificationMetrics().getRetries());
+        Assert.assertEquals(1, channel.getWriteVerificationMetrics().getConfirmed());
+    }
+
+    @Test
+    public void testNotConfirmed() throws InterruptedException, ExecutionException, TimeoutException {
+        channel.setWriteVerification(new WriteVerification(1, 10, 100, TimeUnit.MILLISECONDS));
+        final AtomicInteger notConfirmedAttempts = new AtomicInteger();
+        channel.addWriteVerificationListener((result, attempts) -> notConfirmedAttempts.set(attempts));
+        writesToLose.set(5);
+        WriteResult result = channel.send(new BusData(0, 20, 7)).get(3, TimeUnit.SECONDS);
+        Assert.assertFalse(result.isConfirmed());
+        Assert.assertEquals(2, notConfirmedAttempts.get());
+        Assert.assertEquals(1, channel.getWriteVerificationMetrics().getNotConfirmed());
+    }
+}
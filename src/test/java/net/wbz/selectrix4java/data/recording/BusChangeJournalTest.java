@@ -0,0 +1,138 @@
+package net.wbz.selectrix4java.data.recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.wbz.selectrix4java.bus.BusChangeEvent;
+import net.wbz.selectrix4java.bus.BusChangeSource;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.device.test.TestDevice;
+import net.wbz.selectrix4java.executor.ExecutorProviders;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test to write the {@link BusChangeJournal} and to follow it by the {@link BusChangeJournalReader}.
+ *
+ * @author Daniel Tuerk
+ */
+public class BusChangeJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTailingReader() throws IOException, RecordingException, InterruptedException {
+        Path directory = folder.newFolder("journal").toPath();
+        BusChangeJournal journal = new BusChangeJournal(directory, 4, 3, ExecutorProviders.getDefault());
+        BusChangeJournalReader reader = new BusChangeJournalReader(directory);
+
+        List<BusChangeEvent> read = new ArrayList<>();
+        for (int value = 1; value <= 10; value++) {
+            journal.append(new BusChangeEvent(1, 58, value - 1, value, value, BusChangeSource.READ));
+            if (value % 3 == 0) {
+                read.addAll(poll(reader, value));
+            }
+        }
+        journal.close();
+        read.addAll(reader.poll(100));
+
+        Assert.assertEquals(10, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            Assert.assertEquals(i + 1, read.get(i).getNewValue());
+        }
+        Assert.assertEquals(10, reader.getSequence());
+        Assert.assertEquals(0, journal.getDroppedCount());
+
+        // continue the sequence by a new writer, the oldest segments are deleted by the rotation
+        journal = new BusChangeJournal(directory, 4, 3, ExecutorProviders.getDefault());
+        Assert.assertEquals(10, journal.getNextSequence());
+        for (int value = 11; value <= 15; value++) {
+            journal.append(new BusChangeEvent(0, 3, value - 1, value, value, BusChangeSource.REPLAY));
+        }
+        journal.close();
+        List<BusChangeEvent> continued = reader.poll(100);
+        Assert.assertEquals(5, continued.size());
+        Assert.assertEquals(BusChangeSource.REPLAY, continued.get(0).getSource());
+
+        // segments of 8, 10 and 14 are kept
+        List<BusChangeEvent> kept = new BusChangeJournalReader(directory).poll(100);
+        Assert.assertEquals(7, kept.size());
+        Assert.assertEquals(9, kept.get(0).getNewValue());
+    }
+
+    @Test
+    public void testTailingReaderAcrossRotations() throws IOException, RecordingException, InterruptedException {
+        Path directory = folder.newFolder("rotation").toPath();
+        final int count = 4000;
+        final BusChangeJournal journal = new BusChangeJournal(directory, 4, 2000, ExecutorProviders.getDefault());
+        BusChangeJournalReader reader = new BusChangeJournalReader(directory);
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                journal.append(new BusChangeEvent(1, i % 113, 0, i & 0xff, i, BusChangeSource.READ));
+                if (i % 50 == 0) {
+                    Thread.yield();
+                }
+            }
+        });
+        writer.start();
+        List<BusChangeEvent> read = new ArrayList<>();
+        long timeout = System.currentTimeMillis() + 10000L;
+        while (read.size() < count && System.currentTimeMillis() < timeout) {
+            // small polls to stop within the segments while the writer rotates
+            read.addAll(reader.poll(3));
+        }
+        writer.join();
+        journal.close();
+
+        Assert.assertEquals(0, journal.getDroppedCount());
+        Assert.assertEquals(count, read.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, read.get(i).getTimestamp());
+        }
+    }
+
+    @Test
+    public void testJournalOfDevice() throws IOException, RecordingException, DeviceAccessException,
+            InterruptedException, ExecutionException, TimeoutException {
+        Path directory = folder.newFolder("device").toPath();
+        TestDevice device = new TestDevice();
+        device.connect();
+        BusChangeJournal journal = new BusChangeJournal(directory);
+        device.getBusDataDispatcher().setJournal(journal);
+        List<BusChangeEvent> changes;
+        try {
+            device.getBusAddress(1, 20).sendData((byte) 5).get(3, TimeUnit.SECONDS);
+            changes = poll(new BusChangeJournalReader(directory), 1);
+        } finally {
+            device.getBusDataDispatcher().setJournal(null);
+            journal.close();
+            device.disconnect();
+        }
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(20, changes.get(0).getAddress());
+        Assert.assertEquals(5, changes.get(0).getNewValue());
+        Assert.assertEquals(BusChangeSource.WRITE, changes.get(0).getSource());
+    }
+
+    /**
+     * Poll the reader until the given number of changes is committed by the writer.
+     */
+    private List<BusChangeEvent> poll(BusChangeJournalReader reader, long sequence) throws RecordingException,
+            InterruptedException {
+        List<BusChangeEvent> changes = new ArrayList<>();
+        long timeout = System.currentTimeMillis() + 3000L;
+        while (reader.getSequence() < sequence && System.currentTimeMillis() < timeout) {
+            changes.addAll(reader.poll(100));
+            Thread.sleep(10L);
+        }
+        return changes;
+    }
+}
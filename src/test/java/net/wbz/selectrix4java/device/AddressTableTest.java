@@ -0,0 +1,110 @@
+package net.wbz.selectrix4java.device;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the preallocated slots and the overflow of the {@link AddressTable}.
+ *
+ * @author Daniel Tuerk
+ */
+public class AddressTableTest {
+
+    @Test
+    public void testSlotsAndOverflow() {
+        AddressTable<String> table = new AddressTable<>();
+        Assert.assertEquals(0, AddressTable.index(0, 0));
+        Assert.assertEquals(AddressTable.ADDRESSES_PER_BUS + 112, AddressTable.index(1, 112));
+        Assert.assertEquals(-1, AddressTable.index(1, 255));
+        Assert.assertEquals(-1, AddressTable.index(2, 0));
+
+        Assert.assertNull(table.putIfAbsent(0, 0, "first"));
+        Assert.assertNull(table.putIfAbsent(1, 112, "last"));
+        // special command address of the FCC
+        Assert.assertNull(table.putIfAbsent(1, 255, "command"));
+        Assert.assertEquals("first", table.putIfAbsent(0, 0, "other"));
+        Assert.assertEquals("command", table.putIfAbsent(1, 255, "other"));
+
+        Assert.assertEquals("first", table.get(0, 0));
+        Assert.assertEquals("last", table.get(1, 112));
+        Assert.assertEquals("command", table.get(1, 255));
+        Assert.assertNull(table.get(0, 255));
+        Assert.assertNull(table.get(0, 112));
+
+        table.put(0, 0, "replaced");
+        table.put(0, 255, "overflow");
+        Assert.assertEquals("replaced", table.get(0, 0));
+        Assert.assertEquals("overflow", table.get(0, 255));
+        Assert.assertEquals(4, table.values().size());
+
+        table.clear();
+        Assert.assertTrue(table.values().isEmpty());
+        Assert.assertNull(table.get(0, 0));
+        Assert.assertNull(table.get(1, 255));
+    }
+
+    @Test
+    public void testForEach() {
+        AddressTable<Integer> table = new AddressTable<>();
+        table.put(0, 5, 1);
+        table.put(1, 0, 2);
+        table.put(1, 112, 3);
+        table.put(1, 255, 4);
+        table.put(3, 7, 5);
+
+        final Map<String, Integer> entries = new HashMap<>();
+        table.forEach((bus, address, value) -> entries.put(bus + ":" + address, value));
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("0:5", 1);
+        expected.put("1:0", 2);
+        expected.put("1:112", 3);
+        expected.put("1:255", 4);
+        expected.put("3:7", 5);
+        Assert.assertEquals(expected, entries);
+    }
+
+    @Test
+    public void testConcurrentPutIfAbsent() throws Exception {
+        final AddressTable<Object> table = new AddressTable<>();
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final int address = i % 2 == 0 ? 20 : 255;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    Object value = new Object();
+                    Object present = table.putIfAbsent(1, address, value);
+                    return present != null ? present : value;
+                }));
+            }
+            start.countDown();
+
+            // each thread gets the one stored value of the address
+            Set<Object> slotValues = ConcurrentHashMap.newKeySet();
+            Set<Object> overflowValues = ConcurrentHashMap.newKeySet();
+            for (int i = 0; i < threads; i++) {
+                (i % 2 == 0 ? slotValues : overflowValues).add(results.get(i).get(3, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, slotValues.size());
+            Assert.assertEquals(1, overflowValues.size());
+            Assert.assertSame(table.get(1, 20), slotValues.iterator().next());
+            Assert.assertSame(table.get(1, 255), overflowValues.iterator().next());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package net.wbz.selectrix4java.device;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.wbz.selectrix4java.bus.BusSnapshot;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test several connected devices of the {@link DeviceManager}.
+ *
+ * @author Daniel Tuerk
+ */
+public class DeviceManagerTest {
+
+    private final DeviceManager deviceManager = new DeviceManager();
+
+    @Before
+    public void setUp() throws DeviceAccessException {
+        deviceManager.registerDevice(deviceManager.createDevice(DeviceManager.DEVICE_TYPE.TEST, "a", 0));
+        deviceManager.registerDevice(deviceManager.createDevice(DeviceManager.DEVICE_TYPE.TEST, "b", 0));
+        deviceManager.connectAll();
+    }
+
+    @After
+    public void tearDown() throws DeviceAccessException {
+        deviceManager.disconnectAll();
+    }
+
+    @Test
+    public void testSeveralDevices() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        Assert.assertEquals(2, deviceManager.getConnectedDevices().size());
+
+        final Map<DeviceAddress, Integer> values = new ConcurrentHashMap<>();
+        final CountDownLatch changes = new CountDownLatch(2);
+        deviceManager.addBusDataListener((address, oldValue, newValue) -> {
+            if (address.getAddress() == 20 && address.getBus() == 1 && newValue != 0) {
+                values.put(address, newValue);
+                changes.countDown();
+            }
+        });
+
+        DeviceAddress addressA = new DeviceAddress("a", 1, 20);
+        DeviceAddress addressB = new DeviceAddress("b", 1, 20);
+        deviceManager.getBusAddress(addressA).sendData((byte) 3).get(3, TimeUnit.SECONDS);
+        deviceManager.getBusAddress(addressB).sendData((byte) 4).get(3, TimeUnit.SECONDS);
+
+        Assert.assertTrue("changes not received", changes.await(3, TimeUnit.SECONDS));
+        Assert.assertEquals(Integer.valueOf(3), values.get(addressA));
+        Assert.assertEquals(Integer.valueOf(4), values.get(addressB));
+
+        Map<String, BusSnapshot> snapshots = deviceManager.getBusSnapshots();
+        Assert.assertEquals(3, snapshots.get("a").getData(1, 20) & 0xff);
+        Assert.assertEquals(4, snapshots.get("b").getData(1, 20) & 0xff);
+    }
+}
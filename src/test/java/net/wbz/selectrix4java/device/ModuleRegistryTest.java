@@ -0,0 +1,97 @@
+package net.wbz.selectrix4java.device;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.wbz.selectrix4java.Module;
+import net.wbz.selectrix4java.block.BlockModule;
+import net.wbz.selectrix4java.block.FeedbackBlockModule;
+import net.wbz.selectrix4java.bus.BusAddress;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the creation and the views of the {@link ModuleRegistry}.
+ *
+ * @author Daniel Tuerk
+ */
+public class ModuleRegistryTest {
+
+    private final ModuleRegistry registry = new ModuleRegistry();
+
+    @Test
+    public void testConcurrentCreation() throws Exception {
+        final int threads = 8;
+        final AtomicInteger created = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<BlockModule>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return registry.getOrCreate(BlockModule.class, 1, 10, () -> {
+                        created.incrementAndGet();
+                        return new BlockModule(busAddress(1, 10));
+                    });
+                }));
+            }
+            start.countDown();
+
+            BlockModule module = results.get(0).get(3, TimeUnit.SECONDS);
+            for (Future<BlockModule> result : results) {
+                Assert.assertSame(module, result.get(3, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, created.get());
+            Assert.assertEquals(1, registry.getModules(BlockModule.class).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testViewsOfSuperTypes() throws DeviceAccessException {
+        BlockModule blockModule = registry.getOrCreate(BlockModule.class, 1, 10,
+                () -> new BlockModule(busAddress(1, 10)));
+        FeedbackBlockModule feedbackModule = registry.getOrCreate(FeedbackBlockModule.class, 1, 20,
+                () -> new FeedbackBlockModule(busAddress(1, 20), busAddress(1, 21), busAddress(1, 22)));
+        // existing module isn't added again
+        registry.getOrCreate(FeedbackBlockModule.class, 1, 20, () -> {
+            throw new DeviceAccessException("already created");
+        });
+
+        List<FeedbackBlockModule> feedbackModules = registry.getModules(FeedbackBlockModule.class);
+        List<BlockModule> blockModules = registry.getModules(BlockModule.class);
+        List<Module> modules = registry.getModules(Module.class);
+        Assert.assertEquals(1, feedbackModules.size());
+        Assert.assertSame(feedbackModule, feedbackModules.get(0));
+        Assert.assertEquals(2, blockModules.size());
+        Assert.assertTrue(blockModules.contains(blockModule));
+        Assert.assertTrue(blockModules.contains(feedbackModule));
+        Assert.assertEquals(2, modules.size());
+        Assert.assertSame(feedbackModule, registry.get(FeedbackBlockModule.class, 1, 20));
+        Assert.assertNull(registry.get(BlockModule.class, 1, 20));
+
+        registry.clear();
+        // the views handed out before are live
+        Assert.assertTrue(feedbackModules.isEmpty());
+        Assert.assertTrue(blockModules.isEmpty());
+        Assert.assertTrue(modules.isEmpty());
+        Assert.assertNull(registry.get(BlockModule.class, 1, 10));
+
+        BlockModule newModule = registry.getOrCreate(BlockModule.class, 1, 10,
+                () -> new BlockModule(busAddress(1, 10)));
+        Assert.assertNotSame(blockModule, newModule);
+        Assert.assertEquals(1, blockModules.size());
+        Assert.assertEquals(1, modules.size());
+    }
+
+    private static BusAddress busAddress(int bus, int address) {
+        return new BusAddress(bus, address, () -> null);
+    }
+}
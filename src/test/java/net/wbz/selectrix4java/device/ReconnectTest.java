@@ -0,0 +1,75 @@
+package net.wbz.selectrix4java.device;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.wbz.selectrix4java.bus.BusAddress;
+import net.wbz.selectrix4java.bus.BusAddressListener;
+import net.wbz.selectrix4java.data.WriteVerification;
+import net.wbz.selectrix4java.data.WriteVerificationMetrics;
+import net.wbz.selectrix4java.device.serial.BaseTest;
+import net.wbz.selectrix4java.device.test.TestDevice;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the reconnect of a lost connection by the {@link AbstractDevice}.
+ *
+ * @author Daniel Tuerk
+ */
+public class ReconnectTest extends BaseTest {
+
+    @Test
+    public void testReconnect() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        WriteVerificationMetrics metrics = getDevice().getBusDataChannel().getWriteVerificationMetrics();
+        getDevice().getBusDataChannel().setWriteVerification(new WriteVerification(3, 10, 100,
+                TimeUnit.MILLISECONDS));
+        BusAddress busAddress = getDevice().getBusAddress(1, 50);
+        busAddress.sendData((byte) 5).get(3, TimeUnit.SECONDS);
+        busAddress.waitForData((byte) 5, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+
+        final AtomicInteger changes = new AtomicInteger();
+        busAddress.addListener((BusAddressListener) (oldValue, newValue) -> changes.incrementAndGet());
+
+        final CountDownLatch disconnected = new CountDownLatch(1);
+        // called initially for the connected device and by the reconnect
+        final CountDownLatch connected = new CountDownLatch(2);
+        getDevice().addDeviceConnectionListener(new DeviceConnectionListener() {
+            @Override
+            public void connected(Device device) {
+                connected.countDown();
+            }
+
+            @Override
+            public void disconnected(Device device) {
+                disconnected.countDown();
+            }
+        });
+
+        TestDevice device = (TestDevice) getDevice();
+        device.setConnectionLost(true);
+        Assert.assertTrue("connection not lost", disconnected.await(3, TimeUnit.SECONDS));
+        Assert.assertTrue(device.isReconnecting());
+        Thread.sleep(600L);
+
+        device.setConnectionLost(false);
+        Assert.assertTrue("not reconnected", connected.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(device.isReconnecting());
+        Thread.sleep(300L);
+
+        // address is kept and no change is fired for the unchanged data
+        Assert.assertSame(busAddress, getDevice().getBusAddress(1, 50));
+        Assert.assertEquals(0, changes.get());
+
+        busAddress.sendData((byte) 7).get(3, TimeUnit.SECONDS);
+        busAddress.waitForData((byte) 7, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+
+        // verification and metrics are taken over by the channel of the reconnect
+        Assert.assertNotNull(getDevice().getBusDataChannel().getWriteVerification());
+        Assert.assertSame(metrics, getDevice().getBusDataChannel().getWriteVerificationMetrics());
+        Assert.assertEquals(2, metrics.getConfirmed());
+    }
+}
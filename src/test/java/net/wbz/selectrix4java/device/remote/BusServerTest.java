@@ -0,0 +1,101 @@
+package net.wbz.selectrix4java.device.remote;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.wbz.selectrix4java.data.WriteResult;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.device.test.TestDevice;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the sharing of a device by the {@link BusServer} with several {@link RemoteDevice}s.
+ *
+ * @author Daniel Tuerk
+ */
+public class BusServerTest {
+
+    private TestDevice device;
+    private BusServer server;
+    private RemoteDevice firstClient;
+    private RemoteDevice secondClient;
+
+    @Before
+    public void setUp() throws DeviceAccessException, IOException {
+        device = new TestDevice();
+        device.connect();
+        server = new BusServer(device, 0);
+        server.start();
+        firstClient = new RemoteDevice("localhost", server.getPort());
+        firstClient.connect();
+        secondClient = new RemoteDevice("localhost", server.getPort());
+        secondClient.connect();
+    }
+
+    @After
+    public void tearDown() throws DeviceAccessException {
+        firstClient.disconnect();
+        secondClient.disconnect();
+        server.close();
+        device.disconnect();
+    }
+
+    @Test
+    public void testSharedBus() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        // write of the shared device is pushed to all clients
+        device.getBusAddress(1, 40).sendData((byte) 12).get(3, TimeUnit.SECONDS);
+        firstClient.getBusAddress(1, 40).waitForData((byte) 12, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+        secondClient.getBusAddress(1, 40).waitForData((byte) 12, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+
+        // write of a client is executed by the shared device
+        WriteResult result = firstClient.getBusAddress(1, 41).sendData((byte) 7).get(3, TimeUnit.SECONDS);
+        Assert.assertTrue(result.isAcknowledged());
+        Assert.assertTrue(result.isConfirmed());
+        device.getBusAddress(1, 41).waitForData((byte) 7, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+        secondClient.getBusAddress(1, 41).waitForData((byte) 7, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+
+        Assert.assertEquals(2, server.getClientCount());
+    }
+
+    @Test
+    public void testImageBeforeStart() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        device.getBusAddress(0, 20).sendData((byte) 33).get(3, TimeUnit.SECONDS);
+        Thread.sleep(200L);
+
+        // the connect waits for the image of the server, so the data is available without a read of the bus
+        RemoteDevice client = new RemoteDevice("localhost", server.getPort());
+        client.connect();
+        try {
+            Assert.assertEquals(33, client.getBusSnapshot().getData(0, 20));
+        } finally {
+            client.disconnect();
+        }
+    }
+
+    @Test
+    public void testLateReply() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        // the write of the shared device is delayed longer than the client waits for the reply
+        device.getBusDataChannel().pause();
+        try {
+            firstClient.getBusAddress(1, 41).sendData((byte) 7).get(3, TimeUnit.SECONDS);
+            Assert.fail("no reply expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+        device.getBusDataChannel().resume();
+
+        // late reply of the first write isn't taken as reply of the next write
+        WriteResult result = firstClient.getBusAddress(1, 42).sendData((byte) 9).get(3, TimeUnit.SECONDS);
+        Assert.assertTrue(result.isAcknowledged());
+        Assert.assertTrue(result.isConfirmed());
+        Assert.assertEquals(9, result.getReadBackValue());
+        secondClient.getBusAddress(1, 41).waitForData((byte) 7, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,73 @@
+package net.wbz.selectrix4java.device.socket;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Local stand-in for a FCC which is reachable by TCP. Emulates the read of the bus block and the write of an address.
+ * The block is sent in several fragments to simulate partial reads of the socket.
+ *
+ * @author Daniel Tuerk
+ */
+class FccStandInServer implements Closeable {
+
+    private static final int READ_BLOCK = 120;
+    private static final int FRAGMENT_SIZE = 50;
+
+    private final ServerSocket serverSocket;
+    private final byte[] busData = new byte[226];
+    private volatile Socket socket;
+
+    FccStandInServer() throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(this::serve, "fcc-stand-in");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void serve() {
+        try {
+            socket = serverSocket.accept();
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            OutputStream output = socket.getOutputStream();
+            while (true) {
+                int first = input.readUnsignedByte();
+                int second = input.readUnsignedByte();
+                if (first == READ_BLOCK) {
+                    for (int offset = 0; offset < busData.length; offset += FRAGMENT_SIZE) {
+                        output.write(busData, offset, Math.min(FRAGMENT_SIZE, busData.length - offset));
+                        output.flush();
+                        Thread.sleep(2L);
+                    }
+                } else {
+                    int data = input.readUnsignedByte();
+                    int address = second & 0x7f;
+                    if ((second & 0x80) != 0 && address < 113) {
+                        busData[first * 113 + address] = (byte) data;
+                    }
+                    output.write(0);
+                    output.flush();
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // connection closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (socket != null) {
+            socket.close();
+        }
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,50 @@
+package net.wbz.selectrix4java.device.socket;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.wbz.selectrix4java.data.WriteResult;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link SocketDevice} against the {@link FccStandInServer}.
+ *
+ * @author Daniel Tuerk
+ */
+public class SocketDeviceTest {
+
+    private FccStandInServer server;
+    private SocketDevice device;
+
+    @Before
+    public void setUp() throws IOException, DeviceAccessException {
+        server = new FccStandInServer();
+        device = new SocketDevice("localhost", server.getPort());
+        device.setAutoReconnect(false);
+        device.connect();
+    }
+
+    @After
+    public void tearDown() throws IOException, DeviceAccessException {
+        device.disconnect();
+        server.close();
+    }
+
+    @Test
+    public void testWriteAndRead() throws DeviceAccessException, InterruptedException, ExecutionException,
+            TimeoutException {
+        WriteResult result = device.getBusAddress(1, 60).sendData((byte) 42).get(3, TimeUnit.SECONDS);
+        Assert.assertTrue(result.isAcknowledged());
+        Assert.assertTrue(result.isConfirmed());
+
+        device.getBusAddress(0, 10).sendData((byte) 3).get(3, TimeUnit.SECONDS);
+        device.getBusAddress(0, 10).waitForData((byte) 3, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+        Assert.assertEquals(42, device.getBusSnapshot().getData(1, 60));
+        Assert.assertTrue(device.isConnected());
+    }
+}
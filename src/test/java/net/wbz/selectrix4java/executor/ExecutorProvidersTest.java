@@ -0,0 +1,89 @@
+package net.wbz.selectrix4java.executor;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.wbz.selectrix4java.device.test.TestDevice;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Test the {@link ExecutorProvider} implementations.
+ *
+ * @author Daniel Tuerk
+ */
+public class ExecutorProvidersTest {
+
+    @Test
+    public void testBoundedPlatformThreads() throws InterruptedException {
+        ExecutorService executor = new PlatformExecutorProvider(2).newExecutor("test");
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch finished = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    // blocking callback
+                    Thread.sleep(20L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                finished.countDown();
+            });
+        }
+        Assert.assertTrue(finished.await(3, TimeUnit.SECONDS));
+        Assert.assertEquals(2, maxRunning.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        Assume.assumeTrue(VirtualExecutorProvider.isSupported());
+        ExecutorService executor = new VirtualExecutorProvider().newExecutor("test");
+        Thread thread = executor.submit(Thread::currentThread).get(3, TimeUnit.SECONDS);
+        Assert.assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+        Assert.assertEquals("test-0", thread.getName());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testProviderOfDevice() throws Exception {
+        final Set<String> names = ConcurrentHashMap.newKeySet();
+        ExecutorProvider provider = new PlatformExecutorProvider() {
+            @Override
+            public ThreadFactory newThreadFactory(String name) {
+                names.add(name);
+                return super.newThreadFactory(name);
+            }
+        };
+        TestDevice device = new TestDevice("test", provider);
+        device.connect();
+        try {
+            device.getBusAddress(1, 50).sendData((byte) 5).get(3, TimeUnit.SECONDS);
+            Assert.assertSame(provider, device.getExecutorProvider());
+            Assert.assertTrue(names.toString(), names.containsAll(
+                    Arrays.asList("bus-data-dispatcher", "serial-io-executor", "device-reconnect")));
+        } finally {
+            device.disconnect();
+        }
+    }
+
+    @Test
+    public void testFromProperty() {
+        Assert.assertEquals(Integer.MAX_VALUE,
+                ((PlatformExecutorProvider) ExecutorProviders.fromProperty(null)).getMaxThreads());
+        Assert.assertEquals(4,
+                ((PlatformExecutorProvider) ExecutorProviders.fromProperty("platform:4")).getMaxThreads());
+        Assert.assertTrue(ExecutorProviders.fromProperty("platform:x") instanceof PlatformExecutorProvider);
+        Assert.assertEquals(VirtualExecutorProvider.isSupported(),
+                ExecutorProviders.fromProperty("virtual") instanceof VirtualExecutorProvider);
+    }
+}
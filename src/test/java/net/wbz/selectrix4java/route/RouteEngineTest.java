@@ -0,0 +1,135 @@
+package net.wbz.selectrix4java.route;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.wbz.selectrix4java.block.BlockSet;
+import net.wbz.selectrix4java.data.WriteResult;
+import net.wbz.selectrix4java.device.DeviceAccessException;
+import net.wbz.selectrix4java.device.test.TestDevice;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the reservation of conflicting {@link Route}s and the switch of the turnouts by the {@link RouteEngine}.
+ *
+ * @author Daniel Tuerk
+ */
+public class RouteEngineTest {
+
+    private TestDevice device;
+    private RouteEngine engine;
+
+    @Before
+    public void setUp() throws DeviceAccessException {
+        device = new TestDevice();
+        device.connect();
+        engine = new RouteEngine(device);
+    }
+
+    @After
+    public void tearDown() throws DeviceAccessException {
+        device.disconnect();
+    }
+
+    @Test
+    public void testConflictingRoutes() throws InterruptedException, ExecutionException, TimeoutException,
+            DeviceAccessException {
+        Route first = new Route("first", BlockSet.of(1, 10, 1, 2), ImmutableList.of(
+                new TurnoutPosition(1, 50, 1, true), new TurnoutPosition(1, 50, 3, true)));
+        // shares the turnout 50.3
+        Route second = new Route("second", BlockSet.of(1, 10, 5), ImmutableList.of(
+                new TurnoutPosition(1, 50, 3, false)));
+        // other bit of the same decoder
+        Route third = new Route("third", BlockSet.of(1, 11, 1), ImmutableList.of(
+                new TurnoutPosition(1, 50, 8, true)));
+        Assert.assertTrue(first.conflictsWith(second));
+        Assert.assertFalse(first.conflictsWith(third));
+
+        List<WriteResult> results = engine.setRoute(first).get(3, TimeUnit.SECONDS);
+        Assert.assertEquals(1, results.size());
+        Assert.assertFalse(engine.isAvailable(second));
+        try {
+            engine.setRoute(second).get(3, TimeUnit.SECONDS);
+            Assert.fail("conflict not detected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RouteConflictException);
+        }
+
+        // turnout bits of both routes are merged into the decoder value
+        engine.setRoute(third).get(3, TimeUnit.SECONDS);
+        device.getBusAddress(1, 50).waitForData((byte) 0b1000_0101, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+
+        engine.release(first);
+        Assert.assertTrue(engine.tryReserve(second));
+        Assert.assertTrue(engine.isReserved(second));
+    }
+
+    @Test
+    public void testMergeWithLatestValue() throws InterruptedException, ExecutionException, TimeoutException,
+            DeviceAccessException {
+        Route first = new Route("first", BlockSet.of(1, 10, 1), ImmutableList.of(
+                new TurnoutPosition(1, 50, 1, true)));
+        Route second = new Route("second", BlockSet.of(1, 11, 1), ImmutableList.of(
+                new TurnoutPosition(1, 50, 8, true)));
+        engine.setRoute(first).get(3, TimeUnit.SECONDS);
+
+        // turnout of the same decoder is switched without the engine
+        device.getBusAddress(1, 50).sendData((byte) 0b0000_0011).get(3, TimeUnit.SECONDS);
+
+        engine.setRoute(second).get(3, TimeUnit.SECONDS);
+        device.getBusAddress(1, 50).waitForData((byte) 0b1000_0011, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testConcurrentRequests() throws InterruptedException, ExecutionException {
+        // chain of routes, each conflicts with the neighbours by a shared block
+        final List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            routes.add(new Route("route-" + i, BlockSet.of(1, i % 100, 1).with(1, (i + 1) % 100, 1),
+                    ImmutableList.<TurnoutPosition>of()));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> reservations = new ArrayList<>();
+        for (final Route route : routes) {
+            reservations.add(executor.submit(() -> {
+                start.await();
+                return engine.tryReserve(route);
+            }));
+        }
+        start.countDown();
+        List<Route> reserved = new ArrayList<>();
+        for (int i = 0; i < routes.size(); i++) {
+            if (reservations.get(i).get()) {
+                reserved.add(routes.get(i));
+            }
+        }
+        executor.shutdown();
+
+        Assert.assertFalse(reserved.isEmpty());
+        for (Route route : reserved) {
+            for (Route other : reserved) {
+                Assert.assertTrue(route == other || !route.conflictsWith(other));
+            }
+        }
+        for (Route route : reserved) {
+            engine.release(route);
+        }
+        for (Route route : routes) {
+            Assert.assertTrue(engine.isAvailable(route));
+        }
+        CompletableFuture<List<WriteResult>> empty = engine.setRoute(routes.get(0));
+        Assert.assertNotNull(empty.get());
+    }
+}